@@ -0,0 +1,58 @@
+package com.cms.customer.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExportConfig {
+
+    /**
+     * Writes streamed responses such as the Excel export. Bounded like the
+     * import job pool, so concurrent exports cannot each hold a thread and a
+     * database connection without limit.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor exportExecutor(
+            @Value("${cms.export.threads:2}") int threads,
+            @Value("${cms.export.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Reads and renders the id partitions of exports. Shared by all running
+     * exports, so it bounds their combined use of cores and connections.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService exportPartitionPool(@Value("${cms.export.partition-threads:0}") int partitionThreads) {
+        int threads = partitionThreads > 0 ? partitionThreads : Runtime.getRuntime().availableProcessors();
+        return Executors.newFixedThreadPool(threads, ImportConfig.daemonThreads("export-partition-"));
+    }
+
+    @Bean
+    public WebMvcConfigurer exportAsyncConfigurer(@Qualifier("exportExecutor") ThreadPoolTaskExecutor exportExecutor,
+            @Value("${cms.export.timeout:30m}") Duration timeout) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(exportExecutor);
+                // Large exports outlast the container's default async timeout
+                configurer.setDefaultTimeout(timeout.toMillis());
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.cms.customer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class ImportConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importParserPool(@Value("${cms.import.parser-threads:0}") int parserThreads) {
+        int threads = parserThreads > 0
+                ? parserThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        return Executors.newFixedThreadPool(threads, daemonThreads("import-parser-"));
+    }
+
+    /**
+     * Runs asynchronous import jobs. Kept small and separately bounded so that
+     * imports can never take over the servlet threads serving CRUD traffic.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importJobExecutor(
+            @Value("${cms.import.job-threads:2}") int jobThreads,
+            @Value("${cms.import.job-queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobThreads);
+        executor.setMaxPoolSize(jobThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("import-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Runs streamed imports, whose request thread waits for the job to finish.
+     * There is no queue: when every worker is busy the request is rejected at
+     * once instead of holding a servlet thread until one frees up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importStreamExecutor(@Value("${cms.import.stream-threads:2}") int streamThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(streamThreads);
+        executor.setMaxPoolSize(streamThreads);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("import-stream-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + seq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,31 +1,84 @@
 package com.cms.customer.controller;
 
 import com.cms.customer.dto.ApiResponse;
+import com.cms.customer.dto.CursorPageDTO;
 import com.cms.customer.dto.CustomerDTO;
-import com.cms.customer.dto.ImportResultDTO;
+import com.cms.customer.dto.CustomerSuggestionDTO;
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.dto.ImportJobDTO;
+import com.cms.customer.dto.NicIndexStatsDTO;
 import com.cms.customer.service.CustomerService;
+import com.cms.customer.service.ExportSnapshotService;
+import com.cms.customer.service.ImportJobService;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.exporter.ExportSnapshot;
+import com.cms.customer.service.importer.ImportJobStatus;
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.query.CountMode;
+import com.cms.customer.service.query.CustomerCursor;
+import com.cms.customer.service.query.CustomerField;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/customers")
 public class CustomerController {
 
+    // Tomcat's sendfile request attributes
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int MAX_SUGGESTIONS = 50;
+
     @Autowired
     private CustomerService customerService;
 
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private ExportSnapshotService exportSnapshotService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     public ResponseEntity<ApiResponse<CustomerDTO>> createCustomer(@Valid @RequestBody CustomerDTO customerDTO) {
         CustomerDTO createdCustomer = customerService.createCustomer(customerDTO);
@@ -42,39 +95,108 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success("Customer updated successfully", updatedCustomer));
     }
 
+    @GetMapping("/nic-index")
+    public ResponseEntity<ApiResponse<NicIndexStatsDTO>> getNicIndexStats() {
+        return ResponseEntity.ok(ApiResponse.success(customerService.getNicIndexStats()));
+    }
+
+    /*
+     * The reads below take fields=firstName,nic,... to return only those
+     * attributes (and the id); only the associations listed are loaded at all.
+     */
+
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<CustomerDTO>> getCustomer(@PathVariable Long id) {
-        CustomerDTO customer = customerService.getCustomerById(id);
-        return ResponseEntity.ok(ApiResponse.success(customer));
+    public ResponseEntity<ApiResponse<Object>> getCustomer(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields) {
+        Set<CustomerField> customerFields = CustomerField.fromParam(fields);
+        CustomerDTO customer = customerService.getCustomerById(id, customerFields);
+        return ResponseEntity.ok(ApiResponse.success(select(customer, customerFields)));
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<CustomerDTO>>> getAllCustomers(
+    public ResponseEntity<ApiResponse<Page<Object>>> getAllCustomers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "ASC") String sortDir) {
+            @RequestParam(defaultValue = "ASC") String sortDir,
+            @RequestParam(required = false) String fields) {
 
         Sort sort = sortDir.equalsIgnoreCase("DESC")
                 ? Sort.by(sortBy).descending()
                 : Sort.by(sortBy).ascending();
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        Page<CustomerDTO> customers = customerService.getAllCustomers(pageable);
+        Set<CustomerField> customerFields = CustomerField.fromParam(fields);
+        Page<CustomerDTO> customers = customerService.getAllCustomers(pageable, customerFields);
+
+        return ResponseEntity.ok(ApiResponse.success(customers.map(c -> select(c, customerFields))));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success(customers));
+    /**
+     * Lists customers page by page with a continuation token instead of page
+     * numbers: each page seeks past the last row of the previous one, so deep
+     * pages cost the same as the first. The token carries the sort, so later
+     * requests only pass {@code cursor}. {@code count=exact} adds a fresh
+     * total, {@code count=estimate} a briefly cached one.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPageDTO<Object>>> scrollCustomers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "ASC") String sortDir,
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "none") String count) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        CustomerCursor position = cursor != null
+                ? CustomerCursor.decode(cursor)
+                : CustomerCursor.first(sortBy, sortDir.equalsIgnoreCase("DESC"));
+        Set<CustomerField> customerFields = CustomerField.fromParam(fields);
+        CursorPageDTO<CustomerDTO> customers = customerService.scrollCustomers(position, size, customerFields,
+                CountMode.fromParam(count));
+
+        return ResponseEntity.ok(ApiResponse.success(customers.map(c -> select(c, customerFields))));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<Page<CustomerDTO>>> searchCustomers(
+    public ResponseEntity<ApiResponse<Page<Object>>> searchCustomers(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fields) {
 
         Pageable pageable = PageRequest.of(page, size);
-        Page<CustomerDTO> customers = customerService.searchCustomers(keyword, pageable);
+        Set<CustomerField> customerFields = CustomerField.fromParam(fields);
+        Page<CustomerDTO> customers = customerService.searchCustomers(keyword, pageable, customerFields);
 
-        return ResponseEntity.ok(ApiResponse.success(customers));
+        return ResponseEntity.ok(ApiResponse.success(customers.map(c -> select(c, customerFields))));
+    }
+
+    /**
+     * As-you-type suggestions: customers whose "first last" name, last name
+     * or NIC starts with {@code prefix}, answered from memory.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<CustomerSuggestionDTO>>> suggestCustomers(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        return ResponseEntity.ok(ApiResponse.success(customerService.suggestCustomers(prefix, limit)));
+    }
+
+    // The customer itself when every field was asked for, otherwise its JSON cut down to the requested fields
+    private Object select(CustomerDTO customer, Set<CustomerField> fields) {
+        if (fields.equals(CustomerField.ALL)) {
+            return customer;
+        }
+        ObjectNode json = objectMapper.valueToTree(customer);
+        json.retain(fields.stream().map(CustomerField::getParam).collect(Collectors.toList()));
+        return json;
     }
 
     @DeleteMapping("/{id}")
@@ -84,8 +206,10 @@ public class CustomerController {
     }
 
     @PostMapping("/import")
-    public ResponseEntity<ApiResponse<ImportResultDTO>> importCustomers(
-            @RequestParam("file") MultipartFile file) {
+    public ResponseEntity<ApiResponse<ImportJobDTO>> importCustomers(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "insert") String mode,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
 
         if (file.isEmpty()) {
             return ResponseEntity
@@ -93,29 +217,170 @@ public class CustomerController {
                     .body(ApiResponse.error("Please select a file to upload"));
         }
 
-        ImportResultDTO result = customerService.importCustomersFromExcel(file);
-        return ResponseEntity.ok(ApiResponse.success(
-                "Imported " + result.getImportedCount() + " customers (" + result.getSkippedDuplicates()
-                        + " duplicates skipped)",
-                result));
+        ImportJobDTO job = importJobService.submitImport(file, ImportMode.fromParam(mode), dryRun);
+        return ResponseEntity
+                .accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{jobId}")
+                        .buildAndExpand(job.getJobId())
+                        .toUri())
+                .body(ApiResponse.success("Import job accepted", job));
     }
 
-    @GetMapping("/export")
-    public ResponseEntity<byte[]> exportCustomers() {
-        byte[] excelFile = customerService.exportCustomersToExcel();
+    /**
+     * Imports a file sent as the raw request body (fixed length or chunked), so
+     * rows are parsed while the upload is still arriving. Responds once the job
+     * has finished; a file whose header is unusable is rejected before the rest
+     * of it is read. A failed job is answered with 500 and a cancelled one with
+     * 409, both carrying the job; 503 means no import worker was free.
+     */
+    @PostMapping(value = "/import", consumes = {
+            MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            "text/csv",
+            "application/x-ndjson",
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet" })
+    public ResponseEntity<ApiResponse<ImportJobDTO>> importCustomersStream(
+            HttpServletRequest request,
+            @RequestParam(required = false) String fileName,
+            @RequestParam(defaultValue = "insert") String mode,
+            @RequestParam(defaultValue = "false") boolean dryRun) throws IOException {
+
+        ImportJobDTO job = importJobService.importStream(request.getInputStream(), request.getContentLengthLong(),
+                request.getContentType(), fileName, ImportMode.fromParam(mode), dryRun);
+        ApiResponse<ImportJobDTO> body;
+        HttpStatus status;
+        if (job.getStatus() == ImportJobStatus.FAILED) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            body = new ApiResponse<>(false, "Import failed: " + job.getErrorMessage(), job);
+        } else if (job.getStatus() == ImportJobStatus.CANCELLED) {
+            status = HttpStatus.CONFLICT;
+            body = new ApiResponse<>(false, "Import cancelled", job);
+        } else {
+            status = HttpStatus.OK;
+            body = ApiResponse.success("Import finished", job);
+        }
+        return ResponseEntity
+                .status(status)
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQuery(null)
+                        .path("/{jobId}")
+                        .buildAndExpand(job.getJobId())
+                        .toUri())
+                .body(body);
+    }
+
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> getImportJob(@PathVariable String jobId) {
+        ImportJobDTO job = importJobService.getImportJob(jobId);
+        return ResponseEntity.ok(ApiResponse.success(job));
+    }
+
+    @DeleteMapping("/import/{jobId}")
+    public ResponseEntity<ApiResponse<ImportJobDTO>> cancelImportJob(@PathVariable String jobId) {
+        ImportJobDTO job = importJobService.cancelImportJob(jobId);
+        return ResponseEntity.ok(ApiResponse.success("Import cancellation requested", job));
+    }
+
+    @GetMapping("/import/{jobId}/errors")
+    public ResponseEntity<Resource> downloadImportErrors(@PathVariable String jobId) {
+        Path report = importJobService.getErrorReport(jobId);
 
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(
-                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-        headers.setContentDispositionFormData("attachment", "customers.xlsx");
+        headers.setContentType(MediaType.parseMediaType("text/csv;charset=UTF-8"));
+        headers.setContentDispositionFormData("attachment", "import-errors-" + jobId + ".csv");
         headers.setCacheControl("no-cache, no-store, must-revalidate");
-        headers.add("Pragma", "no-cache");
-        headers.add("Expires", "0");
 
+        // Streamed from disk by the resource converter rather than read into memory
         return ResponseEntity
                 .ok()
                 .headers(headers)
-                .body(excelFile);
+                .body(new FileSystemResource(report));
+    }
+
+    /**
+     * Streams the export to the client while it is generated, on the export
+     * executor rather than the servlet thread. {@code format=zip} returns one
+     * workbook per id partition, rendered in parallel. The filters narrow it
+     * to a search result, a date-of-birth range or the customers changed
+     * since a point in time, and {@code columns} (such as {@code nic,email})
+     * picks the columns, which are then the only ones read.
+     * <p>
+     * Exports are cached on disk per parameters and data version, which is
+     * also their ETag: a matching {@code If-None-Match} gets a 304, and a
+     * cached export is sent straight from its file, by the container's
+     * sendfile where it offers one.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(
+            @RequestParam(defaultValue = "xlsx") String format,
+            @RequestParam(required = false) String columns,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dobTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    LocalDateTime updatedSince,
+            HttpServletRequest request,
+            WebRequest webRequest) {
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        List<ExportColumn> exportColumns = ExportColumn.fromParam(columns);
+        ExportFilterDTO filter = new ExportFilterDTO();
+        filter.setKeyword(keyword);
+        filter.setDateOfBirthFrom(dobFrom);
+        filter.setDateOfBirthTo(dobTo);
+        filter.setUpdatedSince(updatedSince);
+        ExportSnapshot snapshot = exportSnapshotService.getSnapshot(exportFormat, filter, exportColumns);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (exportFormat == ExportFormat.ZIP) {
+            headers.setContentType(MediaType.parseMediaType("application/zip"));
+            headers.setContentDispositionFormData("attachment", "customers.zip");
+        } else {
+            headers.setContentType(MediaType.parseMediaType(
+                    "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
+            headers.setContentDispositionFormData("attachment", "customers.xlsx");
+        }
+
+        if (!snapshot.isCacheable()) {
+            headers.setCacheControl("no-cache, no-store, must-revalidate");
+            headers.add("Pragma", "no-cache");
+            headers.add("Expires", "0");
+            StreamingResponseBody body = out -> customerService.exportCustomersToExcel(exportFormat, filter,
+                    exportColumns, out);
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+
+        // Clients may keep the export but must revalidate it, which costs one aggregate query when unchanged
+        if (webRequest.checkNotModified(snapshot.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getETag()).build();
+        }
+        headers.setETag(snapshot.getETag());
+        headers.setCacheControl(CacheControl.noCache().cachePrivate());
+
+        Optional<Path> cached = exportSnapshotService.findFile(snapshot);
+        if (cached.isPresent()) {
+            long size = cached.get().toFile().length();
+            headers.setContentLength(size);
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // The container copies the file to the socket itself once the headers are written
+                request.setAttribute(SENDFILE_FILENAME, cached.get().toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return ResponseEntity.ok().headers(headers).build();
+            }
+            return ResponseEntity.ok().headers(headers).body(out -> transferFile(cached.get(), out));
+        }
+        return ResponseEntity.ok().headers(headers)
+                .body(out -> transferFile(exportSnapshotService.getFile(snapshot), out));
+    }
+
+    private static void transferFile(Path file, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = channel.size();
+            for (long position = 0; position < size; ) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
     }
 
     @PostMapping("/{customerId}/family-members/{familyMemberId}")
@@ -0,0 +1,30 @@
+package com.cms.customer.dto;
+
+import com.cms.customer.service.query.CountMode;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> content = new ArrayList<>();
+    // Pass back as cursor to get the next page; null on the last page
+    private String nextCursor;
+    // Null when the request asked for no count
+    private Long totalElements;
+    private CountMode countMode;
+
+    public <R> CursorPageDTO<R> map(Function<? super T, ? extends R> converter) {
+        CursorPageDTO<R> page = new CursorPageDTO<>();
+        page.setContent(content.stream().map(converter).collect(Collectors.toList()));
+        page.setNextCursor(nextCursor);
+        page.setTotalElements(totalElements);
+        page.setCountMode(countMode);
+        return page;
+    }
+}
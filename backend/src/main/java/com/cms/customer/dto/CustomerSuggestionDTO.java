@@ -0,0 +1,16 @@
+package com.cms.customer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSuggestionDTO {
+
+    private Long id;
+
+    // "First Last (NIC)"
+    private String display;
+}
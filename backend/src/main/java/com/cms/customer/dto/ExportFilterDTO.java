@@ -0,0 +1,22 @@
+package com.cms.customer.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Narrows an export to matching customers. Unset fields do not filter.
+ */
+@Data
+@NoArgsConstructor
+public class ExportFilterDTO {
+    // Matched as by the customer search: the customers having it as a case-insensitive substring of name, NIC or
+    // email
+    private String keyword;
+    private LocalDate dateOfBirthFrom;
+    private LocalDate dateOfBirthTo;
+    // Only customers created or changed at or after this time, for incremental syncs
+    private LocalDateTime updatedSince;
+}
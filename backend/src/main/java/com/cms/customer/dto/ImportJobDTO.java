@@ -0,0 +1,34 @@
+package com.cms.customer.dto;
+
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.ImportJobStatus;
+import com.cms.customer.service.importer.ImportMode;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+@Data
+@NoArgsConstructor
+public class ImportJobDTO {
+    private String jobId;
+    private String fileName;
+    private ImportFormat format;
+    private ImportMode mode;
+    private boolean dryRun;
+    private ImportJobStatus status;
+    private Date submittedAt;
+    private Date startedAt;
+    private Date finishedAt;
+    private long rowsRead;
+    private long importedCount;
+    private long skippedDuplicates;
+    private Long estimatedRows;
+    private Integer resumedFromRow;
+    // Row errors so far; all of them are in the job's error report
+    private long errorCount;
+    private double rowsPerSecond;
+    private Long etaSeconds;
+    private String errorMessage;
+    private ImportResultDTO result;
+}
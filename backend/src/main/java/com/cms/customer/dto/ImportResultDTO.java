@@ -10,7 +10,23 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ImportResultDTO {
+    // Rows written (inserted + updated) and existing rows left untouched
     private long importedCount;
     private long skippedDuplicates;
+    private long insertedCount;
+    private long updatedCount;
+    // Upsert mode only: existing rows whose fields already matched the file
+    private long unchangedCount;
+    // Related records from the optional Addresses / Phone Numbers / Family Members sheets
+    private long importedAddresses;
+    private long importedPhoneNumbers;
+    private long importedFamilyLinks;
+    // Dry run: rows were validated but nothing was written; inserted, updated and skipped counts say what
+    // a real run would do
+    private boolean dryRun;
+    // Rows that passed validation, in every sheet
+    private long validCount;
+    // All row errors; errors holds only the first of them, the error report has every one
+    private long errorCount;
     private List<String> errors;
 }
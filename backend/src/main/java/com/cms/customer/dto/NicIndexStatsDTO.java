@@ -0,0 +1,24 @@
+package com.cms.customer.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class NicIndexStatsDTO {
+    // False until the index has been loaded; checks go to the database meanwhile
+    private boolean ready;
+    private long capacity;
+    private long insertions;
+    private long bitCount;
+    private int hashCount;
+    // Checks the index answered "maybe" and the database confirmed
+    private long hits;
+    // Checks the index answered "no", skipping the database
+    private long misses;
+    // Checks the index answered "maybe" and the database did not confirm
+    private long falsePositives;
+    // Checks made while the index was not ready
+    private long bypassed;
+    private double falsePositiveRate;
+}
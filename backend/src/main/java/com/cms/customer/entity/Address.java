@@ -1,19 +1,22 @@
 package com.cms.customer.entity;
 
+import com.cms.customer.id.BlockIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table(name = "addresses", indexes = {
-        @Index(name = "idx_customer_id", columnList = "customer_id"),
-        @Index(name = "idx_city_id", columnList = "city_id")
+        @Index(name = "idx_address_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_city_id", columnList = "city_id"),
+        @Index(name = "idx_address_updated_at", columnList = "updated_at")
 })
 @Getter
 @Setter
@@ -24,7 +27,8 @@ import java.util.Date;
 public class Address {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "address-id")
+    @GenericGenerator(name = "address-id", strategy = BlockIdGenerator.STRATEGY)
     @EqualsAndHashCode.Include
     private Long id;
 
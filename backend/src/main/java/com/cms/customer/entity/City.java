@@ -1,8 +1,10 @@
 package com.cms.customer.entity;
 
+import com.cms.customer.id.BlockIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -17,7 +19,8 @@ import java.util.Date;
 public class City {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "city-id")
+    @GenericGenerator(name = "city-id", strategy = BlockIdGenerator.STRATEGY)
     private Long id;
 
     @Column(nullable = false, length = 100)
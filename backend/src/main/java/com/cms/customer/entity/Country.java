@@ -1,8 +1,10 @@
 package com.cms.customer.entity;
 
+import com.cms.customer.id.BlockIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -15,7 +17,8 @@ import java.util.Date;
 public class Country {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "country-id")
+    @GenericGenerator(name = "country-id", strategy = BlockIdGenerator.STRATEGY)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 100)
@@ -1,11 +1,13 @@
 package com.cms.customer.entity;
 
+import com.cms.customer.id.BlockIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -16,7 +18,10 @@ import java.util.Set;
 @Table(name = "customers", indexes = {
         @Index(name = "idx_nic", columnList = "nic"),
         @Index(name = "idx_name", columnList = "first_name, last_name"),
-        @Index(name = "idx_dob", columnList = "date_of_birth")
+        @Index(name = "idx_dob", columnList = "date_of_birth"),
+        @Index(name = "idx_customer_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_customer_first_name_id", columnList = "first_name, id"),
+        @Index(name = "idx_customer_last_name_id", columnList = "last_name, id")
 })
 @Getter
 @Setter
@@ -27,7 +32,8 @@ import java.util.Set;
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "customer-id")
+    @GenericGenerator(name = "customer-id", strategy = BlockIdGenerator.STRATEGY)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -0,0 +1,93 @@
+package com.cms.customer.entity;
+
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.importer.ImportSheet;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Progress marker of an import, keyed by the SHA-256 of the uploaded file.
+ * Updated in the same transaction as every committed batch, so
+ * {@code lastRow} never runs ahead of the data actually written.
+ */
+@Entity
+@Table(name = "import_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ImportCheckpoint {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    @Id
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    /** Sheet of {@code lastRow}; related-record sheets are imported after the customers. */
+    @Column(name = "last_sheet", nullable = false, length = 20)
+    private String lastSheet = ImportSheet.CUSTOMERS.name();
+
+    @Column(name = "last_row", nullable = false)
+    private int lastRow;
+
+    @Column(name = "rows_read", nullable = false)
+    private long rowsRead;
+
+    @Column(name = "imported_count", nullable = false)
+    private long importedCount;
+
+    @Column(name = "skipped_duplicates", nullable = false)
+    private long skippedDuplicates;
+
+    @Column(name = "error_count", nullable = false)
+    private long errorCount;
+
+    /** Existing rows rewritten by an upsert; the rest of {@code importedCount} were inserted. */
+    @Column(name = "updated_count", nullable = false)
+    private long updatedCount;
+
+    @Column(nullable = false, length = 10)
+    private String mode = ImportMode.INSERT.name();
+
+    @Column(name = "imported_addresses", nullable = false)
+    private long importedAddresses;
+
+    @Column(name = "imported_phone_numbers", nullable = false)
+    private long importedPhoneNumbers;
+
+    @Column(name = "imported_family_links", nullable = false)
+    private long importedFamilyLinks;
+
+    @Column(nullable = false, length = 20)
+    private String status = IN_PROGRESS;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", updatable = false)
+    private Date createdAt;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+    public ImportCheckpoint(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = new Date();
+        updatedAt = new Date();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = new Date();
+    }
+}
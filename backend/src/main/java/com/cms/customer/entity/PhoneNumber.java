@@ -1,19 +1,22 @@
 package com.cms.customer.entity;
 
+import com.cms.customer.id.BlockIdGenerator;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
 
 @Entity
 @Table(name = "phone_numbers", indexes = {
-        @Index(name = "idx_customer_id", columnList = "customer_id"),
-        @Index(name = "idx_phone", columnList = "phone_number")
+        @Index(name = "idx_phone_customer_id", columnList = "customer_id"),
+        @Index(name = "idx_phone", columnList = "phone_number"),
+        @Index(name = "idx_phone_updated_at", columnList = "updated_at")
 })
 @Getter
 @Setter
@@ -24,7 +27,8 @@ import java.util.Date;
 public class PhoneNumber {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "phone-number-id")
+    @GenericGenerator(name = "phone-number-id", strategy = BlockIdGenerator.STRATEGY)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -0,0 +1,8 @@
+package com.cms.customer.exception;
+
+public class ImportRejectedException extends RuntimeException {
+
+    public ImportRejectedException(String message) {
+        super(message);
+    }
+}
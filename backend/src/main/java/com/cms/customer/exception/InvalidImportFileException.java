@@ -0,0 +1,12 @@
+package com.cms.customer.exception;
+
+/**
+ * An import file that cannot be imported at all, e.g. a CSV header without the
+ * required columns, as opposed to one with some invalid rows.
+ */
+public class InvalidImportFileException extends RuntimeException {
+
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
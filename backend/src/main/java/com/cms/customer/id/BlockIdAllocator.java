@@ -0,0 +1,76 @@
+package com.cms.customer.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out ids from blocks reserved in bulk from a {@link BlockSource}.
+ * <p>
+ * Allocation within a block is a single atomic increment, so concurrent callers
+ * never block each other. Only when a block runs dry does one caller reserve
+ * the next one while the others wait for it; callers that lose the race simply
+ * retry on the fresh block.
+ */
+public class BlockIdAllocator {
+
+    /**
+     * Reserves {@code size} consecutive ids that no other allocator, on this or
+     * any other node, will hand out.
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+        /**
+         * @return the first id of the reserved block
+         */
+        long reserve(int size);
+    }
+
+    private static final Block EXHAUSTED = new Block(0, 0);
+
+    private final BlockSource source;
+    private final int blockSize;
+    private final Object refillLock = new Object();
+    private volatile Block current = EXHAUSTED;
+
+    public BlockIdAllocator(BlockSource source, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+    }
+
+    public long next() {
+        while (true) {
+            Block block = current;
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private void refill(Block exhausted) {
+        synchronized (refillLock) {
+            if (current != exhausted) {
+                return; // another caller already installed a fresh block
+            }
+            long first = source.reserve(blockSize);
+            current = new Block(first, first + blockSize);
+        }
+    }
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+
+        Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+}
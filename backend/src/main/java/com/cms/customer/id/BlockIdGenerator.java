@@ -0,0 +1,84 @@
+package com.cms.customer.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.jdbc.connections.spi.JdbcConnectionAccess;
+import org.hibernate.engine.jdbc.spi.JdbcServices;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * Hibernate id generator backed by a {@link BlockIdAllocator}. Unlike IDENTITY,
+ * ids are known before the INSERT, so Hibernate can defer and batch inserts
+ * (including cascaded addresses and phone numbers).
+ * <p>
+ * Usage:
+ * <pre>
+ * &#64;GeneratedValue(generator = "customer-id")
+ * &#64;GenericGenerator(name = "customer-id", strategy = BlockIdGenerator.STRATEGY)
+ * </pre>
+ * The segment defaults to the entity's table name. The block size comes from
+ * the {@code block_size} generator parameter, falling back to the
+ * {@code cms.id.block_size} Hibernate property.
+ */
+public class BlockIdGenerator implements IdentifierGenerator {
+
+    public static final String STRATEGY = "com.cms.customer.id.BlockIdGenerator";
+    public static final String SEGMENT_PARAM = "segment";
+    public static final String BLOCK_SIZE_PARAM = "block_size";
+    public static final String BLOCK_SIZE_SETTING = "cms.id.block_size";
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private BlockIdAllocator allocator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        String table = params.getProperty(PersistentIdentifierGenerator.TABLE);
+        String column = params.getProperty(PersistentIdentifierGenerator.PK);
+        String segment = params.getProperty(SEGMENT_PARAM, table);
+
+        int blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(), DEFAULT_BLOCK_SIZE);
+        blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_PARAM, params, blockSize);
+
+        // Bootstrap access draws straight from the connection provider, outside any session
+        JdbcConnectionAccess access = serviceRegistry.getService(JdbcServices.class)
+                .getBootstrapJdbcConnectionAccess();
+        TableBlockSource source = new TableBlockSource(new TableBlockSource.ConnectionAccess() {
+            @Override
+            public Connection obtain() throws SQLException {
+                return access.obtainConnection();
+            }
+
+            @Override
+            public void release(Connection connection) throws SQLException {
+                access.releaseConnection(connection);
+            }
+        }, segment, table, column);
+
+        this.allocator = new BlockIdAllocator(source, blockSize);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return allocator.next();
+    }
+
+    /**
+     * Allocates an id without a session, for writers that bypass Hibernate but
+     * must share the entity's id space.
+     */
+    public long nextId() {
+        return allocator.next();
+    }
+}
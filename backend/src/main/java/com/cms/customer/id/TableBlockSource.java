@@ -0,0 +1,145 @@
+package com.cms.customer.id;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reserves id blocks from the shared {@code id_blocks} hi/lo table, one row per
+ * segment. Reservation is a compare-and-set UPDATE on its own short transaction,
+ * so any number of application instances can draw from the same segment without
+ * handing out overlapping blocks or holding row locks across business work.
+ * <p>
+ * A segment row is created on first use, starting above the highest id already
+ * in the target table so that rows written before the allocator was introduced
+ * are never collided with.
+ */
+public class TableBlockSource implements BlockIdAllocator.BlockSource {
+
+    /**
+     * Supplies a connection that is not enlisted in any business transaction.
+     */
+    public interface ConnectionAccess {
+        Connection obtain() throws SQLException;
+
+        void release(Connection connection) throws SQLException;
+    }
+
+    static final String TABLE = "id_blocks";
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE
+            + " (segment VARCHAR(64) NOT NULL PRIMARY KEY, next_val BIGINT NOT NULL)";
+    private static final String SELECT_NEXT = "SELECT next_val FROM " + TABLE + " WHERE segment = ?";
+    private static final String INSERT_SEGMENT = "INSERT INTO " + TABLE + " (segment, next_val) VALUES (?, ?)";
+    private static final String ADVANCE = "UPDATE " + TABLE
+            + " SET next_val = ? WHERE segment = ? AND next_val = ?";
+    private static final int MAX_ATTEMPTS = 50;
+
+    private final ConnectionAccess connectionAccess;
+    private final String segment;
+    private final String targetTable;
+    private final String targetColumn;
+    private volatile boolean tableChecked;
+
+    public TableBlockSource(ConnectionAccess connectionAccess, String segment, String targetTable,
+            String targetColumn) {
+        this.connectionAccess = connectionAccess;
+        this.segment = segment;
+        this.targetTable = targetTable;
+        this.targetColumn = targetColumn;
+    }
+
+    @Override
+    public long reserve(int size) {
+        try {
+            Connection connection = connectionAccess.obtain();
+            boolean autoCommit = connection.getAutoCommit();
+            try {
+                connection.setAutoCommit(false);
+                ensureTable(connection);
+                for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                    Long first = tryReserve(connection, size);
+                    if (first != null) {
+                        return first;
+                    }
+                }
+                throw new IllegalStateException("Could not reserve an id block for segment " + segment
+                        + " after " + MAX_ATTEMPTS + " attempts");
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                connectionAccess.release(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reserve an id block for segment " + segment, e);
+        }
+    }
+
+    /**
+     * @return the first id of the reserved block, or {@code null} if another
+     *         reservation won the race and the caller should retry
+     */
+    private Long tryReserve(Connection connection, int size) throws SQLException {
+        try {
+            Long current = currentValue(connection);
+            if (current == null) {
+                createSegment(connection);
+                connection.commit();
+                return null;
+            }
+
+            int updated;
+            try (PreparedStatement ps = connection.prepareStatement(ADVANCE)) {
+                ps.setLong(1, current + size);
+                ps.setString(2, segment);
+                ps.setLong(3, current);
+                updated = ps.executeUpdate();
+            }
+            connection.commit();
+            return updated == 1 ? current : null;
+        } catch (SQLException e) {
+            // Typically a concurrent first use inserting the same segment row
+            connection.rollback();
+            if (currentValue(connection) == null) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private Long currentValue(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(SELECT_NEXT)) {
+            ps.setString(1, segment);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private void createSegment(Connection connection) throws SQLException {
+        long start = 1;
+        try (Statement st = connection.createStatement();
+                ResultSet rs = st.executeQuery("SELECT MAX(" + targetColumn + ") FROM " + targetTable)) {
+            if (rs.next()) {
+                start = rs.getLong(1) + 1;
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_SEGMENT)) {
+            ps.setString(1, segment);
+            ps.setLong(2, start);
+            ps.executeUpdate();
+        }
+    }
+
+    private void ensureTable(Connection connection) throws SQLException {
+        if (tableChecked) {
+            return;
+        }
+        try (Statement st = connection.createStatement()) {
+            st.execute(CREATE_TABLE);
+        }
+        connection.commit();
+        tableChecked = true;
+    }
+}
@@ -0,0 +1,441 @@
+package com.cms.customer.index;
+
+import com.cms.customer.entity.Customer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index over the lower-cased first name, last name, NIC and email of
+ * customers. A keyword matches a customer when it is a substring of one of
+ * those fields, exactly as {@code LOWER(column) LIKE '%keyword%'} would, so
+ * {@code son} finds Sonia, Johnson and Anderson alike.
+ * <p>
+ * Every customer gets an ordinal in the order it was indexed. The fields are
+ * kept once, as UTF-8 in one shared byte array, and each trigram (three
+ * consecutive bytes of a field) maps to the ascending ordinals of the
+ * customers having it, delta- and varint-encoded, which is about one byte per
+ * trigram of a customer. A keyword of three bytes or more reads the postings
+ * of its trigrams together, and the customers having them all are checked
+ * against the stored text; shorter keywords check every customer.
+ * <p>
+ * Updates and deletes mark the old ordinal dead rather than edit the
+ * postings; an update indexes the customer again under a new ordinal. Dead
+ * ordinals are dropped by building a new index, see {@link #needsCompaction}.
+ * <p>
+ * Thread-safe: searches share a read lock, changes take the write lock.
+ */
+public class CustomerInvertedIndex {
+
+    // Matching a whole field outranks matching its start, which outranks matching inside it
+    private static final byte WHOLE_FIELD_SCORE = 3;
+    private static final byte PREFIX_SCORE = 2;
+    private static final byte INFIX_SCORE = 1;
+
+    private static final int GRAM = 3;
+    private static final byte FIELD_SEPARATOR = 0;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private final CustomerOrdinals ordinals = new CustomerOrdinals();
+    private final BitSet dead = new BitSet();
+    private long[] customerIds = new long[1024];
+    // The fields of ordinal n are text[textStarts[n], textStarts[n + 1]), separated by FIELD_SEPARATOR
+    private int[] textStarts = new int[1025];
+    private byte[] text = new byte[64 * 1024];
+    private int documents;
+    private int deadDocuments;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** The customers of one page of a search, best first, and how many matched in all. */
+    public static final class SearchPage {
+
+        private final long[] customerIds;
+        private final int total;
+
+        SearchPage(long[] customerIds, int total) {
+            this.customerIds = customerIds;
+            this.total = total;
+        }
+
+        public long[] getCustomerIds() {
+            return customerIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    /** Indexes a customer's searchable fields, replacing those it was indexed with before. */
+    public void put(Customer customer) {
+        byte[][] fields = {
+                fieldBytes(customer.getFirstName()),
+                fieldBytes(customer.getLastName()),
+                fieldBytes(customer.getNic()),
+                fieldBytes(customer.getEmail())
+        };
+        lock.writeLock().lock();
+        try {
+            removeLocked(customer.getId());
+            int ordinal = documents;
+            if (ordinal == customerIds.length) {
+                customerIds = Arrays.copyOf(customerIds, grownLength(customerIds.length, 1));
+                textStarts = Arrays.copyOf(textStarts, customerIds.length + 1);
+            }
+            int position = textStarts[ordinal];
+            for (int f = 0; f < fields.length; f++) {
+                byte[] field = fields[f];
+                if (f > 0) {
+                    position = appendText(position, new byte[] { FIELD_SEPARATOR });
+                }
+                for (int i = 0; i + GRAM <= field.length; i++) {
+                    postings.computeIfAbsent(trigram(field, i), key -> new Postings()).add(ordinal);
+                }
+                position = appendText(position, field);
+            }
+            customerIds[ordinal] = customer.getId();
+            textStarts[ordinal + 1] = position;
+            ordinals.put(customer.getId(), ordinal);
+            documents++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long customerId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(customerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return the number of customers indexed */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents - deadDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return whether a quarter or more of the ordinals belong to customers
+     *         since updated or deleted, so that a fresh build would be
+     *         noticeably smaller and faster
+     */
+    public boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return deadDocuments > 1024 && deadDocuments >= documents / 4;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the customers having the trimmed keyword as a case-insensitive
+     * substring of a searchable field. They are ranked by whether it is the
+     * whole field, its start or inside it, then by the order they were
+     * indexed in, which is id order for customers not changed since the
+     * index was built.
+     *
+     * @param offset the number of ranked matches to skip
+     * @param limit  the most matches to return
+     */
+    public SearchPage search(String keyword, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            byte[] scores = new byte[documents];
+            int total = score(keyword, scores);
+            long[] page = new long[(int) Math.max(0, Math.min(limit, total - offset))];
+            long skip = offset;
+            int found = 0;
+            for (byte tier = WHOLE_FIELD_SCORE; tier >= INFIX_SCORE && found < page.length; tier--) {
+                for (int ordinal = 0; ordinal < documents && found < page.length; ordinal++) {
+                    if (scores[ordinal] != tier) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        page[found++] = customerIds[ordinal];
+                    }
+                }
+            }
+            return new SearchPage(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** @return the ascending ids of the customers {@link #search} finds for {@code keyword} */
+    public long[] findIds(String keyword) {
+        lock.readLock().lock();
+        try {
+            byte[] scores = new byte[documents];
+            long[] ids = new long[score(keyword, scores)];
+            int found = 0;
+            for (int ordinal = 0; ordinal < documents; ordinal++) {
+                if (scores[ordinal] > 0) {
+                    ids[found++] = customerIds[ordinal];
+                }
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Sets the score of every matching live ordinal and returns how many there are; called under the read lock
+    private int score(String keyword, byte[] scores) {
+        byte[] needle = fieldBytes(keyword.trim());
+        for (byte b : needle) {
+            if (b == FIELD_SEPARATOR) {
+                return 0;
+            }
+        }
+        int matches = 0;
+        if (needle.length < GRAM) {
+            for (int ordinal = 0; ordinal < documents; ordinal++) {
+                matches += scoreDocument(ordinal, needle, scores);
+            }
+            return matches;
+        }
+        Cursor[] cursors = new Cursor[needle.length - GRAM + 1];
+        for (int i = 0; i < cursors.length; i++) {
+            Postings list = postings.get(trigram(needle, i));
+            if (list == null) {
+                return 0;
+            }
+            cursors[i] = new Cursor(list);
+        }
+        // Walk the rarest trigram and look the others up in order
+        Arrays.sort(cursors, (a, b) -> Integer.compare(a.postings.count, b.postings.count));
+        Cursor lead = cursors[0];
+        next:
+        while (lead.next()) {
+            int ordinal = lead.current;
+            for (int i = 1; i < cursors.length; i++) {
+                if (!cursors[i].advanceTo(ordinal)) {
+                    break next;
+                }
+                if (cursors[i].current != ordinal) {
+                    continue next;
+                }
+            }
+            matches += scoreDocument(ordinal, needle, scores);
+        }
+        return matches;
+    }
+
+    private int scoreDocument(int ordinal, byte[] needle, byte[] scores) {
+        if (dead.get(ordinal)) {
+            return 0;
+        }
+        byte best = 0;
+        int end = textStarts[ordinal + 1];
+        int fieldStart = textStarts[ordinal];
+        while (fieldStart <= end && best < WHOLE_FIELD_SCORE) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && text[fieldEnd] != FIELD_SEPARATOR) {
+                fieldEnd++;
+            }
+            int at = indexOf(needle, fieldStart, fieldEnd);
+            if (at == fieldStart) {
+                byte score = fieldEnd - fieldStart == needle.length ? WHOLE_FIELD_SCORE : PREFIX_SCORE;
+                best = (byte) Math.max(best, score);
+            } else if (at > fieldStart) {
+                best = (byte) Math.max(best, INFIX_SCORE);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+        scores[ordinal] = best;
+        return best > 0 ? 1 : 0;
+    }
+
+    private int indexOf(byte[] needle, int from, int to) {
+        outer:
+        for (int i = from; i + needle.length <= to; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (text[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private int appendText(int position, byte[] bytes) {
+        if (position + bytes.length > text.length) {
+            text = Arrays.copyOf(text, grownLength(text.length, position + bytes.length - text.length));
+        }
+        System.arraycopy(bytes, 0, text, position, bytes.length);
+        return position + bytes.length;
+    }
+
+    private void removeLocked(long customerId) {
+        int ordinal = ordinals.remove(customerId);
+        if (ordinal >= 0) {
+            dead.set(ordinal);
+            deadDocuments++;
+        }
+    }
+
+    private static byte[] fieldBytes(String field) {
+        return field == null ? new byte[0] : field.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int trigram(byte[] bytes, int at) {
+        return (bytes[at] & 0xff) << 16 | (bytes[at + 1] & 0xff) << 8 | bytes[at + 2] & 0xff;
+    }
+
+    private static int grownLength(int length, int needed) {
+        long grown = Math.max(length + (long) (length >> 1), (long) length + needed);
+        if ((long) length + needed > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("Search index is full");
+        }
+        return (int) Math.min(grown, MAX_ARRAY_LENGTH);
+    }
+
+    /** The ascending ordinals having one trigram, as varint-encoded gaps. */
+    private static final class Postings {
+
+        private byte[] gaps = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int ordinal) {
+            if (ordinal == last) {
+                return;
+            }
+            if (length + 5 > gaps.length) {
+                gaps = Arrays.copyOf(gaps, grownLength(gaps.length, 5));
+            }
+            int gap = ordinal - last;
+            while ((gap & ~0x7f) != 0) {
+                gaps[length++] = (byte) (gap & 0x7f | 0x80);
+                gap >>>= 7;
+            }
+            gaps[length++] = (byte) gap;
+            last = ordinal;
+            count++;
+        }
+    }
+
+    private static final class Cursor {
+
+        private final Postings postings;
+        private int position;
+        private int current = -1;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        boolean next() {
+            if (position >= postings.length) {
+                return false;
+            }
+            int gap = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = postings.gaps[position++];
+                gap |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += gap;
+            return true;
+        }
+
+        /** @return whether there is an ordinal at or after {@code target}, now {@link #current} */
+        boolean advanceTo(int target) {
+            while (current < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Customer id to live ordinal, open addressing on primitive arrays. Ids are positive; 0 marks a free slot. */
+    private static final class CustomerOrdinals {
+
+        private static final int REMOVED = -1;
+
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private int used;
+
+        void put(long customerId, int ordinal) {
+            if (used + 1 > keys.length * 3 / 4) {
+                rehash();
+            }
+            int slot = slot(keys, customerId);
+            if (keys[slot] == 0) {
+                keys[slot] = customerId;
+                used++;
+            }
+            values[slot] = ordinal;
+        }
+
+        /** @return the ordinal the customer had, or a negative number if it had none */
+        int remove(long customerId) {
+            int slot = slot(keys, customerId);
+            if (keys[slot] == 0) {
+                return REMOVED;
+            }
+            int ordinal = values[slot];
+            // The key keeps its slot, so that probes past it still work
+            values[slot] = REMOVED;
+            return ordinal;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            int live = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldValues[i] != REMOVED) {
+                    live++;
+                }
+            }
+            // Removed customers are dropped, so a table mostly of them need not grow
+            int capacity = Integer.highestOneBit(Math.max(1024, live * 2)) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldValues[i] != REMOVED) {
+                    int slot = slot(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    used++;
+                }
+            }
+        }
+
+        private static int slot(long[] keys, long customerId) {
+            int mask = keys.length - 1;
+            int slot = (int) (customerId * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (keys[slot] != 0 && keys[slot] != customerId) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
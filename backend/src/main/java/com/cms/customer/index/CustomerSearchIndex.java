@@ -0,0 +1,182 @@
+package com.cms.customer.index;
+
+import com.cms.customer.entity.Customer;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Trigram index over customer first names, last names, NICs and emails (see
+ * {@link CustomerInvertedIndex}), used by customer search and the export
+ * keyword filter instead of substring scans of every row. A keyword matches
+ * the customers having it as a case-insensitive substring of one of those
+ * fields; whole-field matches rank first, then matches at the start of a
+ * field.
+ * <p>
+ * The index is built from the customer table in the background once the
+ * application is up, and every customer write updates it. Once updates and
+ * deletes have left a quarter of it stale it is built again. Writes made by
+ * other nodes are not seen.
+ * <p>
+ * {@link #search} answers empty only while the index is being built (or with
+ * {@code cms.search.enabled=false}) and for blank keywords; callers then fall
+ * back to the substring query. A keyword nothing matches is answered with an
+ * empty page.
+ */
+@Component
+public class CustomerSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    @Autowired
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Value("${cms.search.enabled:true}")
+    private boolean enabled = true;
+
+    private volatile CustomerInvertedIndex index;
+    // Receives writes while the index is being loaded; the load skips the customers they touched
+    private volatile CustomerInvertedIndex loading;
+    private final Set<Long> writtenWhileLoading = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * @return the ids of the customers matching {@code keyword}, best first, or
+     *         empty if the index cannot answer it
+     */
+    public Optional<Page<Long>> search(String keyword, Pageable pageable) {
+        CustomerInvertedIndex current = index;
+        if (current == null || !StringUtils.hasText(keyword)) {
+            return Optional.empty();
+        }
+        if (pageable.isUnpaged()) {
+            CustomerInvertedIndex.SearchPage all = current.search(keyword, 0, Integer.MAX_VALUE);
+            return Optional.of(new PageImpl<>(toList(all.getCustomerIds())));
+        }
+        CustomerInvertedIndex.SearchPage page = current.search(keyword, pageable.getOffset(),
+                pageable.getPageSize());
+        return Optional.of(new PageImpl<>(toList(page.getCustomerIds()), pageable, page.getTotal()));
+    }
+
+    /**
+     * Unpaged form of {@link #search}, for filters that walk the matches in id
+     * order rather than by rank.
+     *
+     * @return the ascending ids of the customers matching {@code keyword}, or
+     *         empty if the index cannot answer it
+     */
+    public Optional<long[]> findIds(String keyword) {
+        CustomerInvertedIndex current = index;
+        if (current == null || !StringUtils.hasText(keyword)) {
+            return Optional.empty();
+        }
+        return Optional.of(current.findIds(keyword));
+    }
+
+    public void put(Customer customer) {
+        write(customer.getId(), target -> target.put(customer));
+    }
+
+    public void putAll(Collection<Customer> customers) {
+        customers.forEach(this::put);
+    }
+
+    public void remove(Long customerId) {
+        write(customerId, target -> target.remove(customerId));
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    private void write(Long customerId, Consumer<CustomerInvertedIndex> change) {
+        CustomerInvertedIndex current;
+        // Under the same lock as the switch to a rebuilt index, so that a write reaches the one in use after it
+        synchronized (writtenWhileLoading) {
+            current = index;
+            if (current != null) {
+                change.accept(current);
+            }
+            CustomerInvertedIndex pending = loading;
+            if (pending != null && pending != current) {
+                writtenWhileLoading.add(customerId);
+                change.accept(pending);
+            }
+        }
+        if (current != null && current.needsCompaction()) {
+            rebuildInBackground();
+        }
+    }
+
+    private void rebuildInBackground() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "search-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Runs on the build thread; package-private for tests
+    void rebuild() {
+        try {
+            long started = System.nanoTime();
+            CustomerInvertedIndex replacement = new CustomerInvertedIndex();
+            loading = replacement;
+            customerJdbcRepository.forEachSearchText(customer -> {
+                // A row read before a concurrent write must not undo it
+                synchronized (writtenWhileLoading) {
+                    if (!writtenWhileLoading.contains(customer.getId())) {
+                        replacement.put(customer);
+                    }
+                }
+            });
+            synchronized (writtenWhileLoading) {
+                index = replacement;
+            }
+            log.info("Search index loaded {} customers in {} ms", replacement.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not build the search index, customer search keeps using substring queries", e);
+        } finally {
+            synchronized (writtenWhileLoading) {
+                loading = null;
+                writtenWhileLoading.clear();
+            }
+            building.set(false);
+        }
+    }
+
+    private static List<Long> toList(long[] customerIds) {
+        List<Long> list = new ArrayList<>(customerIds.length);
+        for (long customerId : customerIds) {
+            list.add(customerId);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,287 @@
+package com.cms.customer.index;
+
+import com.cms.customer.dto.CustomerSuggestionDTO;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process typeahead over customer names and NICs. A customer is found by
+ * a prefix of "first last", of the last name or of the NIC, ignoring case.
+ * <p>
+ * Customers are held in an immutable {@link PrefixTable} built from the
+ * customer table in the background once the application is up, and again
+ * after every import. Creates, updates and deletes go to a small overlay on
+ * top of it, which hides the customers' rows in the table and holds their
+ * current keys; once the overlay grows past
+ * {@code cms.suggest.max-overlay-size} the table is rebuilt and the overlay
+ * starts empty. Writes made by other nodes are only seen after a rebuild.
+ */
+@Component
+public class CustomerSuggestIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerSuggestIndex.class);
+
+    // Separates a key from its customer id in the overlay, sorting before every key character
+    private static final char ID_SEPARATOR = '\u0000';
+
+    @Autowired
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Value("${cms.suggest.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${cms.suggest.max-overlay-size:50000}")
+    private int maxOverlaySize = 50_000;
+
+    // All guarded by lock
+    private PrefixTable table;
+    private Overlay overlay = new Overlay();
+    // Receives writes while a replacement table is being loaded, and becomes its overlay
+    private Overlay pending;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildInBackground();
+    }
+
+    /**
+     * @return up to {@code limit} distinct customers with a key starting with
+     *         {@code prefix}, in key order; empty until the index is loaded
+     */
+    public List<CustomerSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        Map<Long, String> found = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            if (table != null && !normalized.isEmpty()) {
+                collect(normalized, limit, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<CustomerSuggestionDTO> suggestions = new ArrayList<>(found.size());
+        found.forEach((id, display) -> suggestions.add(new CustomerSuggestionDTO(id, display)));
+        return suggestions;
+    }
+
+    public void put(Customer customer) {
+        List<String> keys = keysOf(customer);
+        String display = displayOf(customer);
+        write(overlay -> overlay.put(customer.getId(), display, keys));
+    }
+
+    public void remove(Long customerId) {
+        write(overlay -> overlay.remove(customerId));
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return table != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the table from the customer table on a background thread, e.g.
+     * after an import wrote customers past the write hooks. A request made
+     * while a rebuild runs schedules one more.
+     */
+    public void rebuildInBackground() {
+        if (!enabled) {
+            return;
+        }
+        rebuildRequested.set(true);
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::runRebuilds, "suggest-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Merges the table and overlay keys in order; runs under the read lock
+    private void collect(String prefix, int limit, Map<Long, String> found) {
+        Iterator<Map.Entry<String, Long>> recent = overlay.entries
+                .subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet().iterator();
+        Map.Entry<String, Long> nextRecent = recent.hasNext() ? recent.next() : null;
+        int position = table.lowerBound(prefix);
+        while (found.size() < limit) {
+            boolean inTable = position < table.keyCount() && table.keyAt(position).startsWith(prefix);
+            if (!inTable && nextRecent == null) {
+                break;
+            }
+            if (nextRecent != null && (!inTable || keyOf(nextRecent.getKey()).compareTo(table.keyAt(position)) <= 0)) {
+                found.putIfAbsent(nextRecent.getValue(), overlay.displays.get(nextRecent.getValue()));
+                nextRecent = recent.hasNext() ? recent.next() : null;
+            } else {
+                long id = table.idAt(position);
+                if (!overlay.hidden.contains(id)) {
+                    found.putIfAbsent(id, table.displayAt(position));
+                }
+                position++;
+            }
+        }
+    }
+
+    private void write(Consumer<Overlay> change) {
+        boolean full;
+        lock.writeLock().lock();
+        try {
+            change.accept(overlay);
+            if (pending != null) {
+                change.accept(pending);
+            }
+            full = table != null && overlay.hidden.size() > maxOverlaySize;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (full) {
+            rebuildInBackground();
+        }
+    }
+
+    private void runRebuilds() {
+        do {
+            while (rebuildRequested.getAndSet(false)) {
+                rebuild();
+            }
+            building.set(false);
+            // A request that arrived after the last rebuild but saw it still running
+        } while (rebuildRequested.get() && building.compareAndSet(false, true));
+    }
+
+    // Runs on the build thread; package-private for tests
+    void rebuild() {
+        Overlay next = new Overlay();
+        lock.writeLock().lock();
+        try {
+            pending = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            long started = System.nanoTime();
+            PrefixTable.Builder builder = new PrefixTable.Builder();
+            customerJdbcRepository.forEachSearchText(
+                    customer -> builder.add(customer.getId(), displayOf(customer), keysOf(customer)));
+            PrefixTable replacement = builder.build();
+            lock.writeLock().lock();
+            try {
+                // Customers written during the load may have been read before the write; the overlay hides them
+                table = replacement;
+                overlay = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Suggest index loaded {} customers ({} keys) in {} ms", replacement.size(),
+                    replacement.keyCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not build the suggest index", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    static List<String> keysOf(Customer customer) {
+        List<String> keys = new ArrayList<>(3);
+        String fullName = normalize(join(customer.getFirstName(), customer.getLastName()));
+        for (String key : Arrays.asList(fullName, normalize(customer.getLastName()), normalize(customer.getNic()))) {
+            if (!key.isEmpty() && !keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    static String displayOf(Customer customer) {
+        String name = join(customer.getFirstName(), customer.getLastName());
+        return customer.getNic() != null ? name + " (" + customer.getNic() + ")" : name;
+    }
+
+    // Lower case, single spaces, so "John  DOE" and "john doe" are the same key
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String join(String first, String second) {
+        if (first == null) {
+            return second != null ? second : "";
+        }
+        return second != null ? first + " " + second : first;
+    }
+
+    private static String keyOf(String overlayKey) {
+        return overlayKey.substring(0, overlayKey.lastIndexOf(ID_SEPARATOR));
+    }
+
+    /** Customers written since the table was built. */
+    private static class Overlay {
+
+        // key + separator + id -> id, so equal keys of different customers are kept apart
+        final NavigableMap<String, Long> entries = new TreeMap<>();
+        final Map<Long, String[]> entriesById = new HashMap<>();
+        final Map<Long, String> displays = new HashMap<>();
+        // Every customer written, whose table rows are out of date
+        final Set<Long> hidden = new HashSet<>();
+
+        void put(Long id, String display, List<String> keys) {
+            remove(id);
+            String[] customerEntries = new String[keys.size()];
+            for (int i = 0; i < customerEntries.length; i++) {
+                customerEntries[i] = keys.get(i) + ID_SEPARATOR + id;
+                entries.put(customerEntries[i], id);
+            }
+            entriesById.put(id, customerEntries);
+            displays.put(id, display);
+        }
+
+        void remove(Long id) {
+            hidden.add(id);
+            String[] customerEntries = entriesById.remove(id);
+            if (customerEntries != null) {
+                for (String entry : customerEntries) {
+                    entries.remove(entry);
+                }
+            }
+            displays.remove(id);
+        }
+    }
+}
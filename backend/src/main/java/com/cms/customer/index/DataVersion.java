@@ -0,0 +1,30 @@
+package com.cms.customer.index;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the committed customer writes of this instance: creates, updates,
+ * deletes and import batches. Export watermarks include it, so that a delete,
+ * which moves no {@code updated_at}, still changes the watermark without
+ * counting rows.
+ * <p>
+ * The value starts from the startup time, so a restart never reproduces a
+ * version seen before it. Deletes made by other instances are not counted;
+ * their inserts and updates still move the change times.
+ */
+@Component
+public class DataVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong writes = new AtomicLong();
+
+    public void bump() {
+        writes.incrementAndGet();
+    }
+
+    public String get() {
+        return epoch + "." + writes.get();
+    }
+}
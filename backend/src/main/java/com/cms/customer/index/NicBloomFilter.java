@@ -0,0 +1,127 @@
+package com.cms.customer.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over normalized NICs. Thread-safe without locks: bits are only
+ * ever set, with a CAS on the word that holds them, so concurrent adds and
+ * lookups never block each other.
+ * <p>
+ * NICs are hashed as they would compare in the database's case-insensitive
+ * collation (trimmed, upper-cased) straight from their characters, so a lookup
+ * allocates nothing. Probe positions use double hashing over a power-of-two
+ * bit array.
+ */
+public class NicBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitMask;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong insertions = new AtomicLong();
+
+    /**
+     * @param expectedNics      number of NICs the filter is sized for
+     * @param falsePositiveRate target rate of false positives at that size
+     */
+    public NicBloomFilter(long expectedNics, double falsePositiveRate) {
+        if (expectedNics < 1) {
+            throw new IllegalArgumentException("Expected NIC count must be positive: " + expectedNics);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        // m = -n ln p / (ln 2)^2, rounded up to a power of two so probes are a mask, not a modulo
+        double optimalBits = -expectedNics * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long bits = Math.max(64, Long.highestOneBit((long) Math.ceil(optimalBits) - 1) << 1);
+        this.words = new AtomicLongArray((int) Math.min(1 << 30, bits >>> 6));
+        this.bitMask = ((long) words.length() << 6) - 1;
+        this.hashCount = Math.max(1, (int) Math.round((double) (bitMask + 1) / expectedNics * Math.log(2)));
+        this.capacity = expectedNics;
+    }
+
+    public void add(String nic) {
+        long hash1 = hash(nic);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (hash1 + i * hash2) & bitMask;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * @return {@code false} only if the NIC was certainly never added
+     */
+    public boolean mightContain(String nic) {
+        long hash1 = hash(nic);
+        long hash2 = secondHash(hash1);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (hash1 + i * hash2) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return how many adds the filter has seen, repeats included; once this
+     *         passes {@link #getCapacity()} the false positive rate climbs
+     */
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getBitCount() {
+        return bitMask + 1;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a over the trimmed, upper-cased characters, finished with the murmur3 mixer
+    private static long hash(String nic) {
+        int start = 0;
+        int end = nic.length();
+        while (start < end && Character.isWhitespace(nic.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(nic.charAt(end - 1))) {
+            end--;
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= Character.toUpperCase(nic.charAt(i));
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Odd, so that successive probes cycle through the whole power-of-two table
+    private static long secondHash(long hash1) {
+        return mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
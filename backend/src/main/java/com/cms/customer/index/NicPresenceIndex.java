@@ -0,0 +1,198 @@
+package com.cms.customer.index;
+
+import com.cms.customer.dto.NicIndexStatsDTO;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import com.cms.customer.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-process index of the NICs in use, consulted before NIC uniqueness checks
+ * so that a NIC the filter has never seen skips the database entirely. Only
+ * "maybe present" answers are confirmed with a query.
+ * <p>
+ * The filter is built from the customer table in the background once the
+ * application is up; until then every check goes to the database. Every
+ * customer write adds its NIC. Deleted or changed NICs cannot be removed from a
+ * Bloom filter and simply stay "maybe present". When more NICs have been added
+ * than the filter was sized for, it is rebuilt, again in the background.
+ * <p>
+ * Writes made by other nodes are not seen, so a negative answer is a strong
+ * hint, not a guarantee: the NIC unique constraint still decides, and callers
+ * must treat a constraint violation as a duplicate.
+ */
+@Component
+public class NicPresenceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(NicPresenceIndex.class);
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Value("${cms.nic-index.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${cms.nic-index.expected-nics:1000000}")
+    private long expectedNics = 1_000_000;
+
+    @Value("${cms.nic-index.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    private volatile NicBloomFilter filter;
+    // Receives adds while a replacement filter is being loaded, so none are lost in the swap
+    private volatile NicBloomFilter loading;
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * @return whether a customer with this NIC exists, asking {@code lookup}
+     *         only when the filter cannot rule it out
+     */
+    public boolean exists(String nic, Predicate<String> lookup) {
+        NicBloomFilter current = filter;
+        if (current == null) {
+            bypassed.incrementAndGet();
+            return lookup.test(nic);
+        }
+        if (!current.mightContain(nic)) {
+            misses.incrementAndGet();
+            return false;
+        }
+        boolean found = lookup.test(nic);
+        (found ? hits : falsePositives).incrementAndGet();
+        return found;
+    }
+
+    /**
+     * Batch form of {@link #exists}: NICs the filter rules out are dropped and
+     * the rest are passed to {@code lookup} in one call.
+     *
+     * @return the NICs {@code lookup} reported as stored
+     */
+    public Set<String> findExisting(Collection<String> nics, Function<Collection<String>, Set<String>> lookup) {
+        NicBloomFilter current = filter;
+        if (current == null) {
+            bypassed.addAndGet(nics.size());
+            return lookup.apply(nics);
+        }
+        List<String> candidates = new ArrayList<>();
+        for (String nic : nics) {
+            if (current.mightContain(nic)) {
+                candidates.add(nic);
+            }
+        }
+        misses.addAndGet(nics.size() - candidates.size());
+        if (candidates.isEmpty()) {
+            return new HashSet<>();
+        }
+        Set<String> found = lookup.apply(candidates);
+        hits.addAndGet(found.size());
+        falsePositives.addAndGet(candidates.size() - found.size());
+        return found;
+    }
+
+    /**
+     * @return {@code nic} as the filter and the database collation compare it:
+     *         trimmed and upper-cased
+     */
+    public static String normalize(String nic) {
+        return nic != null ? nic.trim().toUpperCase(Locale.ROOT) : null;
+    }
+
+    public void add(String nic) {
+        NicBloomFilter pending = loading;
+        NicBloomFilter current = filter;
+        if (current != null) {
+            current.add(nic);
+            if (current.getInsertions() > current.getCapacity()) {
+                rebuildInBackground();
+            }
+        }
+        if (pending != null && pending != current) {
+            pending.add(nic);
+        }
+    }
+
+    public void addAll(Collection<String> nics) {
+        nics.forEach(this::add);
+    }
+
+    public NicIndexStatsDTO getStats() {
+        NicIndexStatsDTO stats = new NicIndexStatsDTO();
+        NicBloomFilter current = filter;
+        stats.setReady(current != null);
+        if (current != null) {
+            stats.setCapacity(current.getCapacity());
+            stats.setInsertions(current.getInsertions());
+            stats.setBitCount(current.getBitCount());
+            stats.setHashCount(current.getHashCount());
+        }
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        stats.setFalsePositives(falsePositives.get());
+        stats.setBypassed(bypassed.get());
+        long confirmed = hits.get() + falsePositives.get();
+        stats.setFalsePositiveRate(confirmed > 0 ? (double) falsePositives.get() / confirmed : 0);
+        return stats;
+    }
+
+    private void rebuildInBackground() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(this::rebuild, "nic-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Runs on the build thread; package-private for tests
+    void rebuild() {
+        try {
+            long started = System.nanoTime();
+            NicBloomFilter current = filter;
+            // Size for twice what is stored (or was added since), so the filter has room to grow
+            long size = Math.max(customerRepository.count(), current != null ? current.getInsertions() : 0);
+            NicBloomFilter replacement = new NicBloomFilter(Math.max(expectedNics, size * 2), falsePositiveRate);
+            loading = replacement;
+            customerJdbcRepository.forEachNic(replacement::add);
+            filter = replacement;
+            log.info("NIC index loaded {} NICs into {} bits in {} ms", replacement.getInsertions(),
+                    replacement.getBitCount(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Could not build the NIC index, NIC checks keep using the database", e);
+        } finally {
+            loading = null;
+            building.set(false);
+        }
+    }
+}
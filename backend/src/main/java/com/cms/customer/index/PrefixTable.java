@@ -0,0 +1,115 @@
+package com.cms.customer.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable prefix lookup table: the keys of every customer in one sorted
+ * array, with the customer each belongs to in a parallel array. Equal keys
+ * are stored once and shared, so common names cost one string however many
+ * customers have them. A lookup is a binary search for the first key not
+ * below the prefix, then a walk while the keys still start with it.
+ */
+public class PrefixTable {
+
+    private final String[] keys;
+    private final int[] owners;
+    private final long[] ids;
+    private final String[] displays;
+
+    private PrefixTable(String[] keys, int[] owners, long[] ids, String[] displays) {
+        this.keys = keys;
+        this.owners = owners;
+        this.ids = ids;
+        this.displays = displays;
+    }
+
+    /** @return the number of customers in the table */
+    public int size() {
+        return ids.length;
+    }
+
+    public int keyCount() {
+        return keys.length;
+    }
+
+    /** @return the position of the first key not below {@code prefix}, or {@link #keyCount()} */
+    public int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public String keyAt(int position) {
+        return keys[position];
+    }
+
+    public long idAt(int position) {
+        return ids[owners[position]];
+    }
+
+    public String displayAt(int position) {
+        return displays[owners[position]];
+    }
+
+    /** Collects customers and their keys, then sorts them into a table. */
+    public static class Builder {
+
+        private final Map<String, String> shared = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private long[] ids = new long[1024];
+        private String[] displays = new String[1024];
+        private int count;
+
+        public void add(long id, String display, Collection<String> customerKeys) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                displays = Arrays.copyOf(displays, count * 2);
+            }
+            ids[count] = id;
+            displays[count] = display;
+            for (String key : customerKeys) {
+                entries.add(new Entry(shared.computeIfAbsent(key, k -> k), count));
+            }
+            count++;
+        }
+
+        public PrefixTable build() {
+            // Equal keys in id order, so the same prefix always lists the same customers first
+            long[] customerIds = Arrays.copyOf(ids, count);
+            entries.sort(Comparator.<Entry, String>comparing(entry -> entry.key)
+                    .thenComparingLong(entry -> customerIds[entry.owner]));
+            String[] keys = new String[entries.size()];
+            int[] owners = new int[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = entries.get(i).key;
+                owners[i] = entries.get(i).owner;
+            }
+            return new PrefixTable(keys, owners, customerIds, Arrays.copyOf(displays, count));
+        }
+    }
+
+    private static class Entry {
+
+        final String key;
+        final int owner;
+
+        Entry(String key, int owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+    }
+}
@@ -17,6 +17,9 @@ public interface CityRepository extends JpaRepository<City, Long> {
     @Query("SELECT c FROM City c WHERE c.name = :name AND c.country.id = :countryId")
     Optional<City> findByNameAndCountryId(@Param("name") String name, @Param("countryId") Long countryId);
 
+    @Query("SELECT c FROM City c JOIN FETCH c.country")
+    List<City> findAllWithCountry();
+
     @Query("SELECT c FROM City c JOIN FETCH c.country WHERE c.id = :id")
     Optional<City> findByIdWithCountry(@Param("id") Long id);
 }
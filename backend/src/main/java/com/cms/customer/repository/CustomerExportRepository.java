@@ -0,0 +1,293 @@
+package com.cms.customer.repository;
+
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import com.cms.customer.service.exporter.ExportColumn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read path for exports. Walks the customers table in id order one chunk at a
+ * time (keyset paging, so every chunk is an index range scan however deep the
+ * export is) and loads the primary phone number and address of a whole chunk
+ * with one query each, instead of two lazy loads per customer. Only the
+ * requested columns are selected, and child tables only when asked for.
+ * <p>
+ * Plain JDBC like {@link CustomerJdbcRepository}: nothing enters a persistence
+ * context, so memory use stays at one chunk for the whole export.
+ */
+@Repository
+public class CustomerExportRepository {
+
+    private static final String FROM_CUSTOMERS = " FROM customers WHERE id > ? AND id <= ?";
+    private static final String SELECT_ID_RANGE = "SELECT MIN(id), MAX(id) FROM customers WHERE 1 = 1";
+
+    /*
+     * An unfiltered chunk is a contiguous id range, so its children are found
+     * by range. A filtered chunk may be spread thinly over a wide range, so its
+     * children are looked up by id instead.
+     */
+    private static final String SELECT_PRIMARY_PHONES = "SELECT customer_id, phone_number FROM phone_numbers "
+            + "WHERE is_primary = TRUE AND customer_id ";
+    private static final String SELECT_PRIMARY_ADDRESSES = "SELECT customer_id, address_line1 FROM addresses "
+            + "WHERE is_primary = TRUE AND customer_id ";
+    private static final String CHILD_ORDER = " ORDER BY customer_id, id";
+
+    // Inserts and updates move MAX(updated_at), read from the updated_at index of each table
+    private static final String SELECT_LATEST_CHANGE = "SELECT MAX(updated_at) FROM ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param keywordMatches the ascending ids the search index matched the
+     *                       filter's keyword with, or {@code null} to match it
+     *                       as a substring (see {@link KeywordMatch})
+     * @return the lowest and highest id of the customers matching
+     *         {@code filter}, or {@code null} if none match
+     */
+    public long[] findIdRange(ExportFilterDTO filter, long[] keywordMatches) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT_ID_RANGE + where(filter, keywordMatches == null, args);
+        if (keywordMatches != null) {
+            if (keywordMatches.length == 0) {
+                return null;
+            }
+            sql += " AND id >= ? AND id <= ?";
+            args.add(keywordMatches[0]);
+            args.add(keywordMatches[keywordMatches.length - 1]);
+        }
+        return jdbcTemplate.query(sql, rs -> {
+            rs.next();
+            long minId = rs.getLong(1);
+            return rs.wasNull() ? null : new long[] { minId, rs.getLong(2) };
+        }, args.toArray());
+    }
+
+    /**
+     * Summarises the state of every table an export with these columns reads,
+     * as the latest change per table, and {@code dataVersion}, which catches
+     * the deletes change times cannot. Equal watermarks mean an export would
+     * produce the same rows, so it identifies a cached export. Every lookup is
+     * answered from an {@code updated_at} index; no table is scanned.
+     */
+    public ChangeWatermark findChangeWatermark(List<ExportColumn> columns, String dataVersion) {
+        List<String> tables = new ArrayList<>();
+        tables.add("customers");
+        if (columns.contains(ExportColumn.PRIMARY_PHONE)) {
+            tables.add("phone_numbers");
+        }
+        if (columns.contains(ExportColumn.PRIMARY_ADDRESS)) {
+            tables.add("addresses");
+        }
+
+        StringBuilder value = new StringBuilder("version:").append(dataVersion);
+        long latestChange = 0;
+        for (String table : tables) {
+            Timestamp latest = jdbcTemplate.queryForObject(SELECT_LATEST_CHANGE + table, Timestamp.class);
+            long change = latest != null ? latest.getTime() : 0;
+            value.append(';').append(table).append(':').append(change);
+            latestChange = Math.max(latestChange, change);
+        }
+        return new ChangeWatermark(value.toString(), latestChange);
+    }
+
+    public static class ChangeWatermark {
+
+        private final String value;
+        private final long latestChange;
+
+        public ChangeWatermark(String value, long latestChange) {
+            this.value = value;
+            this.latestChange = latestChange;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @return the time of the most recent change in milliseconds. Change
+         *         times have the column's precision (seconds on MariaDB), so
+         *         two changes in the same second share a watermark.
+         */
+        public long getLatestChange() {
+            return latestChange;
+        }
+    }
+
+    /**
+     * Loads up to {@code limit} customers matching {@code filter} with an id
+     * above {@code afterId} and at most {@code toId}, in id order. Pass the id
+     * of the last customer of one chunk to get the next; an empty list marks
+     * the end of the range. {@code keywordMatches} is as for
+     * {@link #findIdRange}; those ids are read {@code limit} at a time.
+     * <p>
+     * Only the id and the given {@code columns} are read; phone numbers and
+     * addresses are not queried at all unless their column is among them.
+     *
+     * @return detached customers whose phone numbers and addresses hold only
+     *         their primary entry, if any (the first one should several be
+     *         marked primary)
+     */
+    public List<Customer> findChunk(long afterId, long toId, int limit, ExportFilterDTO filter,
+            long[] keywordMatches, List<ExportColumn> columns) {
+        List<Customer> customers = new ArrayList<>(limit);
+        if (keywordMatches == null) {
+            List<Object> args = new ArrayList<>();
+            args.add(afterId);
+            args.add(toId);
+            readCustomers(where(filter, true, args), args, limit, columns, customers);
+        } else {
+            // The other filters may reject a whole slice of the matches, so read on until one has a customer left
+            int position = Arrays.binarySearch(keywordMatches, afterId);
+            int from = position >= 0 ? position + 1 : -position - 1;
+            while (customers.isEmpty() && from < keywordMatches.length && keywordMatches[from] <= toId) {
+                int to = from;
+                while (to < keywordMatches.length && to - from < limit && keywordMatches[to] <= toId) {
+                    to++;
+                }
+                List<Object> args = new ArrayList<>();
+                args.add(afterId);
+                args.add(toId);
+                String where = where(filter, false, args) + " AND id IN ("
+                        + String.join(",", Collections.nCopies(to - from, "?")) + ")";
+                for (int i = from; i < to; i++) {
+                    args.add(keywordMatches[i]);
+                }
+                readCustomers(where, args, limit, columns, customers);
+                from = to;
+            }
+        }
+        if (customers.isEmpty()) {
+            return customers;
+        }
+        Map<Long, Customer> byId = new HashMap<>(customers.size() * 2);
+        customers.forEach(customer -> byId.put(customer.getId(), customer));
+
+        List<Object> childArgs = new ArrayList<>();
+        String childIds;
+        if (isUnfiltered(filter)) {
+            childIds = "BETWEEN ? AND ?";
+            childArgs.add(customers.get(0).getId());
+            childArgs.add(customers.get(customers.size() - 1).getId());
+        } else {
+            childIds = "IN (" + String.join(",", Collections.nCopies(customers.size(), "?")) + ")";
+            childArgs.addAll(byId.keySet());
+        }
+        if (columns.contains(ExportColumn.PRIMARY_PHONE)) {
+            jdbcTemplate.query(SELECT_PRIMARY_PHONES + childIds + CHILD_ORDER, rs -> {
+                Customer customer = byId.get(rs.getLong(1));
+                // Null for a customer inserted into the range after the chunk was read
+                if (customer != null && customer.getPhoneNumbers().isEmpty()) {
+                    PhoneNumber phone = new PhoneNumber();
+                    phone.setPhoneNumber(rs.getString(2));
+                    phone.setIsPrimary(true);
+                    customer.getPhoneNumbers().add(phone);
+                }
+            }, childArgs.toArray());
+        }
+        if (columns.contains(ExportColumn.PRIMARY_ADDRESS)) {
+            jdbcTemplate.query(SELECT_PRIMARY_ADDRESSES + childIds + CHILD_ORDER, rs -> {
+                Customer customer = byId.get(rs.getLong(1));
+                if (customer != null && customer.getAddresses().isEmpty()) {
+                    Address address = new Address();
+                    address.setAddressLine1(rs.getString(2));
+                    address.setIsPrimary(true);
+                    customer.getAddresses().add(address);
+                }
+            }, childArgs.toArray());
+        }
+        return customers;
+    }
+
+    // Appends the customers of one query, in id order
+    private void readCustomers(String where, List<Object> args, int limit, List<ExportColumn> columns,
+            List<Customer> customers) {
+        args.add(limit);
+        jdbcTemplate.query(select(columns) + FROM_CUSTOMERS + where + " ORDER BY id LIMIT ?", rs -> {
+            Customer customer = new Customer();
+            customer.setId(rs.getLong("id"));
+            for (ExportColumn column : columns) {
+                switch (column) {
+                    case FIRST_NAME:
+                        customer.setFirstName(rs.getString("first_name"));
+                        break;
+                    case LAST_NAME:
+                        customer.setLastName(rs.getString("last_name"));
+                        break;
+                    case DATE_OF_BIRTH:
+                        customer.setDateOfBirth(rs.getDate("date_of_birth"));
+                        break;
+                    case NIC:
+                        customer.setNic(rs.getString("nic"));
+                        break;
+                    case EMAIL:
+                        customer.setEmail(rs.getString("email"));
+                        break;
+                    case GENDER:
+                        customer.setGender(rs.getString("gender"));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            customers.add(customer);
+        }, args.toArray());
+    }
+
+    // The id is always read, as the keyset of the next chunk
+    private static String select(List<ExportColumn> columns) {
+        StringBuilder sql = new StringBuilder("SELECT id");
+        for (ExportColumn column : columns) {
+            if (column.getSqlColumn() != null && column != ExportColumn.ID) {
+                sql.append(", ").append(column.getSqlColumn());
+            }
+        }
+        return sql.toString();
+    }
+
+    private static boolean isUnfiltered(ExportFilterDTO filter) {
+        return filter == null
+                || (!StringUtils.hasText(filter.getKeyword()) && filter.getDateOfBirthFrom() == null
+                        && filter.getDateOfBirthTo() == null && filter.getUpdatedSince() == null);
+    }
+
+    // The substring match of the customer search unless the index matched the keyword, and the date range lookup
+    private static String where(ExportFilterDTO filter, boolean matchKeyword, List<Object> args) {
+        if (isUnfiltered(filter)) {
+            return "";
+        }
+        StringBuilder sql = new StringBuilder();
+        if (matchKeyword && StringUtils.hasText(filter.getKeyword())) {
+            sql.append(" AND ").append(KeywordMatch.condition(KeywordMatch.SQL_COLUMNS, "?"));
+            String pattern = KeywordMatch.pattern(filter.getKeyword());
+            args.addAll(Collections.nCopies(KeywordMatch.SQL_COLUMNS.length, pattern));
+        }
+        if (filter.getDateOfBirthFrom() != null) {
+            sql.append(" AND date_of_birth >= ?");
+            args.add(java.sql.Date.valueOf(filter.getDateOfBirthFrom()));
+        }
+        if (filter.getDateOfBirthTo() != null) {
+            sql.append(" AND date_of_birth <= ?");
+            args.add(java.sql.Date.valueOf(filter.getDateOfBirthTo()));
+        }
+        if (filter.getUpdatedSince() != null) {
+            sql.append(" AND updated_at >= ?");
+            args.add(Timestamp.valueOf(filter.getUpdatedSince()));
+        }
+        return sql.toString();
+    }
+}
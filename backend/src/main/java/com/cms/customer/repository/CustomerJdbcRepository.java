@@ -0,0 +1,457 @@
+package com.cms.customer.repository;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import com.cms.customer.id.BlockIdGenerator;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Bulk write path for imports. Inserts and updates customers and their related
+ * records with plain JDBC multi-row statements, bypassing the persistence
+ * context: managed entities would only be dirty-checked and discarded again.
+ * <p>
+ * Ids are drawn from the same block allocators Hibernate uses for each entity,
+ * so no generated keys need to be read back. Statements are issued in
+ * fixed-size groups so the driver and server see at most two distinct
+ * statement shapes per batch.
+ */
+@Repository
+public class CustomerJdbcRepository {
+
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_CUSTOMERS = "INSERT INTO customers "
+            + "(id, first_name, last_name, date_of_birth, nic, email, gender, created_at, updated_at) VALUES ";
+    private static final String INSERT_ADDRESSES = "INSERT INTO addresses "
+            + "(id, customer_id, address_line1, address_line2, city_id, address_type, is_primary, created_at, updated_at) "
+            + "VALUES ";
+    private static final String INSERT_PHONE_NUMBERS = "INSERT INTO phone_numbers "
+            + "(id, customer_id, phone_number, phone_type, is_primary, created_at, updated_at) VALUES ";
+    private static final String INSERT_FAMILY_LINKS = "INSERT INTO customer_family_members "
+            + "(customer_id, family_member_id) VALUES ";
+
+    // Every row adds a CASE arm per column, which the server scans linearly, so updates use smaller groups
+    static final int UPDATE_ROWS_PER_STATEMENT = 100;
+
+    private static final String[] UPDATE_COLUMNS = { "first_name", "last_name", "date_of_birth", "email", "gender" };
+    private static final String FULL_UPDATE_SQL = updateSql(UPDATE_ROWS_PER_STATEMENT);
+
+    private static final String SELECT_BY_NICS = "SELECT id, first_name, last_name, date_of_birth, nic, email, gender "
+            + "FROM customers WHERE nic IN (";
+    private static final String SELECT_IDS_BY_NICS = "SELECT nic, id FROM customers WHERE nic IN (";
+    private static final String SELECT_EXISTING_NICS = "SELECT nic FROM customers WHERE nic IN (";
+
+    /*
+     * NIC lookups pad their IN list to one of these sizes by repeating the last
+     * NIC, which matches nothing new, so each lookup has at most four statement
+     * shapes no matter how many NICs a batch holds, and they stay in the
+     * driver's and server's statement caches.
+     */
+    static final int[] NIC_LOOKUP_SIZES = { 1, 16, 128, 512 };
+
+    // Rows per round trip when scanning every customer, e.g. to build the NIC or search index
+    private static final int SCAN_FETCH_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    private final Map<Class<?>, BlockIdGenerator> idGenerators = new ConcurrentHashMap<>();
+    private final Map<String, String> fullInsertSql = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    private interface RowBinder<T> {
+        /**
+         * Binds one row's values starting at {@code index}.
+         *
+         * @return the index after the last bound parameter
+         */
+        int bind(PreparedStatement ps, int index, T row) throws SQLException;
+    }
+
+    /**
+     * Assigns each customer an id and inserts them. Runs on the connection of
+     * the current transaction.
+     */
+    public void insertCustomers(List<Customer> customers) {
+        assignIds(Customer.class, customers, Customer::setId);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        insertRows(INSERT_CUSTOMERS, 9, customers, (ps, index, customer) -> {
+            ps.setLong(index++, customer.getId());
+            ps.setString(index++, customer.getFirstName());
+            ps.setString(index++, customer.getLastName());
+            setDate(ps, index++, customer.getDateOfBirth());
+            ps.setString(index++, customer.getNic());
+            ps.setString(index++, customer.getEmail());
+            ps.setString(index++, customer.getGender());
+            ps.setTimestamp(index++, now);
+            ps.setTimestamp(index++, now);
+            return index;
+        });
+    }
+
+    /**
+     * Inserts addresses whose customer and city references already carry ids.
+     */
+    public void insertAddresses(List<Address> addresses) {
+        assignIds(Address.class, addresses, Address::setId);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        insertRows(INSERT_ADDRESSES, 9, addresses, (ps, index, address) -> {
+            ps.setLong(index++, address.getId());
+            ps.setLong(index++, address.getCustomer().getId());
+            ps.setString(index++, address.getAddressLine1());
+            ps.setString(index++, address.getAddressLine2());
+            ps.setLong(index++, address.getCity().getId());
+            ps.setString(index++, address.getAddressType());
+            ps.setBoolean(index++, Boolean.TRUE.equals(address.getIsPrimary()));
+            ps.setTimestamp(index++, now);
+            ps.setTimestamp(index++, now);
+            return index;
+        });
+    }
+
+    /**
+     * Inserts phone numbers whose customer reference already carries an id.
+     */
+    public void insertPhoneNumbers(List<PhoneNumber> phoneNumbers) {
+        assignIds(PhoneNumber.class, phoneNumbers, PhoneNumber::setId);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        insertRows(INSERT_PHONE_NUMBERS, 7, phoneNumbers, (ps, index, phone) -> {
+            ps.setLong(index++, phone.getId());
+            ps.setLong(index++, phone.getCustomer().getId());
+            ps.setString(index++, phone.getPhoneNumber());
+            ps.setString(index++, phone.getPhoneType());
+            ps.setBoolean(index++, Boolean.TRUE.equals(phone.getIsPrimary()));
+            ps.setTimestamp(index++, now);
+            ps.setTimestamp(index++, now);
+            return index;
+        });
+    }
+
+    /**
+     * Inserts rows of the family member join table, each a
+     * {@code {customerId, familyMemberId}} pair. Callers add both directions.
+     */
+    public void insertFamilyLinks(List<long[]> links) {
+        insertRows(INSERT_FAMILY_LINKS, 2, links, (ps, index, link) -> {
+            ps.setLong(index++, link[0]);
+            ps.setLong(index++, link[1]);
+            return index;
+        });
+    }
+
+    /**
+     * Loads the scalar columns of the customers with the given NICs in one query,
+     * keyed by NIC. The returned entities are detached snapshots.
+     */
+    public Map<String, Customer> findByNics(Collection<String> nics) {
+        Map<String, Customer> found = new HashMap<>(nics.size() * 2);
+        if (nics.isEmpty()) {
+            return found;
+        }
+
+        queryByNics(SELECT_BY_NICS, nics, rs -> {
+            Customer customer = new Customer();
+            customer.setId(rs.getLong("id"));
+            customer.setFirstName(rs.getString("first_name"));
+            customer.setLastName(rs.getString("last_name"));
+            customer.setDateOfBirth(rs.getDate("date_of_birth"));
+            customer.setNic(rs.getString("nic"));
+            customer.setEmail(rs.getString("email"));
+            customer.setGender(rs.getString("gender"));
+            found.put(customer.getNic(), customer);
+        });
+        return found;
+    }
+
+    /**
+     * @return the ids of the customers with the given NICs, keyed by NIC
+     */
+    public Map<String, Long> findIdsByNics(Collection<String> nics) {
+        Map<String, Long> found = new HashMap<>(nics.size() * 2);
+        queryByNics(SELECT_IDS_BY_NICS, nics, rs -> found.put(rs.getString(1), rs.getLong(2)));
+        return found;
+    }
+
+    /**
+     * @return those of the given NICs that belong to a stored customer
+     */
+    public Set<String> findExistingNics(Collection<String> nics) {
+        Set<String> found = new HashSet<>();
+        queryByNics(SELECT_EXISTING_NICS, nics, rs -> found.add(rs.getString(1)));
+        return found;
+    }
+
+    /**
+     * Streams every stored NIC to {@code consumer} without materializing them.
+     */
+    public void forEachNic(Consumer<String> consumer) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement("SELECT nic FROM customers",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getString(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Streams the searchable fields (id, names, NIC and email) of every
+     * customer to {@code consumer}, as partial customers in id order,
+     * without holding the table in memory.
+     */
+    public void forEachSearchText(Consumer<Customer> consumer) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id, first_name, last_name, nic, email FROM customers ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(SCAN_FETCH_SIZE);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Customer customer = new Customer();
+                        customer.setId(rs.getLong(1));
+                        customer.setFirstName(rs.getString(2));
+                        customer.setLastName(rs.getString(3));
+                        customer.setNic(rs.getString(4));
+                        customer.setEmail(rs.getString(5));
+                        consumer.accept(customer);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private void queryByNics(String selectPrefix, Collection<String> nics, RowCallbackHandler handler) {
+        if (nics.isEmpty()) {
+            return;
+        }
+        String[] values = nics.toArray(new String[0]);
+        int largest = NIC_LOOKUP_SIZES[NIC_LOOKUP_SIZES.length - 1];
+        for (int from = 0; from < values.length; from += largest) {
+            int count = Math.min(largest, values.length - from);
+            int size = paddedLookupSize(count);
+            Object[] args = new Object[size];
+            System.arraycopy(values, from, args, 0, count);
+            Arrays.fill(args, count, size, values[from + count - 1]);
+            jdbcTemplate.query(selectPrefix + placeholders(size) + ")", handler, args);
+        }
+    }
+
+    static int paddedLookupSize(int count) {
+        for (int size : NIC_LOOKUP_SIZES) {
+            if (count <= size) {
+                return size;
+            }
+        }
+        throw new IllegalArgumentException("Too many NICs for one lookup: " + count);
+    }
+
+    /**
+     * @return {@code customerId:addressLine1:cityId} of the stored addresses of
+     *         the given customers, for skipping addresses that already exist
+     */
+    public Set<String> findAddressKeys(Collection<Long> customerIds) {
+        return findKeys("SELECT customer_id, address_line1, city_id FROM addresses WHERE customer_id IN (",
+                customerIds, 3);
+    }
+
+    /**
+     * @return {@code customerId:phoneNumber} of the stored phone numbers of the
+     *         given customers
+     */
+    public Set<String> findPhoneNumberKeys(Collection<Long> customerIds) {
+        return findKeys("SELECT customer_id, phone_number FROM phone_numbers WHERE customer_id IN (",
+                customerIds, 2);
+    }
+
+    /**
+     * @return {@code customerId:familyMemberId} of the stored family links of the
+     *         given customers
+     */
+    public Set<String> findFamilyLinkKeys(Collection<Long> customerIds) {
+        return findKeys("SELECT customer_id, family_member_id FROM customer_family_members WHERE customer_id IN (",
+                customerIds, 2);
+    }
+
+    private Set<String> findKeys(String selectPrefix, Collection<Long> customerIds, int columns) {
+        Set<String> keys = new HashSet<>();
+        if (customerIds.isEmpty()) {
+            return keys;
+        }
+        jdbcTemplate.query(selectPrefix + placeholders(customerIds.size()) + ")", rs -> {
+            StringBuilder key = new StringBuilder(rs.getString(1));
+            for (int i = 2; i <= columns; i++) {
+                key.append(':').append(rs.getString(i));
+            }
+            keys.add(key.toString());
+        }, customerIds.toArray());
+        return keys;
+    }
+
+    /**
+     * Rewrites the scalar columns of existing customers, matched by id, and
+     * touches their {@code updated_at}. Each group of rows is a single
+     * set-based UPDATE rather than one statement per row.
+     */
+    public void updateCustomers(List<Customer> customers) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int from = 0; from < customers.size(); from += UPDATE_ROWS_PER_STATEMENT) {
+            int to = Math.min(from + UPDATE_ROWS_PER_STATEMENT, customers.size());
+            updateGroup(customers.subList(from, to), now);
+        }
+    }
+
+    private void updateGroup(List<Customer> group, Timestamp now) {
+        String sql = group.size() == UPDATE_ROWS_PER_STATEMENT ? FULL_UPDATE_SQL : updateSql(group.size());
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (int column = 0; column < UPDATE_COLUMNS.length; column++) {
+                    for (Customer customer : group) {
+                        ps.setLong(index++, customer.getId());
+                        setUpdateColumn(ps, index++, column, customer);
+                    }
+                }
+                ps.setTimestamp(index++, now);
+                for (Customer customer : group) {
+                    ps.setLong(index++, customer.getId());
+                }
+                ps.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    private <T> void insertRows(String insertPrefix, int columns, List<T> rows, RowBinder<T> binder) {
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            int to = Math.min(from + ROWS_PER_STATEMENT, rows.size());
+            List<T> group = rows.subList(from, to);
+            String sql = group.size() == ROWS_PER_STATEMENT
+                    ? fullInsertSql.computeIfAbsent(insertPrefix, prefix -> insertSql(prefix, columns, ROWS_PER_STATEMENT))
+                    : insertSql(insertPrefix, columns, group.size());
+
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    int index = 1;
+                    for (T row : group) {
+                        index = binder.bind(ps, index, row);
+                    }
+                    ps.executeUpdate();
+                }
+                return null;
+            });
+        }
+    }
+
+    private <T> void assignIds(Class<?> entity, List<T> rows, BiConsumer<T, Long> setId) {
+        BlockIdGenerator ids = idGenerator(entity);
+        for (T row : rows) {
+            setId.accept(row, ids.nextId());
+        }
+    }
+
+    private static void setUpdateColumn(PreparedStatement ps, int index, int column, Customer customer)
+            throws SQLException {
+        switch (column) {
+            case 0:
+                ps.setString(index, customer.getFirstName());
+                break;
+            case 1:
+                ps.setString(index, customer.getLastName());
+                break;
+            case 2:
+                setDate(ps, index, customer.getDateOfBirth());
+                break;
+            case 3:
+                ps.setString(index, customer.getEmail());
+                break;
+            default:
+                ps.setString(index, customer.getGender());
+        }
+    }
+
+    private static void setDate(PreparedStatement ps, int index, Date date) throws SQLException {
+        if (date != null) {
+            ps.setDate(index, new java.sql.Date(date.getTime()));
+        } else {
+            ps.setNull(index, Types.DATE);
+        }
+    }
+
+    private BlockIdGenerator idGenerator(Class<?> entity) {
+        return idGenerators.computeIfAbsent(entity, type -> (BlockIdGenerator) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(type)
+                .getIdentifierGenerator());
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sql.append(i > 0 ? ", ?" : "?");
+        }
+        return sql.toString();
+    }
+
+    private static String insertSql(String insertPrefix, int columns, int rows) {
+        String row = "(" + placeholders(columns) + ")";
+        StringBuilder sql = new StringBuilder(insertPrefix.length() + rows * (row.length() + 2));
+        sql.append(insertPrefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    private static String updateSql(int rows) {
+        StringBuilder sql = new StringBuilder(64 + rows * 24 * UPDATE_COLUMNS.length);
+        sql.append("UPDATE customers SET ");
+        for (String column : UPDATE_COLUMNS) {
+            sql.append(column).append(" = CASE id");
+            for (int i = 0; i < rows; i++) {
+                sql.append(" WHEN ? THEN ?");
+            }
+            sql.append(" END, ");
+        }
+        sql.append("updated_at = ? WHERE id IN (").append(placeholders(rows));
+        return sql.append(')').toString();
+    }
+}
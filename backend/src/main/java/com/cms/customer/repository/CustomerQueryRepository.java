@@ -0,0 +1,234 @@
+package com.cms.customer.repository;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import com.cms.customer.service.query.CustomerCursor;
+import com.cms.customer.service.query.CustomerField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read path for customer listings that return only some fields. Customers
+ * are projected to the requested scalar columns, so a summary page is one
+ * query on the customers table (plus its count) and never touches a child
+ * table. The associations a caller asks for are then loaded for the whole
+ * page with one query each, grouped by customer.
+ * <p>
+ * Projected customers are detached partial copies: only the id and the
+ * requested fields are set, and they must not be saved.
+ */
+@Repository
+public class CustomerQueryRepository {
+
+    private static final String KEYWORD_MATCH = " WHERE " + KeywordMatch.condition(KeywordMatch.JPQL_COLUMNS,
+            ":keyword");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Loads a page of customers having {@code keyword} as a substring (see
+     * {@link KeywordMatch}; every customer if {@code null}) with only the
+     * scalar {@code fields} set.
+     */
+    public Page<Customer> findPage(Set<CustomerField> fields, String keyword, Pageable pageable) {
+        String where = keyword != null ? KEYWORD_MATCH : "";
+        TypedQuery<Tuple> query = entityManager.createQuery(
+                select(fields) + " FROM Customer c" + where + orderBy(pageable.getSort()), Tuple.class);
+        if (keyword != null) {
+            query.setParameter("keyword", KeywordMatch.pattern(keyword));
+        }
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<Customer> customers = query.getResultList().stream()
+                .map(row -> toCustomer(row, fields))
+                .collect(Collectors.toList());
+
+        return PageableExecutionUtils.getPage(customers, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery("SELECT COUNT(c) FROM Customer c" + where, Long.class);
+            if (keyword != null) {
+                count.setParameter("keyword", KeywordMatch.pattern(keyword));
+            }
+            return count.getSingleResult();
+        });
+    }
+
+    /**
+     * Loads up to {@code limit} customers following {@code cursor} in its
+     * order, with the scalar {@code fields} and the cursor's sort key set.
+     * The seek predicate and the order match the {@code (key, id)} indexes,
+     * so this is an index range scan of {@code limit} rows at any depth.
+     */
+    public List<Customer> findAfter(CustomerCursor cursor, Set<CustomerField> fields, int limit) {
+        Set<CustomerField> selected = EnumSet.copyOf(fields);
+        selected.add(cursor.getSortKey());
+        String key = "c." + cursor.getSortKey().getParam();
+        String direction = cursor.isDescending() ? " DESC" : " ASC";
+        String seek = cursor.isDescending() ? " < " : " > ";
+        boolean byId = cursor.getSortKey() == CustomerField.ID;
+
+        StringBuilder jpql = new StringBuilder(select(selected)).append(" FROM Customer c");
+        if (!cursor.isFirst()) {
+            jpql.append(byId ? " WHERE c.id" + seek + ":id"
+                    : " WHERE " + key + seek + ":value OR (" + key + " = :value AND c.id" + seek + ":id)");
+        }
+        jpql.append(" ORDER BY ").append(byId ? "" : key + direction + ", ").append("c.id").append(direction);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class).setMaxResults(limit);
+        if (!cursor.isFirst()) {
+            query.setParameter("id", cursor.getLastId());
+            if (!byId) {
+                query.setParameter("value", cursor.getLastValue());
+            }
+        }
+        return query.getResultList().stream()
+                .map(row -> toCustomer(row, selected))
+                .collect(Collectors.toList());
+    }
+
+    /** Loads one customer with only the scalar {@code fields} set. */
+    public Optional<Customer> findById(Long id, Set<CustomerField> fields) {
+        return entityManager.createQuery(select(fields) + " FROM Customer c WHERE c.id = :id", Tuple.class)
+                .setParameter("id", id)
+                .getResultList().stream()
+                .findFirst()
+                .map(row -> toCustomer(row, fields));
+    }
+
+    /**
+     * Loads the given customers with only the scalar {@code fields} set, in
+     * the order of {@code ids}. Ids that match no customer are left out.
+     */
+    public List<Customer> findByIds(List<Long> ids, Set<CustomerField> fields) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Customer> found = new HashMap<>();
+        entityManager.createQuery(select(fields) + " FROM Customer c WHERE c.id IN :ids", Tuple.class)
+                .setParameter("ids", ids)
+                .getResultList()
+                .forEach(row -> {
+                    Customer customer = toCustomer(row, fields);
+                    found.put(customer.getId(), customer);
+                });
+        return ids.stream().map(found::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /** @return the addresses of the given customers, with their cities, by customer id */
+    public Map<Long, List<Address>> findAddresses(Collection<Long> customerIds) {
+        return groupByCustomer(entityManager.createQuery("SELECT a.customer.id, a FROM Address a"
+                + " JOIN FETCH a.city WHERE a.customer.id IN :ids ORDER BY a.id", Object[].class)
+                .setParameter("ids", customerIds)
+                .getResultList());
+    }
+
+    /** @return the phone numbers of the given customers by customer id */
+    public Map<Long, List<PhoneNumber>> findPhoneNumbers(Collection<Long> customerIds) {
+        return groupByCustomer(entityManager.createQuery("SELECT p.customer.id, p FROM PhoneNumber p"
+                + " WHERE p.customer.id IN :ids ORDER BY p.id", Object[].class)
+                .setParameter("ids", customerIds)
+                .getResultList());
+    }
+
+    /**
+     * @return the family member ids of the given customers by customer id,
+     *         read from the join table alone
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Set<Long>> findFamilyMemberIds(Collection<Long> customerIds) {
+        List<Object[]> links = entityManager.createNativeQuery("SELECT customer_id, family_member_id"
+                + " FROM customer_family_members WHERE customer_id IN :ids")
+                .setParameter("ids", customerIds)
+                .getResultList();
+        Map<Long, Set<Long>> familyMemberIds = new HashMap<>();
+        for (Object[] link : links) {
+            familyMemberIds.computeIfAbsent(((Number) link[0]).longValue(), id -> new HashSet<>())
+                    .add(((Number) link[1]).longValue());
+        }
+        return familyMemberIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Map<Long, List<T>> groupByCustomer(List<Object[]> rows) {
+        Map<Long, List<T>> byCustomer = new HashMap<>();
+        for (Object[] row : rows) {
+            byCustomer.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((T) row[1]);
+        }
+        return byCustomer;
+    }
+
+    private static String select(Set<CustomerField> fields) {
+        StringBuilder jpql = new StringBuilder("SELECT c.id AS id");
+        for (CustomerField field : fields) {
+            if (field.isScalar() && field != CustomerField.ID) {
+                jpql.append(", c.").append(field.getParam()).append(" AS ").append(field.getParam());
+            }
+        }
+        return jpql.toString();
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            // Resolved against the known fields, as the property is spliced into the query
+            orders.add("c." + CustomerField.sortable(order.getProperty()).getParam() + " " + order.getDirection());
+        }
+        return " ORDER BY " + String.join(", ", orders);
+    }
+
+    private static Customer toCustomer(Tuple row, Set<CustomerField> fields) {
+        Customer customer = new Customer();
+        customer.setId(row.get("id", Long.class));
+        for (CustomerField field : fields) {
+            switch (field) {
+                case FIRST_NAME:
+                    customer.setFirstName(row.get("firstName", String.class));
+                    break;
+                case LAST_NAME:
+                    customer.setLastName(row.get("lastName", String.class));
+                    break;
+                case DATE_OF_BIRTH:
+                    customer.setDateOfBirth(row.get("dateOfBirth", Date.class));
+                    break;
+                case NIC:
+                    customer.setNic(row.get("nic", String.class));
+                    break;
+                case EMAIL:
+                    customer.setEmail(row.get("email", String.class));
+                    break;
+                case GENDER:
+                    customer.setGender(row.get("gender", String.class));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return customer;
+    }
+}
@@ -0,0 +1,40 @@
+package com.cms.customer.repository;
+
+import java.util.Locale;
+
+/**
+ * The substring predicate of customer search and of the export keyword
+ * filter, for searches made while the search index is still loading: the
+ * keyword, trimmed, is a case-insensitive substring of the first name, last
+ * name, NIC or email, as the index matches it. JPQL and SQL name the columns differently, so each
+ * caller passes its own; the condition and the pattern are built here once.
+ */
+final class KeywordMatch {
+
+    static final String[] JPQL_COLUMNS = { "c.firstName", "c.lastName", "c.nic", "c.email" };
+    static final String[] SQL_COLUMNS = { "first_name", "last_name", "nic", "email" };
+
+    private KeywordMatch() {
+    }
+
+    /**
+     * @param parameter the placeholder each column is compared with, such as
+     *                  {@code ?} or {@code :keyword}, bound to {@link #pattern}
+     */
+    static String condition(String[] columns, String parameter) {
+        StringBuilder condition = new StringBuilder("(");
+        for (String column : columns) {
+            if (condition.length() > 1) {
+                condition.append(" OR ");
+            }
+            condition.append("LOWER(").append(column).append(") LIKE ").append(parameter).append(" ESCAPE '!'");
+        }
+        return condition.append(')').toString();
+    }
+
+    // % and _ in the keyword are matched literally, as the index matches them
+    static String pattern(String keyword) {
+        String literal = keyword.trim().toLowerCase(Locale.ROOT).replaceAll("[!%_]", "!$0");
+        return "%" + literal + "%";
+    }
+}
@@ -1,12 +1,28 @@
 package com.cms.customer.service;
 
+import com.cms.customer.dto.CursorPageDTO;
 import com.cms.customer.dto.CustomerDTO;
+import com.cms.customer.dto.CustomerSuggestionDTO;
+import com.cms.customer.dto.ExportFilterDTO;
 import com.cms.customer.dto.ImportResultDTO;
+import com.cms.customer.dto.NicIndexStatsDTO;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.importer.ImportProgress;
+import com.cms.customer.service.query.CountMode;
+import com.cms.customer.service.query.CustomerCursor;
+import com.cms.customer.service.query.CustomerField;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
 import java.util.List;
+import java.util.Set;
 
 public interface CustomerService {
 
@@ -14,17 +30,62 @@ public interface CustomerService {
 
     CustomerDTO updateCustomer(Long id, CustomerDTO customerDTO);
 
-    CustomerDTO getCustomerById(Long id);
+    /*
+     * The reads below load only the given fields: scalars are projected from
+     * the customers table, and each requested association costs one query for
+     * the whole page. Fields not asked for are left empty.
+     */
 
-    Page<CustomerDTO> getAllCustomers(Pageable pageable);
+    CustomerDTO getCustomerById(Long id, Set<CustomerField> fields);
 
-    Page<CustomerDTO> searchCustomers(String keyword, Pageable pageable);
+    Page<CustomerDTO> getAllCustomers(Pageable pageable, Set<CustomerField> fields);
+
+    Page<CustomerDTO> searchCustomers(String keyword, Pageable pageable, Set<CustomerField> fields);
+
+    /**
+     * Lists up to {@code size} customers after {@code cursor}, seeking past
+     * the previous page instead of skipping over it. The total is counted as
+     * {@code countMode} asks, if at all.
+     */
+    CursorPageDTO<CustomerDTO> scrollCustomers(CustomerCursor cursor, int size, Set<CustomerField> fields,
+            CountMode countMode);
+
+    /**
+     * Suggests up to {@code limit} customers whose name or NIC starts with
+     * {@code prefix}, from memory without querying the database.
+     */
+    List<CustomerSuggestionDTO> suggestCustomers(String prefix, int limit);
 
     void deleteCustomer(Long id);
 
     ImportResultDTO importCustomersFromExcel(MultipartFile file);
 
-    byte[] exportCustomersToExcel();
+    /**
+     * Imports a file in the given format, resuming after the last committed row
+     * if an earlier run of the same content (identified by {@code fileHash}) was
+     * interrupted. A {@code null} hash disables checkpointing. {@code mode}
+     * decides whether rows with a known NIC are skipped or update the existing
+     * customer. A {@code dryRun} validates every row, including NIC references
+     * of the related sheets, without writing anything. Every row error is
+     * passed to {@code progress}; the result lists only the first ones.
+     */
+    ImportResultDTO importCustomers(ReadableByteChannel input, ImportFormat format, String fileHash,
+            ImportMode mode, boolean dryRun, ImportProgress progress);
+
+    /**
+     * Writes the given columns of the customers matching {@code filter} to
+     * {@code out} while reading them, as one workbook or as a ZIP of
+     * per-partition workbooks, so memory use does not grow with the number of
+     * customers. Id partitions are read concurrently, and only the columns
+     * asked for are read from the database.
+     */
+    void exportCustomersToExcel(ExportFormat format, ExportFilterDTO filter, List<ExportColumn> columns,
+            OutputStream out) throws IOException;
+
+    /**
+     * @return state and hit/miss/false-positive counters of the in-process NIC index
+     */
+    NicIndexStatsDTO getNicIndexStats();
 
     void addFamilyMember(Long customerId, Long familyMemberId);
 
@@ -0,0 +1,33 @@
+package com.cms.customer.service;
+
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.exporter.ExportSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExportSnapshotService {
+
+    /**
+     * Identifies the export these parameters would produce from the current
+     * data, from one aggregate query per table the export reads rather than
+     * from the rows themselves.
+     */
+    ExportSnapshot getSnapshot(ExportFormat format, ExportFilterDTO filter, List<ExportColumn> columns);
+
+    /**
+     * @return the cached file of a cacheable snapshot, if it has been generated
+     */
+    Optional<Path> findFile(ExportSnapshot snapshot);
+
+    /**
+     * @return the cached file of a cacheable snapshot, generated first if
+     *         needed; concurrent callers for the same snapshot share one
+     *         generation
+     */
+    Path getFile(ExportSnapshot snapshot) throws IOException;
+}
@@ -0,0 +1,35 @@
+package com.cms.customer.service;
+
+import com.cms.customer.dto.ImportJobDTO;
+import com.cms.customer.service.importer.ImportMode;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface ImportJobService {
+
+    ImportJobDTO submitImport(MultipartFile file, ImportMode mode, boolean dryRun);
+
+    /**
+     * Imports a file while it is still being received, reading it straight from
+     * the request body instead of from a spooled upload. The job is registered
+     * like any other, so it can be watched and cancelled, but this call only
+     * returns once it has finished.
+     *
+     * @param contentLength the declared body length, or {@code -1} if unknown
+     * @return the finished job
+     */
+    ImportJobDTO importStream(InputStream body, long contentLength, String contentType, String fileName,
+            ImportMode mode, boolean dryRun);
+
+    ImportJobDTO getImportJob(String jobId);
+
+    ImportJobDTO cancelImportJob(String jobId);
+
+    /**
+     * @return the CSV file holding every row error of the job, complete once
+     *         the job has finished
+     */
+    Path getErrorReport(String jobId);
+}
@@ -0,0 +1,39 @@
+package com.cms.customer.service.exporter;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Column widths estimated from the longest value seen in each column. Unlike
+ * {@code autoSizeColumn}, which measures every tracked cell with font metrics,
+ * this only counts characters of the values it is shown, so an export can size
+ * its columns from a sample of rows.
+ */
+public class ColumnWidths {
+
+    // Excel stores widths in 1/256ths of a character and caps them at 255 characters
+    private static final int UNITS_PER_CHAR = 256;
+    private static final int PADDING_CHARS = 2;
+    private static final int MAX_CHARS = 80;
+
+    private final int[] maxChars;
+
+    public ColumnWidths(int columns) {
+        this.maxChars = new int[columns];
+    }
+
+    public void sample(int column, String value) {
+        if (value != null && value.length() > maxChars[column]) {
+            maxChars[column] = value.length();
+        }
+    }
+
+    public int widthOf(int column) {
+        return Math.min(maxChars[column] + PADDING_CHARS, MAX_CHARS) * UNITS_PER_CHAR;
+    }
+
+    public void applyTo(Sheet sheet) {
+        for (int column = 0; column < maxChars.length; column++) {
+            sheet.setColumnWidth(column, widthOf(column));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.cms.customer.service.exporter;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Renders the chosen columns of customers into a streaming (SXSSF) workbook,
+ * one row each, and starts a new sheet whenever the current one reaches
+ * Excel's row limit.
+ * Column widths are sized from the header and the first rows written and
+ * applied to every sheet. A writer is used by one thread at a time.
+ */
+public class CustomerSheetWriter implements Closeable {
+
+    // Excel's row limit, less the header row every sheet starts with
+    static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    // Column widths are sized from the header and this many leading rows instead of every cell
+    private static final int WIDTH_SAMPLE_ROWS = 1000;
+    private static final int ROWS_IN_MEMORY = 100;
+
+    private final SXSSFWorkbook workbook = new SXSSFWorkbook(ROWS_IN_MEMORY);
+    private final String sheetName;
+    private final List<ExportColumn> columns;
+    private final int maxRowsPerSheet;
+    private final ColumnWidths widths;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+    private SXSSFSheet sheet;
+    private int sheetRows;
+    private long rowsWritten;
+
+    public CustomerSheetWriter(String sheetName, List<ExportColumn> columns) {
+        this(sheetName, columns, MAX_ROWS_PER_SHEET);
+    }
+
+    CustomerSheetWriter(String sheetName, List<ExportColumn> columns, int maxRowsPerSheet) {
+        this.sheetName = sheetName;
+        this.columns = columns;
+        this.maxRowsPerSheet = maxRowsPerSheet;
+        this.widths = new ColumnWidths(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            widths.sample(i, columns.get(i).getHeader());
+        }
+        startSheet();
+    }
+
+    public void write(Customer customer) {
+        if (sheetRows == maxRowsPerSheet) {
+            startSheet();
+        }
+        String[] values = values(customer);
+        Row row = sheet.createRow(++sheetRows);
+        for (int i = 0; i < values.length; i++) {
+            if (columns.get(i) == ExportColumn.ID) {
+                row.createCell(i).setCellValue(customer.getId());
+            } else {
+                row.createCell(i).setCellValue(values[i]);
+            }
+        }
+        if (++rowsWritten <= WIDTH_SAMPLE_ROWS) {
+            for (int i = 0; i < values.length; i++) {
+                widths.sample(i, values[i]);
+            }
+        }
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Writes the finished workbook. Rows were flushed to a temp file as they
+     * were created; this copies them into {@code out}.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        // Widths only go into the sheet XML written at the end, so they can be set after the rows
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            widths.applyTo(workbook.getSheetAt(i));
+        }
+        workbook.write(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private void startSheet() {
+        int number = workbook.getNumberOfSheets() + 1;
+        sheet = workbook.createSheet(number == 1 ? sheetName : sheetName + " (" + number + ")");
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < columns.size(); i++) {
+            headerRow.createCell(i).setCellValue(columns.get(i).getHeader());
+        }
+        sheetRows = 0;
+    }
+
+    private String[] values(Customer customer) {
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = value(columns.get(i), customer);
+        }
+        return values;
+    }
+
+    private String value(ExportColumn column, Customer customer) {
+        switch (column) {
+            case ID:
+                return String.valueOf(customer.getId());
+            case FIRST_NAME:
+                return customer.getFirstName();
+            case LAST_NAME:
+                return customer.getLastName();
+            case DATE_OF_BIRTH:
+                Date dob = customer.getDateOfBirth();
+                return dob != null ? dateFormat.format(dob) : "";
+            case NIC:
+                return customer.getNic();
+            case EMAIL:
+                return customer.getEmail() != null ? customer.getEmail() : "";
+            case GENDER:
+                return customer.getGender() != null ? customer.getGender() : "";
+            case PRIMARY_PHONE:
+                Set<PhoneNumber> phoneNumbers = customer.getPhoneNumbers();
+                return phoneNumbers != null
+                        ? phoneNumbers.stream()
+                                .filter(p -> Boolean.TRUE.equals(p.getIsPrimary()))
+                                .findFirst()
+                                .map(PhoneNumber::getPhoneNumber)
+                                .orElse("")
+                        : "";
+            case PRIMARY_ADDRESS:
+                Set<Address> addresses = customer.getAddresses();
+                return addresses != null
+                        ? addresses.stream()
+                                .filter(a -> Boolean.TRUE.equals(a.getIsPrimary()))
+                                .findFirst()
+                                .map(Address::getAddressLine1)
+                                .orElse("")
+                        : "";
+            default:
+                throw new IllegalArgumentException("Unsupported export column " + column);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.cms.customer.service.exporter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A column an export can contain. Each maps to one column of the customers
+ * table, or to the primary entry of a child table, which is only queried when
+ * the column is requested.
+ */
+public enum ExportColumn {
+
+    ID("id", "ID", "id"),
+    FIRST_NAME("firstName", "First Name", "first_name"),
+    LAST_NAME("lastName", "Last Name", "last_name"),
+    DATE_OF_BIRTH("dateOfBirth", "Date of Birth", "date_of_birth"),
+    NIC("nic", "NIC", "nic"),
+    EMAIL("email", "Email", "email"),
+    GENDER("gender", "Gender", "gender"),
+    PRIMARY_PHONE("primaryPhone", "Primary Phone", null),
+    PRIMARY_ADDRESS("primaryAddress", "Primary Address", null);
+
+    public static final List<ExportColumn> ALL = Collections.unmodifiableList(Arrays.asList(values()));
+
+    private final String param;
+    private final String header;
+    private final String sqlColumn;
+
+    ExportColumn(String param, String header, String sqlColumn) {
+        this.param = param;
+        this.header = header;
+        this.sqlColumn = sqlColumn;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the customers table column holding the value, or {@code null}
+     *         for a value read from a child table
+     */
+    public String getSqlColumn() {
+        return sqlColumn;
+    }
+
+    /**
+     * Parses a comma-separated list of column names (such as
+     * {@code nic,email}) in the order given. Blank means every column.
+     */
+    public static List<ExportColumn> fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ALL;
+        }
+        List<ExportColumn> columns = new ArrayList<>();
+        for (String name : value.split(",")) {
+            ExportColumn column = Arrays.stream(values())
+                    .filter(c -> c.param.equalsIgnoreCase(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown export column '" + name.trim()
+                            + "', expected any of " + ALL.stream().map(c -> c.param).collect(Collectors.joining(","))));
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return Collections.unmodifiableList(columns);
+    }
+}
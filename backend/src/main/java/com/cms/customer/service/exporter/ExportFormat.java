@@ -0,0 +1,29 @@
+package com.cms.customer.service.exporter;
+
+import java.util.Locale;
+
+/**
+ * Container of an export.
+ */
+public enum ExportFormat {
+
+    /** One workbook, continued on further sheets past Excel's row limit. */
+    XLSX,
+
+    /**
+     * A ZIP of one workbook per id partition, each rendered on its own thread.
+     * The faster choice for large exports.
+     */
+    ZIP;
+
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return XLSX;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format '" + value + "', expected xlsx or zip");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.cms.customer.service.exporter;
+
+import com.cms.customer.dto.ExportFilterDTO;
+
+import java.util.List;
+
+/**
+ * An export as of a given state of the data: its parameters plus a key that
+ * changes whenever the parameters or the rows they cover may have changed.
+ */
+public class ExportSnapshot {
+
+    private final String key;
+    private final ExportFormat format;
+    private final ExportFilterDTO filter;
+    private final List<ExportColumn> columns;
+    private final boolean cacheable;
+
+    public ExportSnapshot(String key, ExportFormat format, ExportFilterDTO filter, List<ExportColumn> columns,
+            boolean cacheable) {
+        this.key = key;
+        this.format = format;
+        this.filter = filter;
+        this.columns = columns;
+        this.cacheable = cacheable;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /** The key as a strong HTTP entity tag. */
+    public String getETag() {
+        return "\"" + key + "\"";
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public ExportFilterDTO getFilter() {
+        return filter;
+    }
+
+    public List<ExportColumn> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return {@code false} if the data changed too recently for its
+     *         watermark to be trusted, or caching is disabled; the export is
+     *         then generated afresh and not stored
+     */
+    public boolean isCacheable() {
+        return cacheable;
+    }
+}
@@ -0,0 +1,244 @@
+package com.cms.customer.service.exporter;
+
+import com.cms.customer.entity.Customer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Export over a customer id space split into equal-width ranges, each read in
+ * keyset chunks by its own task on a shared, bounded pool.
+ * <p>
+ * As one workbook, the calling thread renders the partitions in id order while
+ * later partitions are already being read; each partition may run at most a
+ * few chunks ahead. As a ZIP, every partition is also rendered to its own
+ * workbook on its pool thread, so rendering scales with the pool too, and the
+ * calling thread only copies the finished parts into the archive in order.
+ */
+public class PartitionedExport {
+
+    public static final String SHEET_NAME = "Customers";
+
+    private static final long OFFER_TIMEOUT_MS = 200;
+    private static final int CHUNKS_AHEAD = 2;
+    private static final List<Customer> END = Collections.emptyList();
+
+    @FunctionalInterface
+    public interface ChunkReader {
+        /**
+         * @return up to {@code limit} customers with {@code afterId < id <= toId},
+         *         in id order; empty once the range is exhausted
+         */
+        List<Customer> read(long afterId, long toId, int limit);
+    }
+
+    private final ExecutorService pool;
+    private final int partitions;
+    private final int chunkSize;
+    private final List<ExportColumn> columns;
+    private final ChunkReader reader;
+
+    public PartitionedExport(ExecutorService pool, int partitions, int chunkSize, List<ExportColumn> columns,
+            ChunkReader reader) {
+        this.pool = pool;
+        this.partitions = Math.max(1, partitions);
+        this.chunkSize = chunkSize;
+        this.columns = columns;
+        this.reader = reader;
+    }
+
+    /**
+     * Splits {@code [minId, maxId]} into at most {@code count} ranges of equal
+     * width, each given as {@code {afterId, toId}}. A {@code null} range (no
+     * customers) yields one empty range, so every export has at least a header.
+     */
+    static List<long[]> split(long[] idRange, int count) {
+        List<long[]> ranges = new ArrayList<>(count);
+        if (idRange == null) {
+            ranges.add(new long[] { 0, 0 });
+            return ranges;
+        }
+        long minId = idRange[0];
+        long maxId = idRange[1];
+        long width = Math.max(1, (maxId - minId + count) / count);
+        for (long afterId = minId - 1; afterId < maxId; afterId += width) {
+            ranges.add(new long[] { afterId, Math.min(afterId + width, maxId) });
+        }
+        return ranges;
+    }
+
+    /**
+     * Writes every customer in {@code idRange} ({@code {minId, maxId}}, or
+     * {@code null} if there are none) as one workbook.
+     */
+    public void writeWorkbook(long[] idRange, OutputStream out) throws IOException {
+        List<Partition> running = new ArrayList<>();
+        try (CustomerSheetWriter writer = new CustomerSheetWriter(SHEET_NAME, columns)) {
+            for (long[] range : split(idRange, partitions)) {
+                Partition partition = new Partition(range);
+                partition.future = pool.submit(partition);
+                running.add(partition);
+            }
+            for (Partition partition : running) {
+                for (List<Customer> chunk; (chunk = partition.take()) != END; ) {
+                    for (Customer customer : chunk) {
+                        writer.write(customer);
+                    }
+                }
+            }
+            writer.writeTo(out);
+        } finally {
+            for (Partition partition : running) {
+                partition.abort();
+            }
+        }
+    }
+
+    /**
+     * Writes every customer in {@code idRange} as a ZIP holding one workbook
+     * per partition, named {@code customers-part-001.xlsx} and so on.
+     */
+    public void writeZip(long[] idRange, OutputStream out) throws IOException {
+        List<Path> parts = new ArrayList<>();
+        List<Future<?>> rendering = new ArrayList<>();
+        try {
+            for (long[] range : split(idRange, partitions)) {
+                Path part = Files.createTempFile("cms-export-part-", ".xlsx");
+                parts.add(part);
+                rendering.add(pool.submit(() -> renderPart(range, part)));
+            }
+
+            ZipOutputStream zip = new ZipOutputStream(out);
+            // The parts are already deflated workbooks; compressing them again would only cost time
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            for (int i = 0; i < parts.size(); i++) {
+                await(rendering.get(i));
+                zip.putNextEntry(new ZipEntry(String.format("customers-part-%03d.xlsx", i + 1)));
+                Files.copy(parts.get(i), zip);
+                zip.closeEntry();
+                Files.deleteIfExists(parts.get(i));
+            }
+            zip.finish();
+        } finally {
+            for (Future<?> future : rendering) {
+                future.cancel(true);
+            }
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private Void renderPart(long[] range, Path part) throws IOException {
+        try (CustomerSheetWriter writer = new CustomerSheetWriter(SHEET_NAME, columns);
+                OutputStream out = Files.newOutputStream(part)) {
+            long afterId = range[0];
+            for (List<Customer> chunk; !(chunk = reader.read(afterId, range[1], chunkSize)).isEmpty(); ) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Export cancelled");
+                }
+                for (Customer customer : chunk) {
+                    writer.write(customer);
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+            writer.writeTo(out);
+        }
+        return null;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    /** Reads one id range and hands its chunks to the rendering thread. */
+    private class Partition implements Runnable {
+
+        private final long[] range;
+        private final BlockingQueue<Future<List<Customer>>> queue = new ArrayBlockingQueue<>(CHUNKS_AHEAD + 1);
+        private volatile boolean aborted;
+        private Future<?> future;
+
+        Partition(long[] range) {
+            this.range = range;
+        }
+
+        @Override
+        public void run() {
+            try {
+                long afterId = range[0];
+                while (!aborted) {
+                    List<Customer> chunk = reader.read(afterId, range[1], chunkSize);
+                    if (chunk.isEmpty()) {
+                        break;
+                    }
+                    put(CompletableFuture.completedFuture(chunk));
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+                put(CompletableFuture.completedFuture(END));
+            } catch (RuntimeException e) {
+                CompletableFuture<List<Customer>> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                put(failed);
+            }
+        }
+
+        List<Customer> take() throws IOException {
+            try {
+                return await(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Export interrupted", e);
+            }
+        }
+
+        void abort() {
+            aborted = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        private void put(Future<List<Customer>> chunk) {
+            try {
+                while (!aborted) {
+                    if (queue.offer(chunk, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aborted = true;
+            }
+        }
+    }
+}
@@ -1,37 +1,83 @@
 package com.cms.customer.service.impl;
 
 import com.cms.customer.dto.AddressDTO;
+import com.cms.customer.dto.CursorPageDTO;
 import com.cms.customer.dto.CustomerDTO;
+import com.cms.customer.dto.CustomerSuggestionDTO;
+import com.cms.customer.dto.ExportFilterDTO;
 import com.cms.customer.dto.ImportResultDTO;
+import com.cms.customer.dto.NicIndexStatsDTO;
 import com.cms.customer.dto.PhoneNumberDTO;
 import com.cms.customer.entity.Address;
 import com.cms.customer.entity.City;
 import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.ImportCheckpoint;
 import com.cms.customer.entity.PhoneNumber;
 import com.cms.customer.exception.DuplicateResourceException;
 import com.cms.customer.exception.ResourceNotFoundException;
+import com.cms.customer.index.CustomerSearchIndex;
+import com.cms.customer.index.CustomerSuggestIndex;
+import com.cms.customer.index.DataVersion;
+import com.cms.customer.index.NicPresenceIndex;
 import com.cms.customer.repository.CityRepository;
+import com.cms.customer.repository.CustomerExportRepository;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import com.cms.customer.repository.CustomerQueryRepository;
 import com.cms.customer.repository.CustomerRepository;
+import com.cms.customer.repository.ImportCheckpointRepository;
 import com.cms.customer.service.CustomerService;
-import com.monitorjbl.xlsx.StreamingReader;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.streaming.SXSSFSheet;
-import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.exporter.PartitionedExport;
+import com.cms.customer.service.importer.ChildRowParser;
+import com.cms.customer.service.importer.CityDictionary;
+import com.cms.customer.service.importer.ContentHash;
+import com.cms.customer.service.importer.CustomerRowParser;
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.FamilyLink;
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.importer.ImportPipeline;
+import com.cms.customer.service.importer.ImportProgress;
+import com.cms.customer.service.importer.ImportSheet;
+import com.cms.customer.service.importer.NicOccurrences;
+import com.cms.customer.service.importer.ParsedChunk;
+import com.cms.customer.service.importer.RawRow;
+import com.cms.customer.service.importer.RowError;
+import com.cms.customer.service.importer.RowSource;
+import com.cms.customer.service.query.CountMode;
+import com.cms.customer.service.query.CustomerCursor;
+import com.cms.customer.service.query.CustomerField;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.SimpleDateFormat;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,6 +87,15 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Autowired
+    private CustomerExportRepository customerExportRepository;
+
+    @Autowired
+    private CustomerQueryRepository customerQueryRepository;
+
     @Autowired
     private CityRepository cityRepository;
 
@@ -50,18 +105,67 @@ public class CustomerServiceImpl implements CustomerService {
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private ImportCheckpointRepository importCheckpointRepository;
+
+    @Autowired
+    private NicPresenceIndex nicIndex;
+
+    @Autowired
+    private CustomerSearchIndex searchIndex;
+
+    @Autowired
+    private CustomerSuggestIndex suggestIndex;
+
+    @Autowired
+    private DataVersion dataVersion;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("importParserPool")
+    private ExecutorService importParserPool;
+
+    @Value("${cms.import.queue-capacity:8}")
+    private int importQueueCapacity = 8;
+
+    @Autowired
+    @Qualifier("exportPartitionPool")
+    private ExecutorService exportPartitionPool;
+
+    // 0 = one partition per core
+    @Value("${cms.export.partitions:0}")
+    private int exportPartitions;
+
+    @Value("${cms.listing.count-cache-ttl:60s}")
+    private Duration countCacheTtl = Duration.ofSeconds(60);
+
+    // {count, counted at}, replaced as a whole so readers never see a torn pair
+    private volatile long[] cachedCustomerCount;
+
+    private final CustomerRowParser rowParser = new CustomerRowParser();
+
     private static final int BATCH_SIZE = 1000;
     private static final int ERROR_LIMIT = 100;
 
+    private static final int EXPORT_CHUNK_SIZE = 1000;
+
     @Override
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
         // Check if NIC already exists
-        if (customerRepository.existsByNic(customerDTO.getNic())) {
+        if (nicIndex.exists(customerDTO.getNic(), customerRepository::existsByNic)) {
             throw new DuplicateResourceException("Customer", "NIC", customerDTO.getNic());
         }
 
         Customer customer = convertToEntity(customerDTO);
         Customer savedCustomer = customerRepository.save(customer);
+        afterCommit(() -> {
+            nicIndex.add(savedCustomer.getNic());
+            searchIndex.put(savedCustomer);
+            suggestIndex.put(savedCustomer);
+            dataVersion.bump();
+        });
         return convertToDTO(savedCustomer);
     }
 
@@ -71,8 +175,8 @@ public class CustomerServiceImpl implements CustomerService {
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
 
         // Check if NIC is being changed and if new NIC already exists
-        if (!existingCustomer.getNic().equals(customerDTO.getNic())
-                && customerRepository.existsByNic(customerDTO.getNic())) {
+        boolean nicChanged = !existingCustomer.getNic().equals(customerDTO.getNic());
+        if (nicChanged && nicIndex.exists(customerDTO.getNic(), customerRepository::existsByNic)) {
             throw new DuplicateResourceException("Customer", "NIC", customerDTO.getNic());
         }
 
@@ -121,26 +225,109 @@ public class CustomerServiceImpl implements CustomerService {
         }
 
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        afterCommit(() -> {
+            if (nicChanged) {
+                nicIndex.add(updatedCustomer.getNic());
+            }
+            searchIndex.put(updatedCustomer);
+            suggestIndex.put(updatedCustomer);
+            dataVersion.bump();
+        });
         return convertToDTO(updatedCustomer);
     }
 
     @Override
-    public CustomerDTO getCustomerById(Long id) {
-        Customer customer = customerRepository.findByIdWithDetails(id)
+    public CustomerDTO getCustomerById(Long id, Set<CustomerField> fields) {
+        Customer customer = customerQueryRepository.findById(id, fields)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer", "id", id));
-        return convertToDTO(customer);
+        return convertToDTOs(Collections.singletonList(customer), fields).get(0);
     }
 
     @Override
-    public Page<CustomerDTO> getAllCustomers(Pageable pageable) {
-        Page<Customer> customers = customerRepository.findAll(pageable);
-        return customers.map(this::convertToDTO);
+    public Page<CustomerDTO> getAllCustomers(Pageable pageable, Set<CustomerField> fields) {
+        Page<Customer> customers = customerQueryRepository.findPage(fields, null, pageable);
+        return new PageImpl<>(convertToDTOs(customers.getContent(), fields), pageable,
+                customers.getTotalElements());
     }
 
     @Override
-    public Page<CustomerDTO> searchCustomers(String keyword, Pageable pageable) {
-        Page<Customer> customers = customerRepository.searchCustomers(keyword, pageable);
-        return customers.map(this::convertToDTO);
+    public Page<CustomerDTO> searchCustomers(String keyword, Pageable pageable, Set<CustomerField> fields) {
+        Optional<Page<Long>> ranked = searchIndex.search(keyword, pageable);
+        if (ranked.isPresent()) {
+            List<Customer> customers = customerQueryRepository.findByIds(ranked.get().getContent(), fields);
+            return new PageImpl<>(convertToDTOs(customers, fields), pageable, ranked.get().getTotalElements());
+        }
+        // Only while the index is still loading, or for blank keywords
+        Page<Customer> customers = customerQueryRepository.findPage(fields, keyword, pageable);
+        return new PageImpl<>(convertToDTOs(customers.getContent(), fields), pageable,
+                customers.getTotalElements());
+    }
+
+    @Override
+    public CursorPageDTO<CustomerDTO> scrollCustomers(CustomerCursor cursor, int size, Set<CustomerField> fields,
+            CountMode countMode) {
+        // One row more than the page tells whether there is a next page without counting
+        List<Customer> customers = customerQueryRepository.findAfter(cursor, fields, size + 1);
+        CursorPageDTO<CustomerDTO> page = new CursorPageDTO<>();
+        if (customers.size() > size) {
+            customers = customers.subList(0, size);
+            page.setNextCursor(cursor.after(customers.get(size - 1)).encode());
+        }
+        page.setContent(convertToDTOs(customers, fields));
+        page.setCountMode(countMode);
+        if (countMode == CountMode.EXACT) {
+            page.setTotalElements(customerRepository.count());
+        } else if (countMode == CountMode.ESTIMATE) {
+            page.setTotalElements(estimateCustomerCount());
+        }
+        return page;
+    }
+
+    /**
+     * A count of at most {@code cms.listing.count-cache-ttl} ago. Requests
+     * racing on an expired count may each refresh it, which is harmless.
+     */
+    private long estimateCustomerCount() {
+        long[] cached = cachedCustomerCount;
+        long now = System.currentTimeMillis();
+        if (cached == null || now - cached[1] > countCacheTtl.toMillis()) {
+            cached = new long[] { customerRepository.count(), now };
+            cachedCustomerCount = cached;
+        }
+        return cached[0];
+    }
+
+    /**
+     * Converts customers projected to some scalar fields, loading each
+     * requested association for all of them with one query. Associations
+     * that were not requested are left empty and never queried.
+     */
+    private List<CustomerDTO> convertToDTOs(List<Customer> customers, Set<CustomerField> fields) {
+        List<Long> ids = customers.stream().map(Customer::getId).collect(Collectors.toList());
+        boolean none = ids.isEmpty();
+        Map<Long, List<Address>> addresses = none || !fields.contains(CustomerField.ADDRESSES)
+                ? Collections.emptyMap() : customerQueryRepository.findAddresses(ids);
+        Map<Long, List<PhoneNumber>> phoneNumbers = none || !fields.contains(CustomerField.PHONE_NUMBERS)
+                ? Collections.emptyMap() : customerQueryRepository.findPhoneNumbers(ids);
+        Map<Long, Set<Long>> familyMemberIds = none || !fields.contains(CustomerField.FAMILY_MEMBER_IDS)
+                ? Collections.emptyMap() : customerQueryRepository.findFamilyMemberIds(ids);
+
+        List<CustomerDTO> dtos = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            CustomerDTO dto = modelMapper.map(customer, CustomerDTO.class);
+            dto.setAddresses(toAddressDTOs(addresses.getOrDefault(customer.getId(), Collections.emptyList())));
+            dto.setPhoneNumbers(toPhoneNumberDTOs(
+                    phoneNumbers.getOrDefault(customer.getId(), Collections.emptyList())));
+            dto.setFamilyMemberIds(new HashSet<>(
+                    familyMemberIds.getOrDefault(customer.getId(), Collections.emptySet())));
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    @Override
+    public List<CustomerSuggestionDTO> suggestCustomers(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
     }
 
     @Override
@@ -149,157 +336,610 @@ public class CustomerServiceImpl implements CustomerService {
             throw new ResourceNotFoundException("Customer", "id", id);
         }
         customerRepository.deleteById(id);
+        afterCommit(() -> {
+            searchIndex.remove(id);
+            suggestIndex.remove(id);
+            dataVersion.bump();
+        });
+    }
+
+    /**
+     * Runs an in-memory index update once the current transaction commits, or
+     * at once outside of one. The indexes are not transactional: updated
+     * inside the transaction, they would keep a write that is rolled back
+     * (such as an import batch the database rejects) and show a write before
+     * other readers can see it.
+     */
+    private void afterCommit(Runnable indexUpdate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            indexUpdate.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexUpdate.run();
+            }
+        });
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ImportResultDTO importCustomersFromExcel(MultipartFile file) {
-        long importedCount = 0;
-        long skippedDuplicates = 0;
-        List<String> errors = new ArrayList<>();
+        try {
+            String fileHash;
+            try (InputStream is = file.getInputStream()) {
+                fileHash = ContentHash.of(is);
+            }
+            try (ReadableByteChannel channel = Channels.newChannel(file.getInputStream())) {
+                return importCustomers(channel, ImportFormat.XLSX, fileHash, ImportMode.INSERT, false,
+                        ImportProgress.NONE);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse Excel file: " + e.getMessage());
+        }
+    }
 
-        try (InputStream is = file.getInputStream();
-                Workbook workbook = StreamingReader.builder()
-                        .rowCacheSize(200)
-                        .bufferSize(4096)
-                        .open(is)) {
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ImportResultDTO importCustomers(ReadableByteChannel input, ImportFormat format, String fileHash,
+            ImportMode mode, boolean dryRun, ImportProgress progress) {
+        ImportCounters counters = new ImportCounters();
+        ImportPipeline pipeline = new ImportPipeline(importParserPool, BATCH_SIZE, importQueueCapacity);
+        // Each batch commits on its own so progress is durable and a cancel keeps finished work
+        TransactionTemplate batchTransaction = new TransactionTemplate(transactionManager);
+
+        // A dry run writes nothing, so it neither resumes from nor leaves a checkpoint
+        ImportCheckpoint checkpoint = fileHash != null && !dryRun ? openCheckpoint(fileHash, mode) : null;
+        if (checkpoint != null && checkpoint.getLastRow() > 0) {
+            counters.imported = checkpoint.getImportedCount();
+            counters.skipped = checkpoint.getSkippedDuplicates();
+            counters.updated = checkpoint.getUpdatedCount();
+            counters.addresses = checkpoint.getImportedAddresses();
+            counters.phoneNumbers = checkpoint.getImportedPhoneNumbers();
+            counters.familyLinks = checkpoint.getImportedFamilyLinks();
+            pipeline.resumeAfter(ImportSheet.valueOf(checkpoint.getLastSheet()), checkpoint.getLastRow());
+            progress.onResume(checkpoint.getLastRow(), checkpoint.getRowsRead(),
+                    checkpoint.getImportedCount(), checkpoint.getSkippedDuplicates());
+        }
 
-            Sheet sheet = workbook.getSheetAt(0);
+        boolean finished;
+        try (RowSource source = format.open(input)) {
+            progress.onStart(source.estimatedRows());
+
+            boolean hasRelatedSheets = source.sheets().size() > 1;
+            // NIC -> id of customers this job has written or looked up, for the related-record sheets
+            Map<String, Long> customerIds = hasRelatedSheets ? new HashMap<>() : null;
+            ChildRowParser childParser = source.sheets().contains(ImportSheet.ADDRESSES)
+                    ? new ChildRowParser(new CityDictionary(cityRepository.findAllWithCountry()))
+                    : new ChildRowParser(new CityDictionary(Collections.emptyList()));
+            Function<List<RawRow>, ParsedChunk> parser = rows -> rows.get(0).getSheet() == ImportSheet.CUSTOMERS
+                    ? rowParser.parse(rows)
+                    : childParser.parse(rows);
+            // First row of every NIC in the file; rows resumed past are not re-read, the database check covers them
+            // Presized from the estimate at about 10 bytes a NIC, under 50 MB even for a 5M-row file
+            NicOccurrences seenNics = new NicOccurrences(source.estimatedRows());
+
+            finished = pipeline.run(source, parser, chunk -> {
+                if (chunk.getSheet() == ImportSheet.CUSTOMERS) {
+                    chunk.rejectRepeatedNics(seenNics);
+                }
 
-            List<Customer> batch = new ArrayList<>();
-            Set<String> batchNics = new HashSet<>();
-            int rowIndex = 0;
+                BatchResult result;
+                if (dryRun) {
+                    result = checkBatch(chunk, mode, customerIds);
+                } else {
+                    result = writeIsolated(batchTransaction, chunk, mode, customerIds, checkpoint);
+                }
+                result.valid = chunk.getRowNums().size() - result.errors.size();
 
-            for (Row row : sheet) {
-                if (rowIndex++ == 0) {
-                    continue; // header
+                List<RowError> errors = new ArrayList<>(chunk.getErrors());
+                errors.addAll(result.errors);
+                for (RowError error : errors) {
+                    addError(counters.errors, error.getMessage());
                 }
+                counters.errorCount += errors.size();
+                counters.add(result);
+                progress.onRowErrors(errors);
+                progress.onBatchWritten(chunk.getRowsRead(), dryRun ? 0 : result.saved, result.skipped);
+            }, progress::isCancelled);
+
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse import file: " + e.getMessage());
+        }
 
-                try {
-                    Customer customer = parseCustomerFromRow(row);
-                    if (customer.getNic() == null || customer.getNic().isEmpty()) {
-                        addError(errors, row.getRowNum(), "NIC is required");
-                        continue;
-                    }
-
-                    batch.add(customer);
-                    batchNics.add(customer.getNic());
-
-                    if (batch.size() >= BATCH_SIZE) {
-                        BatchResult result = saveBatchIfNew(batch, batchNics);
-                        importedCount += result.saved;
-                        skippedDuplicates += result.skipped;
-                        batch.clear();
-                        batchNics.clear();
-                        entityManager.clear();
-                    }
-                } catch (Exception e) {
-                    addError(errors, row.getRowNum(), e.getMessage());
+        if (finished && checkpoint != null) {
+            checkpoint.setStatus(ImportCheckpoint.COMPLETED);
+            batchTransaction.execute(status -> importCheckpointRepository.save(checkpoint));
+        }
+        // Imports bypass the suggest index's write hooks, so it reloads once they are done
+        if (!dryRun && counters.imported > 0) {
+            suggestIndex.rebuildInBackground();
+        }
+
+        return counters.toResult(mode, dryRun);
+    }
+
+    /**
+     * Writes one chunk like {@link #writeBatch}. If the database rejects it, the
+     * chunk is written in halves, down to single records, so that a record it
+     * refuses becomes a row error instead of failing the import.
+     */
+    private BatchResult writeIsolated(TransactionTemplate batchTransaction, ParsedChunk chunk, ImportMode mode,
+            Map<String, Long> customerIds, ImportCheckpoint checkpoint) {
+        try {
+            try {
+                return writeBatch(batchTransaction, chunk, mode, customerIds, checkpoint, true);
+            } catch (DuplicateKeyException e) {
+                // Another node stored one of the NICs the index ruled out; redo the batch checking every NIC
+                forgetAssignedIds(chunk);
+                return writeBatch(batchTransaction, chunk, mode, customerIds, checkpoint, false);
+            }
+        } catch (DataIntegrityViolationException e) {
+            forgetAssignedIds(chunk);
+            if (chunk.getRowNums().size() > 1) {
+                ParsedChunk[] halves = chunk.split();
+                BatchResult result = writeIsolated(batchTransaction, halves[0], mode, customerIds, checkpoint);
+                result.add(writeIsolated(batchTransaction, halves[1], mode, customerIds, checkpoint));
+                return result;
+            }
+            BatchResult failed = new BatchResult();
+            if (!chunk.getRowNums().isEmpty()) {
+                String nic = chunk.getSheet() == ImportSheet.CUSTOMERS ? chunk.getCustomers().get(0).getNic() : null;
+                failed.errors.add(new RowError(chunk.getSheet(), chunk.getRowNums().get(0), nic != null ? "nic" : null,
+                        nic, "Could not be saved: " + e.getMostSpecificCause().getMessage()));
+            }
+            if (checkpoint != null) {
+                batchTransaction.execute(status -> {
+                    advanceCheckpoint(checkpoint, chunk, failed);
+                    return null;
+                });
+            }
+            return failed;
+        }
+    }
+
+    // Ids the rolled-back insert assigned were never stored; a retry must not mistake them for stored rows
+    private static void forgetAssignedIds(ParsedChunk chunk) {
+        if (chunk.getSheet() == ImportSheet.CUSTOMERS) {
+            chunk.getCustomers().forEach(customer -> customer.setId(null));
+        }
+    }
+
+    /**
+     * Writes one chunk and advances the checkpoint in a transaction of its own.
+     *
+     * @param useNicIndex whether NICs the {@link NicPresenceIndex} rules out may
+     *                    skip the existence query
+     */
+    private BatchResult writeBatch(TransactionTemplate batchTransaction, ParsedChunk chunk, ImportMode mode,
+            Map<String, Long> customerIds, ImportCheckpoint checkpoint, boolean useNicIndex) {
+        return batchTransaction.execute(status -> {
+            BatchResult saved = chunk.getSheet() == ImportSheet.CUSTOMERS
+                    ? saveCustomers(chunk.getCustomers(), mode, customerIds, useNicIndex)
+                    : saveRelatedRecords(chunk, customerIds);
+            if (checkpoint != null) {
+                advanceCheckpoint(checkpoint, chunk, saved);
+            }
+            afterCommit(dataVersion::bump);
+            entityManager.clear();
+            return saved;
+        });
+    }
+
+    // Counts what saveBatchIfNew or upsertBatch would do with the batch, without writing it
+    private void checkCustomers(List<Customer> batch, ImportMode mode, BatchResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> batchNics = batch.stream()
+                .map(Customer::getNic)
+                .collect(Collectors.toSet());
+        if (mode == ImportMode.UPSERT) {
+            Map<String, Customer> found = new HashMap<>();
+            nicIndex.findExisting(batchNics, nics -> {
+                found.putAll(customerJdbcRepository.findByNics(nics));
+                return found.keySet();
+            });
+            Map<String, Customer> existing = byNormalizedNic(found);
+            for (Customer customer : batch) {
+                Customer stored = existing.get(NicPresenceIndex.normalize(customer.getNic()));
+                if (stored != null && sameImportedFields(stored, customer)) {
+                    result.skipped++;
+                } else {
+                    result.saved++;
+                    result.updated += stored != null ? 1 : 0;
+                }
+            }
+        } else {
+            Set<String> existing = normalizeNics(
+                    nicIndex.findExisting(batchNics, customerJdbcRepository::findExistingNics));
+            for (Customer customer : batch) {
+                if (existing.contains(NicPresenceIndex.normalize(customer.getNic()))) {
+                    result.skipped++;
+                } else {
+                    result.saved++;
                 }
             }
+        }
+    }
+
+    /**
+     * Returns the checkpoint to continue from. A file that was already imported
+     * completely starts over, since a deliberate re-run should be re-checked, and
+     * so does a run in a different mode, whose counters would not add up.
+     */
+    private ImportCheckpoint openCheckpoint(String fileHash, ImportMode mode) {
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(fileHash)
+                .filter(existing -> ImportCheckpoint.IN_PROGRESS.equals(existing.getStatus()))
+                .filter(existing -> mode.name().equals(existing.getMode()))
+                .orElseGet(() -> new ImportCheckpoint(fileHash));
+        checkpoint.setMode(mode.name());
+        return checkpoint;
+    }
 
-            if (!batch.isEmpty()) {
-                BatchResult result = saveBatchIfNew(batch, batchNics);
-                importedCount += result.saved;
-                skippedDuplicates += result.skipped;
+    private void advanceCheckpoint(ImportCheckpoint checkpoint, ParsedChunk chunk, BatchResult saved) {
+        if (chunk.getSheet().name().equals(checkpoint.getLastSheet())) {
+            checkpoint.setLastRow(Math.max(checkpoint.getLastRow(), chunk.getLastRowNum()));
+        } else {
+            // Sheets are imported in order, so a chunk from another sheet is from a later one
+            checkpoint.setLastSheet(chunk.getSheet().name());
+            checkpoint.setLastRow(chunk.getLastRowNum());
+        }
+        checkpoint.setRowsRead(checkpoint.getRowsRead() + chunk.getRowsRead());
+        checkpoint.setImportedCount(checkpoint.getImportedCount() + saved.saved);
+        checkpoint.setSkippedDuplicates(checkpoint.getSkippedDuplicates() + saved.skipped);
+        checkpoint.setUpdatedCount(checkpoint.getUpdatedCount() + saved.updated);
+        checkpoint.setImportedAddresses(checkpoint.getImportedAddresses() + saved.addresses);
+        checkpoint.setImportedPhoneNumbers(checkpoint.getImportedPhoneNumbers() + saved.phoneNumbers);
+        checkpoint.setImportedFamilyLinks(checkpoint.getImportedFamilyLinks() + saved.familyLinks);
+        checkpoint.setErrorCount(checkpoint.getErrorCount() + chunk.getErrors().size() + saved.errors.size());
+        checkpoint.setStatus(ImportCheckpoint.IN_PROGRESS);
+        importCheckpointRepository.save(checkpoint);
+    }
+
+    /**
+     * Dry-run counterpart of the batch writers: nothing is written, but every
+     * check of the real import runs. Customer rows have been validated by the
+     * parser like any other; their NICs are looked up as the writers would,
+     * through the NIC index, to count which rows {@code mode} would insert,
+     * update or skip. Related-sheet rows are checked for NICs that are neither
+     * earlier in the file nor stored, with one read per chunk, since those rows
+     * would fail the real import.
+     */
+    private BatchResult checkBatch(ParsedChunk chunk, ImportMode mode, Map<String, Long> customerIds) {
+        BatchResult result = new BatchResult();
+        if (chunk.getSheet() == ImportSheet.CUSTOMERS) {
+            checkCustomers(chunk.getCustomers(), mode, result);
+            if (customerIds != null) {
+                // No id is assigned in a dry run; the key alone marks the NIC as known
+                chunk.getCustomers().forEach(c -> customerIds.put(c.getNic(), 0L));
             }
+            return result;
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to parse Excel file: " + e.getMessage());
+        // The NICs each record references, parallel to the chunk's row numbers
+        List<String[]> references = new ArrayList<>();
+        chunk.getAddresses().forEach(a -> references.add(new String[] { a.getCustomer().getNic() }));
+        chunk.getPhoneNumbers().forEach(p -> references.add(new String[] { p.getCustomer().getNic() }));
+        chunk.getFamilyLinks().forEach(l -> references.add(new String[] { l.getNic(), l.getFamilyMemberNic() }));
+
+        Set<String> unknown = new HashSet<>();
+        for (String[] nics : references) {
+            for (String nic : nics) {
+                if (!customerIds.containsKey(nic)) {
+                    unknown.add(nic);
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            customerIds.putAll(customerJdbcRepository.findIdsByNics(unknown));
         }
 
-        return new ImportResultDTO(importedCount, skippedDuplicates, errors);
+        for (int i = 0; i < references.size(); i++) {
+            for (String nic : references.get(i)) {
+                if (!customerIds.containsKey(nic)) {
+                    result.errors.add(unknownCustomer(chunk, i, nic));
+                    break;
+                }
+            }
+        }
+        return result;
     }
 
-    private BatchResult saveBatchIfNew(List<Customer> batch, Set<String> batchNics) {
-        Set<String> existing = customerRepository.findExistingNics(batchNics);
+    /**
+     * Writes a chunk of the customer sheet and, when related sheets follow,
+     * remembers the ids of the customers written so their rows resolve without
+     * a lookup.
+     */
+    private BatchResult saveCustomers(List<Customer> batch, ImportMode mode, Map<String, Long> customerIds,
+            boolean useNicIndex) {
+        if (batch.isEmpty()) {
+            return new BatchResult();
+        }
+        Set<String> batchNics = batch.stream()
+                .map(Customer::getNic)
+                .collect(Collectors.toSet());
+        BatchResult result = mode == ImportMode.UPSERT
+                ? upsertBatch(batch, batchNics, useNicIndex)
+                : saveBatchIfNew(batch, batchNics, useNicIndex);
+
+        if (customerIds != null) {
+            Map<String, Long> written = new HashMap<>();
+            for (Customer customer : batch) {
+                if (customer.getId() != null) {
+                    written.put(customer.getNic(), customer.getId());
+                }
+            }
+            // Only ids that were committed; a rolled-back batch is written again or reported as failed
+            afterCommit(() -> customerIds.putAll(written));
+        }
+        return result;
+    }
+
+    private BatchResult saveBatchIfNew(List<Customer> batch, Set<String> batchNics, boolean useNicIndex) {
+        Set<String> existing = normalizeNics(useNicIndex
+                ? nicIndex.findExisting(batchNics, customerJdbcRepository::findExistingNics)
+                : customerJdbcRepository.findExistingNics(batchNics));
         List<Customer> toSave = batch.stream()
-                .filter(c -> !existing.contains(c.getNic()))
+                .filter(c -> !existing.contains(NicPresenceIndex.normalize(c.getNic())))
                 .collect(Collectors.toList());
 
         if (!toSave.isEmpty()) {
-            saveCustomerBatch(toSave);
+            customerJdbcRepository.insertCustomers(toSave);
+            afterCommit(() -> {
+                toSave.forEach(c -> nicIndex.add(c.getNic()));
+                searchIndex.putAll(toSave);
+            });
         }
 
-        return new BatchResult(toSave.size(), existing.size());
+        return new BatchResult(toSave.size(), batch.size() - toSave.size(), 0);
     }
 
-    private void addError(List<String> errors, int rowNum, String message) {
-        if (errors.size() < ERROR_LIMIT) {
-            errors.add("Row " + rowNum + ": " + message);
+    /**
+     * Inserts new customers and rewrites existing ones whose imported fields
+     * differ from the stored values. The existing rows of the batch are fetched
+     * with one query; unchanged rows are counted as skipped and not written.
+     */
+    private BatchResult upsertBatch(List<Customer> batch, Set<String> batchNics, boolean useNicIndex) {
+        Map<String, Customer> found = new HashMap<>();
+        if (useNicIndex) {
+            nicIndex.findExisting(batchNics, nics -> {
+                found.putAll(customerJdbcRepository.findByNics(nics));
+                return found.keySet();
+            });
+        } else {
+            found.putAll(customerJdbcRepository.findByNics(batchNics));
+        }
+        Map<String, Customer> existing = byNormalizedNic(found);
+        List<Customer> toInsert = new ArrayList<>();
+        List<Customer> toUpdate = new ArrayList<>();
+        for (Customer customer : batch) {
+            Customer stored = existing.get(NicPresenceIndex.normalize(customer.getNic()));
+            if (stored == null) {
+                toInsert.add(customer);
+                continue;
+            }
+            customer.setId(stored.getId());
+            if (!sameImportedFields(stored, customer)) {
+                toUpdate.add(customer);
+            }
+        }
+
+        if (!toInsert.isEmpty()) {
+            customerJdbcRepository.insertCustomers(toInsert);
+            afterCommit(() -> {
+                toInsert.forEach(c -> nicIndex.add(c.getNic()));
+                searchIndex.putAll(toInsert);
+            });
+        }
+        if (!toUpdate.isEmpty()) {
+            customerJdbcRepository.updateCustomers(toUpdate);
+            afterCommit(() -> searchIndex.putAll(toUpdate));
         }
+
+        long unchanged = batch.size() - toInsert.size() - toUpdate.size();
+        return new BatchResult(toInsert.size() + toUpdate.size(), unchanged, toUpdate.size());
     }
 
-    @Override
-    public byte[] exportCustomersToExcel() {
-        List<Customer> customers = customerRepository.findAll();
-
-        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) { // Keep 100 rows in memory
-            SXSSFSheet sheet = workbook.createSheet("Customers");
-            sheet.trackAllColumnsForAutoSizing();
-
-            // Create header row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = { "ID", "First Name", "Last Name", "Date of Birth", "NIC", "Email", "Gender",
-                    "Primary Phone", "Primary Address" };
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
+    /**
+     * Writes a chunk of one of the related-record sheets. Referenced customers
+     * are resolved through the job's NIC map, falling back to one query for the
+     * NICs not seen yet; records that already exist are skipped, so re-importing
+     * a workbook does not duplicate them.
+     */
+    private BatchResult saveRelatedRecords(ParsedChunk chunk, Map<String, Long> customerIds) {
+        BatchResult result = new BatchResult();
+
+        Set<String> nics = new HashSet<>();
+        chunk.getAddresses().forEach(a -> nics.add(a.getCustomer().getNic()));
+        chunk.getPhoneNumbers().forEach(p -> nics.add(p.getCustomer().getNic()));
+        chunk.getFamilyLinks().forEach(l -> {
+            nics.add(l.getNic());
+            nics.add(l.getFamilyMemberNic());
+        });
+        nics.removeAll(customerIds.keySet());
+        if (!nics.isEmpty()) {
+            customerIds.putAll(customerJdbcRepository.findIdsByNics(nics));
+        }
+
+        switch (chunk.getSheet()) {
+            case ADDRESSES:
+                saveAddresses(chunk, customerIds, result);
+                break;
+            case PHONE_NUMBERS:
+                savePhoneNumbers(chunk, customerIds, result);
+                break;
+            case FAMILY_MEMBERS:
+                saveFamilyLinks(chunk, customerIds, result);
+                break;
+            default:
+                throw new IllegalStateException("Not a related-record sheet: " + chunk.getSheet());
+        }
+        return result;
+    }
+
+    private void saveAddresses(ParsedChunk chunk, Map<String, Long> customerIds, BatchResult result) {
+        List<Address> resolved = resolveCustomers(chunk, chunk.getAddresses(), Address::getCustomer,
+                customerIds, result);
+        Set<String> existing = customerJdbcRepository.findAddressKeys(
+                customerIdsOf(resolved, Address::getCustomer));
+        List<Address> toInsert = resolved.stream()
+                .filter(a -> existing.add(a.getCustomer().getId() + ":" + a.getAddressLine1() + ":"
+                        + a.getCity().getId()))
+                .collect(Collectors.toList());
+        if (!toInsert.isEmpty()) {
+            customerJdbcRepository.insertAddresses(toInsert);
+        }
+        result.addresses = toInsert.size();
+    }
+
+    private void savePhoneNumbers(ParsedChunk chunk, Map<String, Long> customerIds, BatchResult result) {
+        List<PhoneNumber> resolved = resolveCustomers(chunk, chunk.getPhoneNumbers(), PhoneNumber::getCustomer,
+                customerIds, result);
+        Set<String> existing = customerJdbcRepository.findPhoneNumberKeys(
+                customerIdsOf(resolved, PhoneNumber::getCustomer));
+        List<PhoneNumber> toInsert = resolved.stream()
+                .filter(p -> existing.add(p.getCustomer().getId() + ":" + p.getPhoneNumber()))
+                .collect(Collectors.toList());
+        if (!toInsert.isEmpty()) {
+            customerJdbcRepository.insertPhoneNumbers(toInsert);
+        }
+        result.phoneNumbers = toInsert.size();
+    }
+
+    private void saveFamilyLinks(ParsedChunk chunk, Map<String, Long> customerIds, BatchResult result) {
+        List<long[]> pairs = new ArrayList<>();
+        for (int i = 0; i < chunk.getFamilyLinks().size(); i++) {
+            FamilyLink link = chunk.getFamilyLinks().get(i);
+            Long customerId = customerIds.get(link.getNic());
+            Long memberId = customerIds.get(link.getFamilyMemberNic());
+            if (customerId == null || memberId == null) {
+                String missing = customerId == null ? link.getNic() : link.getFamilyMemberNic();
+                result.errors.add(unknownCustomer(chunk, i, missing));
+                continue;
             }
+            pairs.add(new long[] { customerId, memberId });
+        }
 
-            // Create data rows
-            int rowNum = 1;
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-            for (Customer customer : customers) {
-                Row row = sheet.createRow(rowNum++);
-
-                row.createCell(0).setCellValue(customer.getId());
-                row.createCell(1).setCellValue(customer.getFirstName());
-                row.createCell(2).setCellValue(customer.getLastName());
-                Date dob = customer.getDateOfBirth();
-                row.createCell(3).setCellValue(dob != null ? dateFormat.format(dob) : "");
-                row.createCell(4).setCellValue(customer.getNic());
-                row.createCell(5).setCellValue(customer.getEmail() != null ? customer.getEmail() : "");
-                row.createCell(6).setCellValue(customer.getGender() != null ? customer.getGender() : "");
-
-                // Get primary phone number
-                Set<PhoneNumber> phoneNumbers = customer.getPhoneNumbers();
-                String primaryPhone = phoneNumbers != null
-                        ? phoneNumbers.stream()
-                                .filter(p -> Boolean.TRUE.equals(p.getIsPrimary()))
-                                .findFirst()
-                                .map(PhoneNumber::getPhoneNumber)
-                                .orElse("")
-                        : "";
-                row.createCell(7).setCellValue(primaryPhone);
-
-                // Get primary address
-                Set<Address> addresses = customer.getAddresses();
-                String primaryAddress = addresses != null
-                        ? addresses.stream()
-                                .filter(a -> Boolean.TRUE.equals(a.getIsPrimary()))
-                                .findFirst()
-                                .map(Address::getAddressLine1)
-                                .orElse("")
-                        : "";
-                row.createCell(8).setCellValue(primaryAddress);
+        Set<Long> linkedIds = new HashSet<>();
+        pairs.forEach(pair -> {
+            linkedIds.add(pair[0]);
+            linkedIds.add(pair[1]);
+        });
+        Set<String> existing = customerJdbcRepository.findFamilyLinkKeys(linkedIds);
+
+        // Links are stored in both directions, as addFamilyMember does
+        List<long[]> toInsert = new ArrayList<>();
+        for (long[] pair : pairs) {
+            if (existing.add(pair[0] + ":" + pair[1])) {
+                toInsert.add(pair);
+                result.familyLinks++;
             }
+            if (existing.add(pair[1] + ":" + pair[0])) {
+                toInsert.add(new long[] { pair[1], pair[0] });
+            }
+        }
+        if (!toInsert.isEmpty()) {
+            customerJdbcRepository.insertFamilyLinks(toInsert);
+        }
+    }
 
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+    /**
+     * Sets the customer id of each record from the NIC map; records whose NIC
+     * is unknown are dropped and reported against their source row.
+     */
+    private <T> List<T> resolveCustomers(ParsedChunk chunk, List<T> records, Function<T, Customer> customerOf,
+            Map<String, Long> customerIds, BatchResult result) {
+        List<T> resolved = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Customer customer = customerOf.apply(records.get(i));
+            Long id = customerIds.get(customer.getNic());
+            if (id == null) {
+                result.errors.add(unknownCustomer(chunk, i, customer.getNic()));
+                continue;
             }
+            customer.setId(id);
+            resolved.add(records.get(i));
+        }
+        return resolved;
+    }
 
-            // Write to byte array
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
+    private RowError unknownCustomer(ParsedChunk chunk, int record, String nic) {
+        String column = chunk.getSheet() == ImportSheet.FAMILY_MEMBERS
+                && !nic.equals(chunk.getFamilyLinks().get(record).getNic()) ? "familyMemberNic" : "nic";
+        return new RowError(chunk.getSheet(), chunk.getRowNums().get(record), column, nic,
+                "No customer with NIC " + nic);
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to generate Excel file: " + e.getMessage());
+    private <T> Set<Long> customerIdsOf(List<T> records, Function<T, Customer> customerOf) {
+        return records.stream()
+                .map(record -> customerOf.apply(record).getId())
+                .collect(Collectors.toSet());
+    }
+
+    // Stored NICs keyed the way the NIC column's collation compares them, so that case and
+    // surrounding blanks in the file do not turn an existing customer into a new one
+    private static Set<String> normalizeNics(Set<String> nics) {
+        return nics.stream()
+                .map(NicPresenceIndex::normalize)
+                .collect(Collectors.toSet());
+    }
+
+    private static Map<String, Customer> byNormalizedNic(Map<String, Customer> customers) {
+        Map<String, Customer> normalized = new HashMap<>(customers.size() * 2);
+        customers.forEach((nic, customer) -> normalized.put(NicPresenceIndex.normalize(nic), customer));
+        return normalized;
+    }
+
+    private static boolean sameImportedFields(Customer stored, Customer imported) {
+        return Objects.equals(stored.getFirstName(), imported.getFirstName())
+                && Objects.equals(stored.getLastName(), imported.getLastName())
+                && Objects.equals(toLocalDate(stored.getDateOfBirth()), toLocalDate(imported.getDateOfBirth()))
+                && Objects.equals(stored.getEmail(), imported.getEmail())
+                && Objects.equals(stored.getGender(), imported.getGender());
+    }
+
+    // The column is a DATE; compare calendar days, not the time of day a parsed cell may carry
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? new java.sql.Date(date.getTime()).toLocalDate() : null;
+    }
+
+    private void addError(List<String> errors, String error) {
+        if (errors.size() < ERROR_LIMIT) {
+            errors.add(error);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportCustomersToExcel(ExportFormat format, ExportFilterDTO filter, List<ExportColumn> columns,
+            OutputStream out) throws IOException {
+        // Partitions read on pool threads with their own connections, so no transaction is held here
+        int partitions = exportPartitions > 0 ? exportPartitions : Runtime.getRuntime().availableProcessors();
+        // The keyword narrows the export to the customers a search for it finds: the index's matches, or the
+        // substring matches while the index is still loading
+        long[] keywordMatches = filter != null && StringUtils.hasText(filter.getKeyword())
+                ? searchIndex.findIds(filter.getKeyword()).orElse(null)
+                : null;
+        PartitionedExport export = new PartitionedExport(exportPartitionPool, partitions, EXPORT_CHUNK_SIZE, columns,
+                (afterId, toId, limit) -> customerExportRepository.findChunk(afterId, toId, limit, filter,
+                        keywordMatches, columns));
+        // Partitions only span the matching ids, so a narrow filter (such as a recent updatedSince) stays narrow
+        long[] idRange = customerExportRepository.findIdRange(filter, keywordMatches);
+        if (format == ExportFormat.ZIP) {
+            export.writeZip(idRange, out);
+        } else {
+            export.writeWorkbook(idRange, out);
         }
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public NicIndexStatsDTO getNicIndexStats() {
+        return nicIndex.getStats();
+    }
+
     @Override
     public void addFamilyMember(Long customerId, Long familyMemberId) {
         Customer customer = customerRepository.findById(customerId)
@@ -324,55 +964,75 @@ public class CustomerServiceImpl implements CustomerService {
         customerRepository.save(customer);
     }
 
-    private void saveCustomerBatch(List<Customer> customers) {
-        customerRepository.saveAll(customers);
-        customerRepository.flush();
-    }
-
-    private static class BatchResult {
-        final long saved;
-        final long skipped;
+    private static class ImportCounters {
+        long imported;
+        long skipped;
+        long updated;
+        long addresses;
+        long phoneNumbers;
+        long familyLinks;
+        long valid;
+        long errorCount;
+        final List<String> errors = new ArrayList<>();
+
+        void add(BatchResult batch) {
+            valid += batch.valid;
+            imported += batch.saved;
+            skipped += batch.skipped;
+            updated += batch.updated;
+            addresses += batch.addresses;
+            phoneNumbers += batch.phoneNumbers;
+            familyLinks += batch.familyLinks;
+        }
 
-        BatchResult(long saved, long skipped) {
-            this.saved = saved;
-            this.skipped = skipped;
+        ImportResultDTO toResult(ImportMode mode, boolean dryRun) {
+            ImportResultDTO result = new ImportResultDTO();
+            // A dry run counts what it would have inserted and updated, but imported nothing
+            result.setImportedCount(dryRun ? 0 : imported);
+            result.setSkippedDuplicates(skipped);
+            result.setInsertedCount(imported - updated);
+            result.setUpdatedCount(updated);
+            // In upsert mode every existing row that was skipped was found unchanged
+            result.setUnchangedCount(mode == ImportMode.UPSERT ? skipped : 0);
+            result.setImportedAddresses(addresses);
+            result.setImportedPhoneNumbers(phoneNumbers);
+            result.setImportedFamilyLinks(familyLinks);
+            result.setDryRun(dryRun);
+            result.setValidCount(valid);
+            result.setErrorCount(errorCount);
+            result.setErrors(errors);
+            return result;
         }
     }
 
-    private Customer parseCustomerFromRow(Row row) {
-        Customer customer = new Customer();
-
-        customer.setFirstName(getCellValueAsString(row.getCell(0)));
-        customer.setLastName(getCellValueAsString(row.getCell(1)));
-
-        // Parse date
-        Cell dobCell = row.getCell(2);
-        if (dobCell != null && dobCell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(dobCell)) {
-            customer.setDateOfBirth(dobCell.getDateCellValue());
+    private static class BatchResult {
+        long saved;
+        long skipped;
+        long updated;
+        long addresses;
+        long phoneNumbers;
+        long familyLinks;
+        long valid;
+        // Rows that parsed but could not be written, e.g. an unknown NIC
+        final List<RowError> errors = new ArrayList<>();
+
+        BatchResult() {
         }
 
-        customer.setNic(getCellValueAsString(row.getCell(3)));
-        customer.setEmail(getCellValueAsString(row.getCell(4)));
-        customer.setGender(getCellValueAsString(row.getCell(5)));
-
-        return customer;
-    }
-
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
+        BatchResult(long saved, long skipped, long updated) {
+            this.saved = saved;
+            this.skipped = skipped;
+            this.updated = updated;
         }
 
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                }
-                return String.valueOf((long) cell.getNumericCellValue());
-            default:
-                return null;
+        void add(BatchResult other) {
+            saved += other.saved;
+            skipped += other.skipped;
+            updated += other.updated;
+            addresses += other.addresses;
+            phoneNumbers += other.phoneNumbers;
+            familyLinks += other.familyLinks;
+            errors.addAll(other.errors);
         }
     }
 
@@ -381,23 +1041,12 @@ public class CustomerServiceImpl implements CustomerService {
 
         // Map addresses
         if (customer.getAddresses() != null) {
-            Set<AddressDTO> addressDTOs = customer.getAddresses().stream()
-                    .map(address -> {
-                        AddressDTO addressDTO = modelMapper.map(address, AddressDTO.class);
-                        addressDTO.setCityId(address.getCity().getId());
-                        addressDTO.setCityName(address.getCity().getName());
-                        return addressDTO;
-                    })
-                    .collect(Collectors.toSet());
-            dto.setAddresses(addressDTOs);
+            dto.setAddresses(toAddressDTOs(customer.getAddresses()));
         }
 
         // Map phone numbers
         if (customer.getPhoneNumbers() != null) {
-            Set<PhoneNumberDTO> phoneDTOs = customer.getPhoneNumbers().stream()
-                    .map(phone -> modelMapper.map(phone, PhoneNumberDTO.class))
-                    .collect(Collectors.toSet());
-            dto.setPhoneNumbers(phoneDTOs);
+            dto.setPhoneNumbers(toPhoneNumberDTOs(customer.getPhoneNumbers()));
         }
 
         // Map family member IDs
@@ -411,6 +1060,23 @@ public class CustomerServiceImpl implements CustomerService {
         return dto;
     }
 
+    private Set<AddressDTO> toAddressDTOs(Collection<Address> addresses) {
+        return addresses.stream()
+                .map(address -> {
+                    AddressDTO addressDTO = modelMapper.map(address, AddressDTO.class);
+                    addressDTO.setCityId(address.getCity().getId());
+                    addressDTO.setCityName(address.getCity().getName());
+                    return addressDTO;
+                })
+                .collect(Collectors.toSet());
+    }
+
+    private Set<PhoneNumberDTO> toPhoneNumberDTOs(Collection<PhoneNumber> phoneNumbers) {
+        return phoneNumbers.stream()
+                .map(phone -> modelMapper.map(phone, PhoneNumberDTO.class))
+                .collect(Collectors.toSet());
+    }
+
     private Customer convertToEntity(CustomerDTO dto) {
         // Manually map basic fields to avoid ModelMapper creating child entities
         // without relations
@@ -0,0 +1,223 @@
+package com.cms.customer.service.impl;
+
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.index.DataVersion;
+import com.cms.customer.repository.CustomerExportRepository;
+import com.cms.customer.repository.CustomerExportRepository.ChangeWatermark;
+import com.cms.customer.service.CustomerService;
+import com.cms.customer.service.ExportSnapshotService;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.exporter.ExportSnapshot;
+import com.cms.customer.service.importer.ContentHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+@Service
+public class ExportSnapshotServiceImpl implements ExportSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportSnapshotServiceImpl.class);
+
+    // Change times are only second-precise, so a change this recent may yet be joined by others sharing its watermark
+    static final long SETTLE_MILLIS = 2000;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerExportRepository customerExportRepository;
+
+    @Autowired
+    private DataVersion dataVersion;
+
+    @Value("${cms.export.cache.enabled:true}")
+    private boolean cacheEnabled = true;
+
+    @Value("${cms.export.cache.dir:}")
+    private String cacheDirProperty = "";
+
+    @Value("${cms.export.cache.max-files:20}")
+    private int maxFiles = 20;
+
+    private Path cacheDir;
+
+    private final Map<String, CompletableFuture<Path>> generating = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void initCacheDir() throws IOException {
+        cacheDir = StringUtils.hasText(cacheDirProperty)
+                ? Paths.get(cacheDirProperty)
+                : Paths.get(System.getProperty("java.io.tmpdir"), "cms-export-cache");
+        Files.createDirectories(cacheDir);
+        // Left behind by generations a shutdown interrupted
+        try (DirectoryStream<Path> partial = Files.newDirectoryStream(cacheDir, "*.tmp")) {
+            for (Path file : partial) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    @Override
+    public ExportSnapshot getSnapshot(ExportFormat format, ExportFilterDTO filter, List<ExportColumn> columns) {
+        ChangeWatermark watermark = customerExportRepository.findChangeWatermark(columns, dataVersion.get());
+
+        MessageDigest digest = ContentHash.newDigest();
+        StringBuilder key = new StringBuilder()
+                .append(format).append('|').append(columns).append('|')
+                .append(filter.getKeyword()).append('|')
+                .append(filter.getDateOfBirthFrom()).append('|')
+                .append(filter.getDateOfBirthTo()).append('|')
+                .append(filter.getUpdatedSince()).append('|')
+                .append(watermark.getValue());
+        digest.update(key.toString().getBytes(StandardCharsets.UTF_8));
+
+        boolean settled = System.currentTimeMillis() - watermark.getLatestChange() >= SETTLE_MILLIS;
+        return new ExportSnapshot(ContentHash.toHex(digest.digest()), format, filter, columns,
+                cacheEnabled && settled);
+    }
+
+    @Override
+    public Optional<Path> findFile(ExportSnapshot snapshot) {
+        Path file = fileOf(snapshot);
+        // Touching it marks it recently used; failing means it is gone, perhaps evicted meanwhile
+        return snapshot.isCacheable() && touch(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Override
+    public Path getFile(ExportSnapshot snapshot) throws IOException {
+        if (!snapshot.isCacheable()) {
+            throw new IllegalStateException("Export snapshot " + snapshot.getKey() + " is not cacheable");
+        }
+        Optional<Path> cached = findFile(snapshot);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = generating.putIfAbsent(snapshot.getKey(), mine);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            Path file = generate(snapshot);
+            mine.complete(file);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            generating.remove(snapshot.getKey());
+        }
+    }
+
+    private Path generate(ExportSnapshot snapshot) throws IOException {
+        Path file = fileOf(snapshot);
+        // Another generation may have finished between the lookup and claiming the key
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        // Written aside and moved into place, so a reader never sees a partial file
+        Path partial = Files.createTempFile(cacheDir, snapshot.getKey() + "-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                customerService.exportCustomersToExcel(snapshot.getFormat(), snapshot.getFilter(),
+                        snapshot.getColumns(), out);
+            }
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            deleteQuietly(partial);
+        }
+        evictLeastRecentlyUsed(file);
+        return file;
+    }
+
+    private void evictLeastRecentlyUsed(Path keep) {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> cached = Files.newDirectoryStream(cacheDir, "*.{xlsx,zip}")) {
+            cached.forEach(files::add);
+        } catch (IOException e) {
+            log.warn("Could not list export cache {}", cacheDir, e);
+            return;
+        }
+        if (files.size() <= maxFiles) {
+            return;
+        }
+        files.sort(Comparator.comparingLong(ExportSnapshotServiceImpl::lastModified));
+        for (Path file : files.subList(0, files.size() - maxFiles)) {
+            if (!file.equals(keep)) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private Path fileOf(ExportSnapshot snapshot) {
+        return cacheDir.resolve(snapshot.getKey() + (snapshot.getFormat() == ExportFormat.ZIP ? ".zip" : ".xlsx"));
+    }
+
+    private static Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static boolean touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete export cache file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.cms.customer.service.impl;
+
+import com.cms.customer.dto.ImportJobDTO;
+import com.cms.customer.dto.ImportResultDTO;
+import com.cms.customer.exception.DuplicateResourceException;
+import com.cms.customer.exception.ImportRejectedException;
+import com.cms.customer.exception.InvalidImportFileException;
+import com.cms.customer.exception.ResourceNotFoundException;
+import com.cms.customer.service.CustomerService;
+import com.cms.customer.service.ImportJobService;
+import com.cms.customer.service.importer.ContentHash;
+import com.cms.customer.service.importer.ImportErrorReport;
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.ImportJob;
+import com.cms.customer.service.importer.ImportMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@Service
+public class ImportJobServiceImpl implements ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobServiceImpl.class);
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    @Qualifier("importJobExecutor")
+    private AsyncTaskExecutor importJobExecutor;
+
+    @Autowired
+    @Qualifier("importStreamExecutor")
+    private AsyncTaskExecutor importStreamExecutor;
+
+    @Value("${cms.import.job-retention-minutes:60}")
+    private long jobRetentionMinutes = 60;
+
+    @Value("${cms.import.stream-max-size:1GB}")
+    private DataSize streamMaxSize = DataSize.ofGigabytes(1);
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public ImportJobDTO submitImport(MultipartFile file, ImportMode mode, boolean dryRun) {
+        evictFinishedJobs();
+
+        // The multipart upload is discarded when the request ends, so keep a private copy;
+        // its hash keys the checkpoint that lets an interrupted import of the same file resume
+        Path spool;
+        String fileHash;
+        try {
+            spool = Files.createTempFile("cms-import-", ".upload");
+            MessageDigest digest = ContentHash.newDigest();
+            try (InputStream is = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(is, spool, StandardCopyOption.REPLACE_EXISTING);
+            }
+            fileHash = ContentHash.toHex(digest.digest());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store uploaded file: " + e.getMessage());
+        }
+
+        ImportFormat format = ImportFormat.detect(file.getContentType(), file.getOriginalFilename());
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename(), format, fileHash, mode,
+                dryRun);
+        synchronized (jobs) {
+            // Dry runs never touch the file's checkpoint, so they may overlap with anything
+            boolean alreadyRunning = !dryRun && jobs.values().stream()
+                    .anyMatch(other -> fileHash.equals(other.getFileHash()) && !other.isDryRun()
+                            && !other.getStatus().isFinished());
+            if (alreadyRunning) {
+                deleteQuietly(spool);
+                throw new DuplicateResourceException("Import job", "file hash", fileHash);
+            }
+            jobs.put(job.getId(), job);
+        }
+        try {
+            job.setFuture(importJobExecutor.submit(() -> {
+                try {
+                    runJob(job, () -> FileChannel.open(spool, StandardOpenOption.READ));
+                } finally {
+                    deleteQuietly(spool);
+                }
+            }));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(spool);
+            throw new ImportRejectedException("Too many imports in progress, please retry later");
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public ImportJobDTO importStream(InputStream body, long contentLength, String contentType, String fileName,
+            ImportMode mode, boolean dryRun) {
+        long maxBytes = streamMaxSize.toBytes();
+        if (contentLength > maxBytes) {
+            throw new InvalidImportFileException("Upload of " + contentLength + " bytes exceeds the limit of "
+                    + maxBytes + " bytes");
+        }
+        evictFinishedJobs();
+
+        // Nothing is spooled, so there is no content hash up front: a streamed import cannot resume
+        ImportFormat format = ImportFormat.detect(contentType, fileName);
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName, format, null, mode, dryRun);
+        jobs.put(job.getId(), job);
+
+        Future<?> future;
+        try {
+            // The request thread only waits; the body is read by the pipeline's reader as it arrives.
+            // The stream pool has no queue, so a request never waits for a worker, only for its own job
+            future = importStreamExecutor.submit(() -> runJob(job,
+                    () -> new BoundedChannel(Channels.newChannel(body), maxBytes)));
+            job.setFuture(future);
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            throw new ImportRejectedException("No import worker is free, please retry later");
+        }
+
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            job.cancel();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public ImportJobDTO getImportJob(String jobId) {
+        return findJob(jobId).toDTO();
+    }
+
+    @Override
+    public ImportJobDTO cancelImportJob(String jobId) {
+        ImportJob job = findJob(jobId);
+        job.cancel();
+        return job.toDTO();
+    }
+
+    @Override
+    public Path getErrorReport(String jobId) {
+        ImportErrorReport report = findJob(jobId).getErrorReport();
+        if (report == null) {
+            throw new ResourceNotFoundException("Error report", "job id", jobId);
+        }
+        return report.getFile();
+    }
+
+    /**
+     * Runs a job on an import thread. A file rejected as a whole fails the job
+     * and is rethrown, so that a caller waiting on the job can report it.
+     */
+    private void runJob(ImportJob job, InputOpener input) {
+        try {
+            if (job.isCancelled()) {
+                job.complete(new ImportResultDTO());
+                return;
+            }
+            job.markRunning();
+            // The report outlives the job run so it can be downloaded; it is deleted on eviction
+            job.setErrorReport(new ImportErrorReport(Files.createTempFile("cms-import-errors-", ".csv")));
+            try (ImportErrorReport report = job.getErrorReport();
+                    ReadableByteChannel channel = input.open()) {
+                job.complete(customerService.importCustomers(channel, job.getFormat(), job.getFileHash(),
+                        job.getMode(), job.isDryRun(), job));
+            }
+        } catch (InvalidImportFileException e) {
+            log.info("Import job {} rejected: {}", job.getId(), e.getMessage());
+            job.fail(e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.warn("Import job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private ImportJob findJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import job", "id", jobId);
+        }
+        return job;
+    }
+
+    private void evictFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - jobRetentionMinutes * 60_000L;
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getStatus().isFinished()
+                    && job.getFinishedAt() != null
+                    && job.getFinishedAt().getTime() < cutoff;
+            if (expired && job.getErrorReport() != null) {
+                deleteQuietly(job.getErrorReport().getFile());
+            }
+            return expired;
+        });
+    }
+
+    @FunctionalInterface
+    private interface InputOpener {
+        ReadableByteChannel open() throws IOException;
+    }
+
+    /** Fails the import once more than {@code maxBytes} have been read from the request body. */
+    private static class BoundedChannel implements ReadableByteChannel {
+
+        private final ReadableByteChannel delegate;
+        private final long maxBytes;
+        private long read;
+
+        BoundedChannel(ReadableByteChannel delegate, long maxBytes) {
+            this.delegate = delegate;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            int n = delegate.read(dst);
+            if (n > 0 && (read += n) > maxBytes) {
+                throw new InvalidImportFileException("Upload exceeds the limit of " + maxBytes + " bytes");
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return delegate.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.cms.customer.service.importer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Base for the text import formats, read straight from a
+ * {@link ReadableByteChannel}. Bytes are pulled through one reusable buffer and
+ * a cell's bytes are collected in a second reusable array, so a cell only
+ * becomes an object once its value is known: empty cells stay {@code null},
+ * ISO dates ({@code yyyy-MM-dd}) become a {@link Date} directly, columns that
+ * are not imported are never decoded, and everything else is decoded as UTF-8
+ * exactly once.
+ */
+abstract class ChannelRowSource implements RowSource {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private int pos;
+    private int limit;
+    private long estimatedRows = -1;
+
+    private byte[] cell = new byte[256];
+    private int cellLength;
+
+    ChannelRowSource(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Extrapolates the row count from the line density of the first buffer when
+     * the channel knows its size. Must be called before anything is consumed.
+     */
+    protected final void estimateRows(int headerLines) throws IOException {
+        if (!(channel instanceof SeekableByteChannel) || !fill()) {
+            return;
+        }
+        long size = ((SeekableByteChannel) channel).size();
+        int lines = 0;
+        for (int i = 0; i < limit; i++) {
+            if (bytes[i] == '\n') {
+                lines++;
+            }
+        }
+        if (limit == size) {
+            estimatedRows = Math.max(0, lines + (bytes[limit - 1] != '\n' ? 1 : 0) - headerLines);
+        } else if (lines > 0) {
+            estimatedRows = Math.max(0, size * lines / limit - headerLines);
+        }
+    }
+
+    @Override
+    public long estimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * @return the next byte as 0..255, or {@code -1} at the end of the channel
+     */
+    protected final int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return bytes[pos++] & 0xFF;
+    }
+
+    protected final int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return bytes[pos] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        pos = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    /** Skips a UTF-8 byte order mark at the current position. */
+    protected final void skipByteOrderMark() throws IOException {
+        if (peek() == 0xEF) {
+            read();
+            read();
+            read();
+        }
+    }
+
+    protected final void clearCell() {
+        cellLength = 0;
+    }
+
+    protected final void appendCell(int b) {
+        if (cellLength == cell.length) {
+            cell = Arrays.copyOf(cell, cellLength * 2);
+        }
+        cell[cellLength++] = (byte) b;
+    }
+
+    /** Appends a code point, e.g. from a JSON {@code \\u} escape, as UTF-8. */
+    protected final void appendCodePoint(int codePoint) {
+        if (codePoint < 0x80) {
+            appendCell(codePoint);
+        } else if (codePoint < 0x800) {
+            appendCell(0xC0 | (codePoint >> 6));
+            appendCell(0x80 | (codePoint & 0x3F));
+        } else if (codePoint < 0x10000) {
+            appendCell(0xE0 | (codePoint >> 12));
+            appendCell(0x80 | ((codePoint >> 6) & 0x3F));
+            appendCell(0x80 | (codePoint & 0x3F));
+        } else {
+            appendCell(0xF0 | (codePoint >> 18));
+            appendCell(0x80 | ((codePoint >> 12) & 0x3F));
+            appendCell(0x80 | ((codePoint >> 6) & 0x3F));
+            appendCell(0x80 | (codePoint & 0x3F));
+        }
+    }
+
+    protected final int matchCell(ColumnMatcher matcher) {
+        return matcher.match(cell, 0, cellLength);
+    }
+
+    protected final String cellText() {
+        return new String(cell, 0, cellLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param trim whether to drop surrounding spaces and tabs, for unquoted cells
+     * @return {@code null}, a {@link Date} or a {@link String}
+     */
+    protected final Object cellValue(boolean trim) {
+        int start = 0;
+        int end = cellLength;
+        if (trim) {
+            while (start < end && (cell[start] == ' ' || cell[start] == '\t')) {
+                start++;
+            }
+            while (end > start && (cell[end - 1] == ' ' || cell[end - 1] == '\t')) {
+                end--;
+            }
+        }
+        if (start == end) {
+            return null;
+        }
+        if (end - start == 10) {
+            Date date = isoDate(start);
+            if (date != null) {
+                return date;
+            }
+        }
+        return new String(cell, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private Date isoDate(int at) {
+        if (cell[at + 4] != '-' || cell[at + 7] != '-') {
+            return null;
+        }
+        int year = digits(at, 4);
+        int month = digits(at + 5, 2);
+        int day = digits(at + 8, 2);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return Date.from(LocalDate.of(year, month, day).atStartOfDay(zone).toInstant());
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private int digits(int at, int count) {
+        int value = 0;
+        for (int i = at; i < at + count; i++) {
+            int digit = cell[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
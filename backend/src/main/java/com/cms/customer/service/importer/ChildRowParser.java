@@ -0,0 +1,160 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.City;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+
+import java.util.List;
+import java.util.Locale;
+
+import static com.cms.customer.service.importer.CustomerRowParser.asString;
+
+/**
+ * Parses rows of the address, phone number and family member sheets. Cities are
+ * resolved here, on the parse workers, through a {@link CityDictionary}; NICs
+ * are left for the writer, which knows which customers have been written.
+ */
+public class ChildRowParser {
+
+    private static final int NIC_LENGTH = 20;
+    private static final int PHONE_LENGTH = 20;
+
+    private final CityDictionary cities;
+
+    public ChildRowParser(CityDictionary cities) {
+        this.cities = cities;
+    }
+
+    public ParsedChunk parse(List<RawRow> rows) {
+        ImportSheet sheet = rows.get(0).getSheet();
+        ParsedChunk chunk = new ParsedChunk(sheet, rows.size());
+        for (RawRow row : rows) {
+            if (row.getError() != null) {
+                chunk.addError(row.getRowNum(), row.getError());
+                continue;
+            }
+            try {
+                String nic = asString(row.get(0));
+                if (nic == null || nic.isEmpty()) {
+                    chunk.addError(row.getRowNum(), "nic", null, "NIC is required");
+                    continue;
+                }
+                if (nic.length() > NIC_LENGTH) {
+                    chunk.addError(row.getRowNum(), "nic", nic, "NIC is longer than " + NIC_LENGTH + " characters");
+                    continue;
+                }
+
+                switch (sheet) {
+                    case ADDRESSES:
+                        chunk.addAddress(row.getRowNum(), parseAddress(row, nic));
+                        break;
+                    case PHONE_NUMBERS:
+                        chunk.addPhoneNumber(row.getRowNum(), parsePhoneNumber(row, nic));
+                        break;
+                    case FAMILY_MEMBERS:
+                        chunk.addFamilyLink(row.getRowNum(), parseFamilyLink(row, nic));
+                        break;
+                    default:
+                        throw new IllegalStateException("Not a related-record sheet: " + sheet);
+                }
+            } catch (InvalidCellException e) {
+                chunk.addError(row.getRowNum(), e.getColumn(), e.getValue(), e.getMessage());
+            } catch (IllegalArgumentException e) {
+                chunk.addError(row.getRowNum(), e.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    private Address parseAddress(RawRow row, String nic) {
+        String line1 = asString(row.get(1));
+        if (line1 == null || line1.trim().isEmpty()) {
+            throw new InvalidCellException("addressLine1", line1, "Address line 1 is required");
+        }
+        String cityName = asString(row.get(3));
+        if (cityName == null || cityName.trim().isEmpty()) {
+            throw new InvalidCellException("city", cityName, "City is required");
+        }
+
+        City city = new City();
+        try {
+            city.setId(cities.resolve(cityName, asString(row.get(4))));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCellException("city", cityName, e.getMessage());
+        }
+
+        Address address = new Address();
+        address.setCustomer(customerRef(nic));
+        address.setAddressLine1(line1);
+        address.setAddressLine2(asString(row.get(2)));
+        address.setCity(city);
+        String type = asString(row.get(5));
+        if (type != null && !type.trim().isEmpty()) {
+            address.setAddressType(type.trim().toUpperCase(Locale.ROOT));
+        }
+        address.setIsPrimary(asBoolean(row.get(6)));
+        return address;
+    }
+
+    private PhoneNumber parsePhoneNumber(RawRow row, String nic) {
+        String number = asString(row.get(1));
+        if (number == null || number.trim().isEmpty()) {
+            throw new InvalidCellException("phoneNumber", number, "Phone number is required");
+        }
+        if (number.trim().length() > PHONE_LENGTH) {
+            throw new InvalidCellException("phoneNumber", number,
+                    "Phone number is longer than " + PHONE_LENGTH + " characters");
+        }
+
+        PhoneNumber phoneNumber = new PhoneNumber();
+        phoneNumber.setCustomer(customerRef(nic));
+        phoneNumber.setPhoneNumber(number.trim());
+        String type = asString(row.get(2));
+        if (type != null && !type.trim().isEmpty()) {
+            phoneNumber.setPhoneType(type.trim().toUpperCase(Locale.ROOT));
+        }
+        phoneNumber.setIsPrimary(asBoolean(row.get(3)));
+        return phoneNumber;
+    }
+
+    private FamilyLink parseFamilyLink(RawRow row, String nic) {
+        String memberNic = asString(row.get(1));
+        if (memberNic == null || memberNic.isEmpty()) {
+            throw new InvalidCellException("familyMemberNic", memberNic, "Family member NIC is required");
+        }
+        if (memberNic.equals(nic)) {
+            throw new InvalidCellException("familyMemberNic", memberNic,
+                    "A customer cannot be their own family member");
+        }
+        return new FamilyLink(nic, memberNic);
+    }
+
+    private Customer customerRef(String nic) {
+        Customer customer = new Customer();
+        customer.setNic(nic);
+        return customer;
+    }
+
+    private boolean asBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Double) {
+            return ((Double) value) != 0;
+        }
+        String text = asString(value);
+        if (text == null) {
+            return false;
+        }
+        switch (text.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "yes":
+            case "y":
+            case "1":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
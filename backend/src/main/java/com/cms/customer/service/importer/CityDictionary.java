@@ -0,0 +1,64 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.entity.City;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Read-only city name lookup for the address sheet, built once per import so
+ * rows resolve their city without a query each. Names match case-insensitively.
+ * Immutable after construction and therefore safe to share between parse workers.
+ */
+public class CityDictionary {
+
+    private static final long AMBIGUOUS = -1L;
+
+    private final Map<String, Long> byNameAndCountry = new HashMap<>();
+    private final Map<String, Long> byName = new HashMap<>();
+
+    /**
+     * @param cities cities with their country loaded
+     */
+    public CityDictionary(List<City> cities) {
+        for (City city : cities) {
+            byNameAndCountry.put(key(city.getName(), city.getCountry().getName()), city.getId());
+            byName.merge(normalize(city.getName()), city.getId(), (first, second) -> AMBIGUOUS);
+        }
+    }
+
+    /**
+     * Resolves a city by name, and by country when given. A name without a
+     * country must be unique across countries.
+     *
+     * @throws IllegalArgumentException if the city is unknown or ambiguous
+     */
+    public Long resolve(String city, String country) {
+        if (country != null && !country.trim().isEmpty()) {
+            Long id = byNameAndCountry.get(key(city, country));
+            if (id == null) {
+                throw new IllegalArgumentException("Unknown city '" + city + "' in country '" + country + "'");
+            }
+            return id;
+        }
+
+        Long id = byName.get(normalize(city));
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown city '" + city + "'");
+        }
+        if (id == AMBIGUOUS) {
+            throw new IllegalArgumentException("City '" + city + "' exists in several countries, country is required");
+        }
+        return id;
+    }
+
+    private static String key(String city, String country) {
+        return normalize(city) + '\u0000' + normalize(country);
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,52 @@
+package com.cms.customer.service.importer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Maps a column name, as raw bytes, to its index in a column layout without
+ * decoding it. Matching ignores ASCII case and the separators {@code _ - space},
+ * so {@code firstName}, {@code first_name} and {@code First Name} are the same.
+ */
+final class ColumnMatcher {
+
+    private final byte[][] names;
+
+    ColumnMatcher(String... columnNames) {
+        names = new byte[columnNames.length][];
+        for (int i = 0; i < columnNames.length; i++) {
+            String normalized = columnNames[i].replaceAll("[_\\- ]", "").toLowerCase(Locale.ROOT);
+            names[i] = normalized.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * @return the column index, or {@code -1} if the name is not part of the layout
+     */
+    int match(byte[] bytes, int offset, int length) {
+        for (int i = 0; i < names.length; i++) {
+            if (matches(names[i], bytes, offset, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] name, byte[] bytes, int offset, int length) {
+        int j = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i];
+            if (b == '_' || b == '-' || b == ' ') {
+                continue;
+            }
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (j == name.length || name[j] != b) {
+                return false;
+            }
+            j++;
+        }
+        return j == name.length;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cms.customer.service.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 content hashes identifying import files across runs.
+ */
+public final class ContentHash {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private ContentHash() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String of(InputStream is) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        for (int n; (n = is.read(buffer)) != -1; ) {
+            digest.update(buffer, 0, n);
+        }
+        return toHex(digest.digest());
+    }
+
+    public static String toHex(byte[] hash) {
+        char[] chars = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,200 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.exception.InvalidImportFileException;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.regex.Pattern;
+
+/**
+ * Reads customer rows from RFC 4180 CSV: comma separated, optionally quoted
+ * fields with {@code ""} as an escaped quote, LF or CRLF line ends. The header
+ * row maps columns by name (see {@link CustomerRowParser#COLUMN_NAMES}). A
+ * header that is recognised but lacks a required column is rejected while the
+ * file is being opened, before any row is read.
+ * <p>
+ * A first line naming none of the columns is taken for a customer of a file
+ * without header, in template order, if it has a date of birth or a NIC where
+ * the template puts them; it is then row 1. Otherwise the file is rejected,
+ * rather than a header of unknown names being imported as a customer or a
+ * first customer being dropped as a header.
+ * <p>
+ * Row numbers count data records from 1, like spreadsheet rows below a header.
+ */
+public class CsvRowSource extends ChannelRowSource {
+
+    private static final ColumnMatcher CUSTOMER_COLUMNS = new ColumnMatcher(CustomerRowParser.COLUMN_NAMES);
+    // firstName, lastName, dateOfBirth and nic: the columns a customer cannot be stored without
+    private static final int REQUIRED_COLUMNS = 4;
+    private static final int DATE_OF_BIRTH_COLUMN = 2;
+    private static final int NIC_COLUMN = 3;
+    // Old (9 digits and V or X) and new (12 digits) NIC formats
+    private static final Pattern NIC = Pattern.compile("\\d{9}[VvXx]|\\d{12}");
+
+    private final int columns = ImportSheet.CUSTOMERS.getColumns();
+    private final int[] columnOf;
+    private int recordNum;
+    private boolean quoted;
+    // The first line of a file without header, returned by the first call to next()
+    private RawRow firstRecord;
+    private boolean headerless;
+
+    public CsvRowSource(ReadableByteChannel channel) throws IOException {
+        super(channel);
+        estimateRows(1);
+        skipByteOrderMark();
+        this.columnOf = readHeader();
+    }
+
+    private int[] readHeader() throws IOException {
+        int[] mapping = new int[16];
+        Object[] values = new Object[columns];
+        int fields = 0;
+        boolean recognised = false;
+        skipBlankLines();
+        if (peek() == -1) {
+            return new int[0];
+        }
+        int end;
+        do {
+            end = readField(true);
+            int column = matchCell(CUSTOMER_COLUMNS);
+            recognised |= column >= 0;
+            if (fields < columns) {
+                values[fields] = cellValue(!quoted);
+            }
+            if (fields == mapping.length) {
+                mapping = Arrays.copyOf(mapping, fields * 2);
+            }
+            mapping[fields++] = column;
+        } while (end == ',');
+
+        if (recognised) {
+            requireColumns(mapping, fields);
+            return Arrays.copyOf(mapping, fields);
+        }
+        if (!looksLikeCustomer(values)) {
+            throw new InvalidImportFileException("CSV header required: the first line names none of the columns "
+                    + String.join(", ", CustomerRowParser.COLUMN_NAMES) + " and is not a customer in that order");
+        }
+        // No header: the first line is the first customer, in the template's column order
+        firstRecord = new RawRow(++recordNum, values);
+        headerless = true;
+        int[] positional = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            positional[i] = i;
+        }
+        return positional;
+    }
+
+    private static boolean looksLikeCustomer(Object[] values) {
+        return values[DATE_OF_BIRTH_COLUMN] instanceof Date
+                || values[NIC_COLUMN] instanceof String && NIC.matcher((String) values[NIC_COLUMN]).matches();
+    }
+
+    // A header that names columns but not the required ones would fail every row, so reject the file
+    private static void requireColumns(int[] mapping, int fields) {
+        StringBuilder missing = new StringBuilder();
+        for (int column = 0; column < REQUIRED_COLUMNS; column++) {
+            boolean found = false;
+            for (int i = 0; i < fields && !found; i++) {
+                found = mapping[i] == column;
+            }
+            if (!found) {
+                missing.append(missing.length() > 0 ? ", " : "").append(CustomerRowParser.COLUMN_NAMES[column]);
+            }
+        }
+        if (missing.length() > 0) {
+            throw new InvalidImportFileException("CSV header is missing required columns: " + missing);
+        }
+    }
+
+    @Override
+    public long estimatedRows() {
+        long estimate = super.estimatedRows();
+        // The estimate left out one line for the header
+        return headerless && estimate >= 0 ? estimate + 1 : estimate;
+    }
+
+    @Override
+    public RawRow next() throws IOException {
+        if (firstRecord != null) {
+            RawRow first = firstRecord;
+            firstRecord = null;
+            return first;
+        }
+        skipBlankLines();
+        if (peek() == -1) {
+            return null;
+        }
+
+        Object[] values = new Object[columns];
+        int field = 0;
+        int end;
+        do {
+            int column = field < columnOf.length ? columnOf[field] : -1;
+            end = readField(column >= 0);
+            if (column >= 0) {
+                values[column] = cellValue(!quoted);
+            }
+            field++;
+        } while (end == ',');
+        return new RawRow(++recordNum, values);
+    }
+
+    private void skipBlankLines() throws IOException {
+        for (int b = peek(); b == '\n' || b == '\r'; b = peek()) {
+            read();
+        }
+    }
+
+    /**
+     * Reads one field, collecting its bytes only if {@code keep} is set.
+     *
+     * @return the byte that ended the field: {@code ','}, {@code '\n'} or {@code -1}
+     */
+    private int readField(boolean keep) throws IOException {
+        clearCell();
+        quoted = false;
+        int b = read();
+        if (b == '"') {
+            quoted = true;
+            while (true) {
+                b = read();
+                if (b == -1) {
+                    throw new IOException("Unterminated quoted field in record " + (recordNum + 1));
+                }
+                if (b == '"') {
+                    if (peek() != '"') {
+                        break;
+                    }
+                    read();
+                }
+                if (keep) {
+                    appendCell(b);
+                }
+            }
+            // Anything between the closing quote and the delimiter is ignored
+            do {
+                b = read();
+            } while (b != ',' && b != '\n' && b != '\r' && b != -1);
+        } else {
+            while (b != ',' && b != '\n' && b != '\r' && b != -1) {
+                if (keep) {
+                    appendCell(b);
+                }
+                b = read();
+            }
+        }
+
+        if (b == '\r') {
+            if (peek() == '\n') {
+                read();
+            }
+            return '\n';
+        }
+        return b;
+    }
+}
@@ -0,0 +1,111 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.entity.Customer;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Turns raw import rows into {@link Customer} entities. Stateless, so a single
+ * instance is shared by all parse workers.
+ * <p>
+ * Column layout: firstName, lastName, dateOfBirth, nic, email, gender.
+ * <p>
+ * Rows are checked against the customers table here, so that a row the table
+ * would reject becomes a row error instead of failing its whole batch:
+ * first and last name, date of birth and NIC are required, and no value may
+ * exceed its column.
+ */
+public class CustomerRowParser {
+
+    public static final int COLUMN_COUNT = 6;
+
+    /** Column names as used by the import template, the CSV header and NDJSON keys. */
+    public static final String[] COLUMN_NAMES = { "firstName", "lastName", "dateOfBirth", "nic", "email", "gender" };
+
+    // Column lengths of the customers table
+    private static final int NAME_LENGTH = 100;
+    private static final int NIC_LENGTH = 20;
+    private static final int EMAIL_LENGTH = 150;
+    private static final int GENDER_LENGTH = 10;
+
+    public ParsedChunk parse(List<RawRow> rows) {
+        ParsedChunk chunk = new ParsedChunk(rows.size());
+        for (RawRow row : rows) {
+            if (row.getError() != null) {
+                chunk.addError(row.getRowNum(), row.getError());
+                continue;
+            }
+            try {
+                chunk.addCustomer(row.getRowNum(), parseCustomer(row));
+            } catch (InvalidCellException e) {
+                chunk.addError(row.getRowNum(), e.getColumn(), e.getValue(), e.getMessage());
+            } catch (Exception e) {
+                chunk.addError(row.getRowNum(), e.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    private Customer parseCustomer(RawRow row) {
+        Customer customer = new Customer();
+
+        customer.setFirstName(required(row.get(0), "firstName", "First name", NAME_LENGTH));
+        customer.setLastName(required(row.get(1), "lastName", "Last name", NAME_LENGTH));
+        customer.setDateOfBirth(asDate(row.get(2)));
+        customer.setNic(required(row.get(3), "nic", "NIC", NIC_LENGTH));
+        customer.setEmail(optional(row.get(4), "email", "Email", EMAIL_LENGTH));
+        customer.setGender(optional(row.get(5), "gender", "Gender", GENDER_LENGTH));
+
+        return customer;
+    }
+
+    private static String required(Object cell, String column, String label, int maxLength) {
+        String value = asString(cell);
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidCellException(column, value, label + " is required");
+        }
+        return checkLength(value, column, label, maxLength);
+    }
+
+    private static String optional(Object cell, String column, String label, int maxLength) {
+        String value = asString(cell);
+        return value != null ? checkLength(value, column, label, maxLength) : null;
+    }
+
+    private static String checkLength(String value, String column, String label, int maxLength) {
+        if (value.length() > maxLength) {
+            throw new InvalidCellException(column, value, label + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    // Dates arrive as Date from date cells and ISO text; workbooks may still hold ISO dates as text cells
+    private static Date asDate(Object cell) {
+        if (cell instanceof Date) {
+            return (Date) cell;
+        }
+        String value = asString(cell);
+        if (value == null || value.trim().isEmpty()) {
+            throw new InvalidCellException("dateOfBirth", value, "Date of birth is required");
+        }
+        try {
+            return Date.from(LocalDate.parse(value.trim()).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new InvalidCellException("dateOfBirth", value, "Date of birth must be a date (yyyy-MM-dd)");
+        }
+    }
+
+    static String asString(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Double) {
+            return String.valueOf(((Double) value).longValue());
+        }
+        return value.toString();
+    }
+}
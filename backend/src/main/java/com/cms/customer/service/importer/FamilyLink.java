@@ -0,0 +1,24 @@
+package com.cms.customer.service.importer;
+
+/**
+ * One row of the family members sheet: two customers, by NIC, to be linked in
+ * both directions.
+ */
+public class FamilyLink {
+
+    private final String nic;
+    private final String familyMemberNic;
+
+    public FamilyLink(String nic, String familyMemberNic) {
+        this.nic = nic;
+        this.familyMemberNic = familyMemberNic;
+    }
+
+    public String getNic() {
+        return nic;
+    }
+
+    public String getFamilyMemberNic() {
+        return familyMemberNic;
+    }
+}
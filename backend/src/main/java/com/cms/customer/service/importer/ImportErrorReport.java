@@ -0,0 +1,92 @@
+package com.cms.customer.service.importer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Every row error of one import, appended to a CSV file as the batches are
+ * written, so that the full report of a large file never has to be held in
+ * memory. Columns: sheet, row, column, value, reason.
+ * <p>
+ * Written by the import's writer thread only. The file is flushed after each
+ * batch, so a download while the import is running returns the errors found
+ * so far.
+ */
+public class ImportErrorReport implements Closeable {
+
+    private static final String HEADER = "sheet,row,column,value,reason";
+
+    private final Path file;
+    private final BufferedWriter writer;
+    private volatile long errorCount;
+
+    public ImportErrorReport(Path file) throws IOException {
+        this.file = file;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write(HEADER);
+        writer.newLine();
+        writer.flush();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void append(List<RowError> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        try {
+            for (RowError error : errors) {
+                writer.write(error.getSheet().name());
+                writer.write(',');
+                writer.write(Integer.toString(error.getRowNum()));
+                writer.write(',');
+                writeField(error.getColumn());
+                writer.write(',');
+                writeField(error.getValue());
+                writer.write(',');
+                writeField(error.getReason());
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write import error report", e);
+        }
+        errorCount += errors.size();
+    }
+
+    // RFC 4180: quote fields containing a delimiter, quote or line break, doubling embedded quotes
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,70 @@
+package com.cms.customer.service.importer;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Locale;
+
+/**
+ * File formats accepted by the import. XLSX is decoded from the sheet XML; the
+ * text formats are parsed straight from the byte channel.
+ */
+public enum ImportFormat {
+
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx"),
+    CSV("text/csv", ".csv"),
+    NDJSON("application/x-ndjson", ".ndjson", ".jsonl");
+
+    private final String contentType;
+    private final String[] extensions;
+
+    ImportFormat(String contentType, String... extensions) {
+        this.contentType = contentType;
+        this.extensions = extensions;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public RowSource open(ReadableByteChannel channel) throws IOException {
+        switch (this) {
+            case CSV:
+                return new CsvRowSource(channel);
+            case NDJSON:
+                return new NdjsonRowSource(channel);
+            default:
+                return new XlsxRowSource(Channels.newInputStream(channel));
+        }
+    }
+
+    /**
+     * Picks the format from the file extension, then the content type, and
+     * falls back to XLSX. The extension wins because browsers commonly label
+     * CSV uploads {@code application/vnd.ms-excel}.
+     */
+    public static ImportFormat detect(String contentType, String fileName) {
+        if (fileName != null) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            for (ImportFormat format : values()) {
+                for (String extension : format.extensions) {
+                    if (name.endsWith(extension)) {
+                        return format;
+                    }
+                }
+            }
+        }
+        if (contentType != null) {
+            String type = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+            for (ImportFormat format : values()) {
+                if (format.contentType.equals(type)) {
+                    return format;
+                }
+            }
+            if (type.equals("application/csv")) {
+                return CSV;
+            }
+        }
+        return XLSX;
+    }
+}
@@ -0,0 +1,201 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.dto.ImportJobDTO;
+import com.cms.customer.dto.ImportResultDTO;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live state of one asynchronous import. Counters are written by the import's
+ * writer thread and read by status requests, so they are kept in atomics and
+ * volatiles rather than behind a lock.
+ */
+public class ImportJob implements ImportProgress {
+
+    private final String id;
+    private final String fileName;
+    private final ImportFormat format;
+    private final String fileHash;
+    private final ImportMode mode;
+    private final boolean dryRun;
+    private final Date submittedAt = new Date();
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile long estimatedRows = -1;
+    private volatile long resumedRows;
+    private volatile Integer resumedFromRow;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile Date startedAt;
+    private volatile Date finishedAt;
+    private volatile boolean cancelRequested;
+    private volatile ImportResultDTO result;
+    private volatile String errorMessage;
+    private volatile Future<?> future;
+    private volatile ImportErrorReport errorReport;
+
+    public ImportJob(String id, String fileName, ImportFormat format, String fileHash, ImportMode mode,
+            boolean dryRun) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.fileHash = fileHash;
+        this.mode = mode;
+        this.dryRun = dryRun;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public ImportMode getMode() {
+        return mode;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public ImportErrorReport getErrorReport() {
+        return errorReport;
+    }
+
+    /**
+     * Routes the row errors of this job to {@code report}, which stays
+     * downloadable after the job has finished.
+     */
+    public void setErrorReport(ImportErrorReport errorReport) {
+        this.errorReport = errorReport;
+    }
+
+    public ImportJobStatus getStatus() {
+        return status;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public void markRunning() {
+        startedNanos = System.nanoTime();
+        startedAt = new Date();
+        status = ImportJobStatus.RUNNING;
+    }
+
+    public void complete(ImportResultDTO result) {
+        this.result = result;
+        finish(cancelRequested ? ImportJobStatus.CANCELLED : ImportJobStatus.COMPLETED);
+    }
+
+    public void fail(String message) {
+        this.errorMessage = message;
+        finish(ImportJobStatus.FAILED);
+    }
+
+    /**
+     * Requests cooperative cancellation. A queued job is withdrawn from the
+     * executor; a running job stops at the next batch boundary, keeping the
+     * batches already committed.
+     */
+    public void cancel() {
+        cancelRequested = true;
+        Future<?> pending = future;
+        if (status == ImportJobStatus.QUEUED && pending != null && pending.cancel(false)) {
+            finish(ImportJobStatus.CANCELLED);
+        }
+    }
+
+    private void finish(ImportJobStatus finalStatus) {
+        finishedNanos = System.nanoTime();
+        finishedAt = new Date();
+        status = finalStatus;
+    }
+
+    @Override
+    public void onStart(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    @Override
+    public void onResume(int lastRow, long rows, long importedRows, long skippedRows) {
+        resumedFromRow = lastRow + 1;
+        resumedRows = rows;
+        onBatchWritten(0, importedRows, skippedRows);
+        rowsRead.addAndGet(rows);
+    }
+
+    @Override
+    public void onBatchWritten(int rows, long importedRows, long skippedRows) {
+        rowsRead.addAndGet(rows);
+        imported.addAndGet(importedRows);
+        skipped.addAndGet(skippedRows);
+    }
+
+    @Override
+    public void onRowErrors(List<RowError> errors) {
+        ImportErrorReport report = errorReport;
+        if (report != null) {
+            report.append(errors);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    public ImportJobDTO toDTO() {
+        ImportJobDTO dto = new ImportJobDTO();
+        dto.setJobId(id);
+        dto.setFileName(fileName);
+        dto.setFormat(format);
+        dto.setMode(mode);
+        dto.setDryRun(dryRun);
+        dto.setStatus(status);
+        dto.setSubmittedAt(submittedAt);
+        dto.setStartedAt(startedAt);
+        dto.setFinishedAt(finishedAt);
+        dto.setRowsRead(rowsRead.get());
+        dto.setImportedCount(imported.get());
+        dto.setSkippedDuplicates(skipped.get());
+        dto.setEstimatedRows(estimatedRows >= 0 ? estimatedRows : null);
+        dto.setResumedFromRow(resumedFromRow);
+        ImportErrorReport report = errorReport;
+        if (report != null) {
+            dto.setErrorCount(report.getErrorCount());
+        }
+        dto.setErrorMessage(errorMessage);
+        dto.setResult(result);
+
+        if (startedAt != null) {
+            long endNanos = finishedAt != null ? finishedNanos : System.nanoTime();
+            double seconds = (endNanos - startedNanos) / 1e9;
+            // Rows skipped on resume were not processed by this run
+            double rate = seconds > 0 ? (rowsRead.get() - resumedRows) / seconds : 0;
+            dto.setRowsPerSecond(Math.round(rate * 10) / 10.0);
+            if (status == ImportJobStatus.RUNNING && estimatedRows > 0 && rate > 0) {
+                dto.setEtaSeconds(Math.max(0, Math.round((estimatedRows - rowsRead.get()) / rate)));
+            }
+        }
+        return dto;
+    }
+}
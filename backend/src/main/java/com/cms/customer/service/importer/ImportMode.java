@@ -0,0 +1,29 @@
+package com.cms.customer.service.importer;
+
+import java.util.Locale;
+
+/**
+ * How an import treats rows whose NIC already exists.
+ */
+public enum ImportMode {
+
+    /** Existing customers are left alone and counted as skipped duplicates. */
+    INSERT,
+
+    /**
+     * Existing customers are compared field by field and rewritten only if
+     * something changed; unchanged rows cost no write.
+     */
+    UPSERT;
+
+    public static ImportMode fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return INSERT;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown import mode '" + value + "', expected insert or upsert");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.cms.customer.service.importer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Three-stage import pipeline: a reader thread pulls rows from a {@link RowSource}
+ * and cuts them into chunks, a shared worker pool parses and validates chunks in
+ * parallel, and the calling thread writes the parsed chunks in source order.
+ * <p>
+ * The reader hands the writer one future per chunk through a bounded queue, so
+ * the queue capacity caps how far reading and parsing can run ahead of the
+ * database and chunk order (and with it row numbering) is preserved. A chunk
+ * never spans two sheets.
+ */
+public class ImportPipeline {
+
+    private static final AtomicInteger READER_SEQ = new AtomicInteger();
+    private static final long OFFER_TIMEOUT_MS = 200;
+
+    private final ExecutorService parserPool;
+    private final int chunkSize;
+    private final int queueCapacity;
+    private ImportSheet resumeSheet = ImportSheet.CUSTOMERS;
+    private int resumeAfterRow = -1;
+
+    public ImportPipeline(ExecutorService parserPool, int chunkSize, int queueCapacity) {
+        this.parserPool = parserPool;
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public ImportPipeline resumeAfter(int rowNum) {
+        return resumeAfter(ImportSheet.CUSTOMERS, rowNum);
+    }
+
+    /**
+     * Drops source rows of earlier sheets, and of {@code sheet} up to and
+     * including {@code rowNum}, on the reader thread before they are chunked or
+     * parsed. Used to resume from a checkpoint.
+     */
+    public ImportPipeline resumeAfter(ImportSheet sheet, int rowNum) {
+        this.resumeSheet = sheet;
+        this.resumeAfterRow = rowNum;
+        return this;
+    }
+
+    @FunctionalInterface
+    public interface ChunkWriter {
+        void write(ParsedChunk chunk);
+    }
+
+    public void run(RowSource source, Function<List<RawRow>, ParsedChunk> parser, ChunkWriter writer) {
+        run(source, parser, writer, () -> false);
+    }
+
+    /**
+     * Runs the pipeline to completion on the calling thread, which acts as the
+     * writer stage. Any reader, parser or writer failure aborts the other stages
+     * and is rethrown here.
+     *
+     * @param stopRequested polled before each chunk is written; once it returns
+     *                      {@code true} the remaining chunks are discarded
+     * @return {@code false} if the run was stopped before the source was exhausted
+     */
+    public boolean run(RowSource source, Function<List<RawRow>, ParsedChunk> parser, ChunkWriter writer,
+            BooleanSupplier stopRequested) {
+        BlockingQueue<Future<ParsedChunk>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Reader reader = new Reader(source, parser, queue);
+        Thread readerThread = new Thread(reader, "import-reader-" + READER_SEQ.incrementAndGet());
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        try {
+            while (true) {
+                ParsedChunk chunk = queue.take().get();
+                if (chunk == ParsedChunk.END) {
+                    return true;
+                }
+                if (stopRequested.getAsBoolean()) {
+                    return false;
+                }
+                writer.write(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        } finally {
+            reader.aborted = true;
+            for (Future<ParsedChunk> pending; (pending = queue.poll()) != null; ) {
+                pending.cancel(false);
+            }
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private class Reader implements Runnable {
+
+        private final RowSource source;
+        private final Function<List<RawRow>, ParsedChunk> parser;
+        private final BlockingQueue<Future<ParsedChunk>> queue;
+        private volatile boolean aborted;
+
+        Reader(RowSource source, Function<List<RawRow>, ParsedChunk> parser,
+                BlockingQueue<Future<ParsedChunk>> queue) {
+            this.source = source;
+            this.parser = parser;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            Future<ParsedChunk> last;
+            try {
+                List<RawRow> rows = new ArrayList<>(chunkSize);
+                for (RawRow row; !aborted && (row = source.next()) != null; ) {
+                    if (alreadyImported(row)) {
+                        continue;
+                    }
+                    if (!rows.isEmpty() && rows.get(0).getSheet() != row.getSheet()) {
+                        submit(rows);
+                        rows = new ArrayList<>(chunkSize);
+                    }
+                    rows.add(row);
+                    if (rows.size() >= chunkSize) {
+                        submit(rows);
+                        rows = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    submit(rows);
+                }
+                last = CompletableFuture.completedFuture(ParsedChunk.END);
+            } catch (IOException e) {
+                last = failed(new IllegalStateException("Failed to read import file: " + e.getMessage(), e));
+            } catch (RuntimeException e) {
+                last = failed(e);
+            }
+            put(last);
+        }
+
+        private boolean alreadyImported(RawRow row) {
+            int order = row.getSheet().compareTo(resumeSheet);
+            return order < 0 || (order == 0 && row.getRowNum() <= resumeAfterRow);
+        }
+
+        private void submit(List<RawRow> rows) {
+            put(parserPool.submit(() -> parser.apply(rows)));
+        }
+
+        private void put(Future<ParsedChunk> future) {
+            try {
+                while (!aborted) {
+                    if (queue.offer(future, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aborted = true;
+            }
+            future.cancel(false);
+        }
+
+        private Future<ParsedChunk> failed(Throwable error) {
+            CompletableFuture<ParsedChunk> future = new CompletableFuture<>();
+            future.completeExceptionally(error);
+            return future;
+        }
+    }
+}
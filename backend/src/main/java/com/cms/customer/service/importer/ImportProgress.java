@@ -0,0 +1,42 @@
+package com.cms.customer.service.importer;
+
+import java.util.List;
+
+/**
+ * Callback through which a running import reports progress and learns about
+ * cancellation. Called from the import's writer thread only.
+ */
+public interface ImportProgress {
+
+    ImportProgress NONE = new ImportProgress() {
+    };
+
+    default void onStart(long estimatedRows) {
+    }
+
+    /**
+     * Called instead of starting from zero when an earlier run of the same file
+     * left a checkpoint; the counters are those recorded by that checkpoint.
+     */
+    default void onResume(int lastRow, long rowsRead, long imported, long skipped) {
+    }
+
+    default void onBatchWritten(int rowsRead, long imported, long skipped) {
+    }
+
+    /**
+     * Receives every row error of a batch, parse and write failures alike, right
+     * after the batch is written. Unlike the import result, which keeps only the
+     * first errors, nothing is dropped here.
+     */
+    default void onRowErrors(List<RowError> errors) {
+    }
+
+    /**
+     * Checked between batches; once it returns {@code true} the import stops
+     * after the batch currently being written.
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
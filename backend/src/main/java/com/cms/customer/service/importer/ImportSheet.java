@@ -0,0 +1,54 @@
+package com.cms.customer.service.importer;
+
+import java.util.Locale;
+
+/**
+ * Worksheets an import workbook may contain, in the order they are imported.
+ * Customers always come from the first sheet; the related sheets are optional,
+ * found by name, and reference customers by NIC.
+ */
+public enum ImportSheet {
+
+    /** firstName, lastName, dateOfBirth, nic, email, gender */
+    CUSTOMERS("Row", CustomerRowParser.COLUMN_COUNT),
+
+    /** nic, addressLine1, addressLine2, city, country, addressType, isPrimary */
+    ADDRESSES("Addresses row", 7, "Addresses"),
+
+    /** nic, phoneNumber, phoneType, isPrimary */
+    PHONE_NUMBERS("Phone numbers row", 4, "Phone Numbers", "Phones"),
+
+    /** nic, familyMemberNic */
+    FAMILY_MEMBERS("Family members row", 2, "Family Members", "Family");
+
+    private final String rowLabel;
+    private final int columns;
+    private final String[] sheetNames;
+
+    ImportSheet(String rowLabel, int columns, String... sheetNames) {
+        this.rowLabel = rowLabel;
+        this.columns = columns;
+        this.sheetNames = sheetNames;
+    }
+
+    /**
+     * @return the prefix of error messages for rows of this sheet, e.g. "Addresses row"
+     */
+    public String getRowLabel() {
+        return rowLabel;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public boolean matchesSheetName(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (String sheetName : sheetNames) {
+            if (sheetName.toLowerCase(Locale.ROOT).equals(normalized)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
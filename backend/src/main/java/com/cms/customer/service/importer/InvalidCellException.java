@@ -0,0 +1,25 @@
+package com.cms.customer.service.importer;
+
+/**
+ * Thrown by the row parsers when a single cell fails validation, so the row
+ * error can name the column and the value at fault.
+ */
+class InvalidCellException extends IllegalArgumentException {
+
+    private final String column;
+    private final String value;
+
+    InvalidCellException(String column, Object value, String message) {
+        super(message);
+        this.column = column;
+        this.value = CustomerRowParser.asString(value);
+    }
+
+    String getColumn() {
+        return column;
+    }
+
+    String getValue() {
+        return value;
+    }
+}
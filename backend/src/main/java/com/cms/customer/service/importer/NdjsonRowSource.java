@@ -0,0 +1,283 @@
+package com.cms.customer.service.importer;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads customer rows from newline-delimited JSON: one flat object per line,
+ * keyed by the names in {@link CustomerRowParser#COLUMN_NAMES}. Keys are matched
+ * on their raw bytes and unknown keys (including nested values) are skipped
+ * without being decoded. Strings, numbers, booleans and {@code null} are
+ * accepted as values; numbers are kept as text so numeric NICs survive intact.
+ * <p>
+ * Row numbers are line numbers. A malformed line becomes a row error and the
+ * import carries on with the next line.
+ */
+public class NdjsonRowSource extends ChannelRowSource {
+
+    private static final ColumnMatcher CUSTOMER_COLUMNS = new ColumnMatcher(CustomerRowParser.COLUMN_NAMES);
+
+    private final int columns = ImportSheet.CUSTOMERS.getColumns();
+    private int lineNum;
+
+    public NdjsonRowSource(ReadableByteChannel channel) throws IOException {
+        super(channel);
+        estimateRows(0);
+        skipByteOrderMark();
+    }
+
+    @Override
+    public RawRow next() throws IOException {
+        int b;
+        while (true) {
+            b = skipSpaces();
+            if (b == -1) {
+                return null;
+            }
+            lineNum++;
+            if (b != '\n') {
+                break;
+            }
+            read();
+        }
+
+        Object[] values = new Object[columns];
+        try {
+            readObject(values);
+            b = skipSpaces();
+            if (b != '\n' && b != -1) {
+                throw new MalformedLineException("unexpected content after the object");
+            }
+            read();
+            return new RawRow(lineNum, values);
+        } catch (MalformedLineException e) {
+            skipLine();
+            return RawRow.invalid(ImportSheet.CUSTOMERS, lineNum, "Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    private void readObject(Object[] values) throws IOException, MalformedLineException {
+        expect('{');
+        if (skipSpaces() == '}') {
+            read();
+            return;
+        }
+        while (true) {
+            expectAt('"');
+            readString(true);
+            int column = matchCell(CUSTOMER_COLUMNS);
+            skipSpaces();
+            expect(':');
+            Object value = readValue(column >= 0);
+            if (column >= 0) {
+                values[column] = value;
+            }
+
+            skipSpaces();
+            int b = readInLine();
+            if (b == '}') {
+                return;
+            }
+            if (b != ',') {
+                throw new MalformedLineException("expected ',' or '}'");
+            }
+            skipSpaces();
+        }
+    }
+
+    private Object readValue(boolean keep) throws IOException, MalformedLineException {
+        int b = skipSpaces();
+        if (b == '"') {
+            readString(keep);
+            return keep ? cellValue(false) : null;
+        }
+        if (b == '{' || b == '[') {
+            if (keep) {
+                throw new MalformedLineException("nested values are not supported for customer fields");
+            }
+            skipNested();
+            return null;
+        }
+        if (b == '-' || (b >= '0' && b <= '9')) {
+            clearCell();
+            for (b = peek(); b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E' || (b >= '0' && b <= '9');
+                    b = peek()) {
+                appendCell(read());
+            }
+            return keep ? cellText() : null;
+        }
+        if (b == 't') {
+            literal("true");
+            return Boolean.TRUE;
+        }
+        if (b == 'f') {
+            literal("false");
+            return Boolean.FALSE;
+        }
+        if (b == 'n') {
+            literal("null");
+            return null;
+        }
+        throw new MalformedLineException("unexpected value");
+    }
+
+    /**
+     * Reads a string whose opening quote is next, unescaping it into the cell
+     * buffer if {@code keep} is set.
+     */
+    private void readString(boolean keep) throws IOException, MalformedLineException {
+        read(); // opening quote
+        clearCell();
+        while (true) {
+            int b = readInLine();
+            if (b == '"') {
+                return;
+            }
+            if (b != '\\') {
+                if (keep) {
+                    appendCell(b);
+                }
+                continue;
+            }
+
+            int escaped = readInLine();
+            int decoded;
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    decoded = escaped;
+                    break;
+                case 'b':
+                    decoded = '\b';
+                    break;
+                case 'f':
+                    decoded = '\f';
+                    break;
+                case 'n':
+                    decoded = '\n';
+                    break;
+                case 'r':
+                    decoded = '\r';
+                    break;
+                case 't':
+                    decoded = '\t';
+                    break;
+                case 'u':
+                    decoded = readUnicodeEscape();
+                    break;
+                default:
+                    throw new MalformedLineException("invalid escape");
+            }
+            if (keep) {
+                appendCodePoint(decoded);
+            }
+        }
+    }
+
+    private int readUnicodeEscape() throws IOException, MalformedLineException {
+        int unit = readHex4();
+        if (Character.isHighSurrogate((char) unit) && peek() == '\\') {
+            read();
+            if (readInLine() != 'u') {
+                throw new MalformedLineException("invalid escape");
+            }
+            int low = readHex4();
+            if (Character.isLowSurrogate((char) low)) {
+                return Character.toCodePoint((char) unit, (char) low);
+            }
+            throw new MalformedLineException("unpaired surrogate");
+        }
+        return unit;
+    }
+
+    private int readHex4() throws IOException, MalformedLineException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(readInLine(), 16);
+            if (digit < 0) {
+                throw new MalformedLineException("invalid \\u escape");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /** Skips a nested object or array, including any strings inside it. */
+    private void skipNested() throws IOException, MalformedLineException {
+        int depth = 0;
+        do {
+            int b = peek();
+            if (b == '"') {
+                readString(false);
+                continue;
+            }
+            readInLine();
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+
+    private void literal(String word) throws IOException, MalformedLineException {
+        for (int i = 0; i < word.length(); i++) {
+            if (readInLine() != word.charAt(i)) {
+                throw new MalformedLineException("unexpected value");
+            }
+        }
+    }
+
+    private void expect(int expected) throws IOException, MalformedLineException {
+        if (skipSpaces() != expected) {
+            throw new MalformedLineException("expected '" + (char) expected + "'");
+        }
+        read();
+    }
+
+    private void expectAt(int expected) throws IOException, MalformedLineException {
+        if (peek() != expected) {
+            throw new MalformedLineException("expected '" + (char) expected + "'");
+        }
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns, but not line feeds, which end
+     * a record.
+     *
+     * @return the next byte, not consumed
+     */
+    private int skipSpaces() throws IOException {
+        int b = peek();
+        while (b == ' ' || b == '\t' || b == '\r') {
+            read();
+            b = peek();
+        }
+        return b;
+    }
+
+    /**
+     * Reads the next byte of the current line; the line feed is left unread so
+     * a malformed line can be skipped without losing the next one.
+     */
+    private int readInLine() throws IOException, MalformedLineException {
+        int b = peek();
+        if (b == '\n' || b == -1) {
+            throw new MalformedLineException("unexpected end of line");
+        }
+        return read();
+    }
+
+    private void skipLine() throws IOException {
+        for (int b = read(); b != '\n' && b != -1; b = read()) {
+            // discard the rest of the malformed line
+        }
+    }
+
+    private static class MalformedLineException extends Exception {
+        MalformedLineException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.cms.customer.service.importer;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Remembers the first row each NIC of an import appeared in, for the whole
+ * file, so that a repeated NIC is rejected wherever it reappears.
+ * <p>
+ * NICs are compared as the database collation compares them (trimmed,
+ * upper-cased). Sri Lankan NICs, 12 digits or 9 digits and {@code V} or
+ * {@code X}, fit in 40 bits, which leaves room in a {@code long} for the row
+ * number: those are kept one {@code long} per slot, 8 bytes, in an
+ * open-addressing table filled up to 85%, so about 10 bytes a NIC. Other NICs
+ * of up to 12 digits and letters are packed losslessly into a base-37
+ * {@code long} and kept with their row in a second table, at 12 bytes a slot,
+ * as are Sri Lankan NICs first seen past row {@value #MAX_COMBINED_ROW}.
+ * Anything else falls back to a map.
+ * <p>
+ * Used by the import's writer thread only.
+ */
+public class NicOccurrences {
+
+    private static final int MAX_PACKED_LENGTH = 12;
+    private static final double MAX_LOAD = 0.85;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private static final int ROW_BITS = 23;
+    private static final int MAX_COMBINED_ROW = (1 << ROW_BITS) - 1;
+    private static final long NEW_FORMAT_COUNT = 1_000_000_000_000L;
+
+    // (Sri Lankan NIC code + 1) << ROW_BITS | first row; 0 marks a free slot
+    private long[] combined;
+    private int combinedSize;
+    private boolean sriLankanPastCombinedRows;
+    // 0 marks a free slot; no packed NIC is 0 since empty NICs never get here
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] rows = new int[MIN_CAPACITY];
+    private int size;
+    private final Map<String, Integer> unpacked = new HashMap<>();
+
+    /**
+     * @param expectedNics expected number of distinct NICs, e.g. the estimated
+     *                     row count; the table grows if it is exceeded
+     */
+    public NicOccurrences(long expectedNics) {
+        combined = new long[capacityFor(expectedNics)];
+    }
+
+    /**
+     * Records {@code nic} as seen in {@code rowNum} unless it was seen before.
+     *
+     * @return the row the NIC first appeared in, or {@code -1} if this is its
+     *         first occurrence
+     */
+    public int putIfAbsent(String nic, int rowNum) {
+        long code = sriLankanCode(nic);
+        if (code >= 0) {
+            int first = findCombined(code);
+            if (first >= 0) {
+                return first;
+            }
+            if (rowNum >= 0 && rowNum <= MAX_COMBINED_ROW && !sriLankanPastCombinedRows) {
+                insertCombined(code, rowNum);
+                return -1;
+            }
+            // Its first occurrence, if any, is in the other table from here on
+            sriLankanPastCombinedRows = true;
+        }
+
+        long key = pack(nic);
+        if (key == 0) {
+            Integer first = unpacked.putIfAbsent(normalize(nic), rowNum);
+            return first != null ? first : -1;
+        }
+
+        int slot = slotOf(key, keys.length);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return rows[slot];
+            }
+            slot = slot + 1 == keys.length ? 0 : slot + 1;
+        }
+        keys[slot] = key;
+        rows[slot] = rowNum;
+        if (++size > keys.length * MAX_LOAD) {
+            grow();
+        }
+        return -1;
+    }
+
+    public int size() {
+        return combinedSize + size + unpacked.size();
+    }
+
+    /**
+     * @return the NIC as a base-37 number over its trimmed, upper-cased
+     *         characters, or 0 if it is too long or holds other characters
+     */
+    static long pack(String nic) {
+        int start = 0;
+        int end = nic.length();
+        while (start < end && Character.isWhitespace(nic.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(nic.charAt(end - 1))) {
+            end--;
+        }
+        if (end == start || end - start > MAX_PACKED_LENGTH) {
+            return 0;
+        }
+
+        long key = 0;
+        for (int i = start; i < end; i++) {
+            char c = nic.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0' + 1;
+            } else if (c >= 'A' && c <= 'Z') {
+                digit = c - 'A' + 11;
+            } else if (c >= 'a' && c <= 'z') {
+                digit = c - 'a' + 11;
+            } else {
+                return 0;
+            }
+            key = key * 37 + digit;
+        }
+        return key;
+    }
+
+    /**
+     * @return the trimmed NIC as a number below 2^40: its value if it is 12
+     *         digits, or past those, twice its 9 digits plus one for a
+     *         trailing {@code X} ({@code V} otherwise); -1 if it is neither
+     */
+    static long sriLankanCode(String nic) {
+        int start = 0;
+        int end = nic.length();
+        while (start < end && Character.isWhitespace(nic.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(nic.charAt(end - 1))) {
+            end--;
+        }
+        int length = end - start;
+        if (length != 12 && length != 10) {
+            return -1;
+        }
+        int digits = length == 12 ? 12 : 9;
+        long value = 0;
+        for (int i = start; i < start + digits; i++) {
+            char c = nic.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (length == 12) {
+            return value;
+        }
+        char letter = Character.toUpperCase(nic.charAt(end - 1));
+        if (letter != 'V' && letter != 'X') {
+            return -1;
+        }
+        return NEW_FORMAT_COUNT + value * 2 + (letter == 'X' ? 1 : 0);
+    }
+
+    private static String normalize(String nic) {
+        return nic.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static int capacityFor(long expected) {
+        return (int) Math.min(MAX_CAPACITY, Math.max(MIN_CAPACITY, (long) (expected / MAX_LOAD) + 1));
+    }
+
+    // Multiply-shift onto [0, capacity) after mixing, so the capacity need not be a power of two
+    private static int slotOf(long key, int capacity) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        hash ^= hash >>> 29;
+        return (int) (((hash >>> 32) * capacity) >>> 32);
+    }
+
+    private int findCombined(long code) {
+        long tag = code + 1;
+        int slot = slotOf(code, combined.length);
+        while (combined[slot] != 0) {
+            if (combined[slot] >>> ROW_BITS == tag) {
+                return (int) (combined[slot] & MAX_COMBINED_ROW);
+            }
+            slot = slot + 1 == combined.length ? 0 : slot + 1;
+        }
+        return -1;
+    }
+
+    private void insertCombined(long code, int rowNum) {
+        place(combined, code, (code + 1) << ROW_BITS | rowNum);
+        if (++combinedSize > combined.length * MAX_LOAD) {
+            long[] old = combined;
+            combined = new long[(int) Math.min(MAX_CAPACITY, (long) old.length * 2)];
+            for (long entry : old) {
+                if (entry != 0) {
+                    place(combined, (entry >>> ROW_BITS) - 1, entry);
+                }
+            }
+        }
+    }
+
+    private static void place(long[] table, long code, long entry) {
+        int slot = slotOf(code, table.length);
+        while (table[slot] != 0) {
+            slot = slot + 1 == table.length ? 0 : slot + 1;
+        }
+        table[slot] = entry;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldRows = rows;
+        int capacity = (int) Math.min(MAX_CAPACITY, (long) oldKeys.length * 2);
+        keys = new long[capacity];
+        rows = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotOf(oldKeys[i], capacity);
+                while (keys[slot] != 0) {
+                    slot = slot + 1 == capacity ? 0 : slot + 1;
+                }
+                keys[slot] = oldKeys[i];
+                rows[slot] = oldRows[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output of a parse worker for one chunk of source rows, all from the same
+ * sheet: the valid records in source order, with their row numbers, and the
+ * rows that failed validation.
+ * <p>
+ * Addresses and phone numbers carry an unsaved {@link Customer} holding only the
+ * NIC they reference; the writer resolves it to an id.
+ */
+public class ParsedChunk {
+
+    static final ParsedChunk END = new ParsedChunk(0);
+
+    private final ImportSheet sheet;
+    private final List<Customer> customers;
+    private final List<Address> addresses = new ArrayList<>();
+    private final List<PhoneNumber> phoneNumbers = new ArrayList<>();
+    private final List<FamilyLink> familyLinks = new ArrayList<>();
+    private final List<Integer> rowNums;
+    private final List<RowError> errors = new ArrayList<>();
+    private int rowsRead;
+    private int lastRowNum = -1;
+
+    public ParsedChunk(int expectedRows) {
+        this(ImportSheet.CUSTOMERS, expectedRows);
+    }
+
+    public ParsedChunk(ImportSheet sheet, int expectedRows) {
+        this.sheet = sheet;
+        this.customers = new ArrayList<>(sheet == ImportSheet.CUSTOMERS ? expectedRows : 0);
+        this.rowNums = new ArrayList<>(expectedRows);
+    }
+
+    void addCustomer(int rowNum, Customer customer) {
+        customers.add(customer);
+        rowNums.add(rowNum);
+        rowRead(rowNum);
+    }
+
+    void addAddress(int rowNum, Address address) {
+        addresses.add(address);
+        rowNums.add(rowNum);
+        rowRead(rowNum);
+    }
+
+    void addPhoneNumber(int rowNum, PhoneNumber phoneNumber) {
+        phoneNumbers.add(phoneNumber);
+        rowNums.add(rowNum);
+        rowRead(rowNum);
+    }
+
+    void addFamilyLink(int rowNum, FamilyLink link) {
+        familyLinks.add(link);
+        rowNums.add(rowNum);
+        rowRead(rowNum);
+    }
+
+    void addError(int rowNum, String message) {
+        addError(rowNum, null, null, message);
+    }
+
+    void addError(int rowNum, String column, String value, String message) {
+        errors.add(new RowError(sheet, rowNum, column, value, message));
+        rowRead(rowNum);
+    }
+
+    /**
+     * Moves customers whose NIC already appeared earlier in the file from the
+     * valid records to the errors. Must run in source order, i.e. on the writer,
+     * for the first occurrence to be the one that is kept.
+     *
+     * @return the number of rows rejected
+     */
+    public int rejectRepeatedNics(NicOccurrences occurrences) {
+        int kept = 0;
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            int rowNum = rowNums.get(i);
+            int firstRow = occurrences.putIfAbsent(customer.getNic(), rowNum);
+            if (firstRow >= 0) {
+                errors.add(new RowError(sheet, rowNum, "nic", customer.getNic(),
+                        "Duplicate NIC, first seen in row " + firstRow));
+                continue;
+            }
+            customers.set(kept, customer);
+            rowNums.set(kept, rowNum);
+            kept++;
+        }
+        int rejected = customers.size() - kept;
+        customers.subList(kept, customers.size()).clear();
+        rowNums.subList(kept, rowNums.size()).clear();
+        return rejected;
+    }
+
+    /**
+     * Splits the valid records into two chunks of about half each, so that a
+     * batch the database rejects can be written in parts. The errors stay with
+     * the second part, which also ends where this chunk ends, so the parts
+     * together read as many rows as this chunk.
+     */
+    public ParsedChunk[] split() {
+        int half = rowNums.size() / 2;
+        ParsedChunk first = new ParsedChunk(sheet, half);
+        ParsedChunk second = new ParsedChunk(sheet, rowNums.size() - half);
+        for (int i = 0; i < rowNums.size(); i++) {
+            ParsedChunk part = i < half ? first : second;
+            int rowNum = rowNums.get(i);
+            switch (sheet) {
+                case CUSTOMERS:
+                    part.addCustomer(rowNum, customers.get(i));
+                    break;
+                case ADDRESSES:
+                    part.addAddress(rowNum, addresses.get(i));
+                    break;
+                case PHONE_NUMBERS:
+                    part.addPhoneNumber(rowNum, phoneNumbers.get(i));
+                    break;
+                default:
+                    part.addFamilyLink(rowNum, familyLinks.get(i));
+                    break;
+            }
+        }
+        second.errors.addAll(errors);
+        second.rowsRead = rowsRead - first.rowsRead;
+        second.lastRowNum = lastRowNum;
+        return new ParsedChunk[] { first, second };
+    }
+
+    private void rowRead(int rowNum) {
+        rowsRead++;
+        lastRowNum = Math.max(lastRowNum, rowNum);
+    }
+
+    public ImportSheet getSheet() {
+        return sheet;
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public List<Address> getAddresses() {
+        return addresses;
+    }
+
+    public List<PhoneNumber> getPhoneNumbers() {
+        return phoneNumbers;
+    }
+
+    public List<FamilyLink> getFamilyLinks() {
+        return familyLinks;
+    }
+
+    /**
+     * @return source row numbers of the valid records, parallel to whichever
+     *         record list this chunk's sheet fills
+     */
+    public List<Integer> getRowNums() {
+        return rowNums;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * @return the highest source row number in this chunk, valid or not, within
+     *         the chunk's sheet
+     */
+    public int getLastRowNum() {
+        return lastRowNum;
+    }
+}
@@ -0,0 +1,58 @@
+package com.cms.customer.service.importer;
+
+/**
+ * Cell values of one source row, copied out of the underlying reader so the
+ * row can be handed to a parse worker on another thread.
+ * <p>
+ * Values are {@code String}, {@code Double}, {@code Boolean},
+ * {@code java.util.Date} or {@code null}.
+ */
+public class RawRow {
+
+    private final ImportSheet sheet;
+    private final int rowNum;
+    private final Object[] values;
+    private final String error;
+
+    public RawRow(int rowNum, Object[] values) {
+        this(ImportSheet.CUSTOMERS, rowNum, values);
+    }
+
+    public RawRow(ImportSheet sheet, int rowNum, Object[] values) {
+        this(sheet, rowNum, values, null);
+    }
+
+    private RawRow(ImportSheet sheet, int rowNum, Object[] values, String error) {
+        this.sheet = sheet;
+        this.rowNum = rowNum;
+        this.values = values;
+        this.error = error;
+    }
+
+    /**
+     * A row the source could not decode, e.g. a malformed NDJSON line. It is
+     * reported as a row error instead of failing the whole import.
+     */
+    public static RawRow invalid(ImportSheet sheet, int rowNum, String error) {
+        return new RawRow(sheet, rowNum, new Object[0], error);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public ImportSheet getSheet() {
+        return sheet;
+    }
+
+    /**
+     * @return the row number within its sheet
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public Object get(int column) {
+        return column < values.length ? values[column] : null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.cms.customer.service.importer;
+
+/**
+ * A source row that could not be imported: where it is, which column was at
+ * fault (when known), the offending value and why it was rejected.
+ */
+public class RowError {
+
+    private final ImportSheet sheet;
+    private final int rowNum;
+    private final String column;
+    private final String value;
+    private final String reason;
+
+    public RowError(ImportSheet sheet, int rowNum, String column, String value, String reason) {
+        this.sheet = sheet;
+        this.rowNum = rowNum;
+        this.column = column;
+        this.value = value;
+        this.reason = reason;
+    }
+
+    public ImportSheet getSheet() {
+        return sheet;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the error as shown in the import result, e.g. "Row 12: NIC is required"
+     */
+    public String getMessage() {
+        return sheet.getRowLabel() + " " + rowNum + ": " + reason;
+    }
+
+    @Override
+    public String toString() {
+        return getMessage();
+    }
+}
@@ -0,0 +1,34 @@
+package com.cms.customer.service.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Sequential producer of data rows for the import pipeline. Implementations are
+ * only ever called from the pipeline's reader thread.
+ */
+public interface RowSource extends Closeable {
+
+    /**
+     * @return the next data row, or {@code null} once the source is exhausted
+     */
+    RawRow next() throws IOException;
+
+    /**
+     * @return the expected number of data rows, or {@code -1} if the format
+     *         does not declare it up front
+     */
+    default long estimatedRows() {
+        return -1;
+    }
+
+    /**
+     * @return the sheets this source will deliver rows for; rows arrive grouped
+     *         by sheet, in {@link ImportSheet} order
+     */
+    default Set<ImportSheet> sheets() {
+        return EnumSet.of(ImportSheet.CUSTOMERS);
+    }
+}
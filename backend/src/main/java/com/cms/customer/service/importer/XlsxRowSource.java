@@ -0,0 +1,443 @@
+package com.cms.customer.service.importer;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads an XLSX workbook straight from its sheet XML, pulled with StAX over the
+ * parts {@link XSSFReader} exposes, instead of building POI {@code Row} and
+ * {@code Cell} objects for every row: the customer sheet (sheet 0) first, then
+ * whichever related-record sheets are present, in {@link ImportSheet} order.
+ * Each sheet's first row is a header.
+ * <p>
+ * Only the columns the sheet type declares are decoded; anything to their
+ * right is skipped unread. Shared strings resolve through
+ * {@link XlsxSharedStrings}, and whether a cell style is a date format is
+ * worked out once per style index rather than once per cell. Formula cells
+ * yield the result cached in the file.
+ * <p>
+ * The upload is copied to a temporary file first, as xlsx-streamer does, so
+ * that the zip can be read by entry instead of being inflated into memory.
+ */
+public class XlsxRowSource implements RowSource {
+
+    static final XMLInputFactory XML = newInputFactory();
+
+    private static final byte STYLE_UNKNOWN = 0;
+    private static final byte STYLE_DATE = 1;
+    private static final byte STYLE_OTHER = 2;
+
+    private final Path file;
+    private final OPCPackage pkg;
+    private final XlsxSharedStrings sharedStrings;
+    private final StylesTable styles;
+    private final byte[] dateStyles;
+    private final boolean date1904;
+    private final Map<ImportSheet, SheetReader> sheets = new EnumMap<>(ImportSheet.class);
+    private final Iterator<ImportSheet> pending;
+    private final long estimatedRows;
+
+    private ImportSheet current;
+    private SheetReader rows;
+
+    public XlsxRowSource(InputStream is) throws IOException {
+        this.file = Files.createTempFile("cms-import-", ".xlsx");
+        OPCPackage opened = null;
+        try {
+            Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+            opened = OPCPackage.open(file.toFile(), PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(opened);
+
+            try (InputStream strings = reader.getSharedStringsData()) {
+                this.sharedStrings = strings != null ? XlsxSharedStrings.read(strings) : XlsxSharedStrings.empty();
+            }
+            this.styles = reader.getStylesTable();
+            this.dateStyles = new byte[styles != null ? styles.getNumCellStyles() : 0];
+            try (InputStream workbook = reader.getWorkbookData()) {
+                this.date1904 = isDate1904(workbook);
+            }
+
+            long total = 0;
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            for (int i = 0; iterator.hasNext(); i++) {
+                InputStream sheet = iterator.next();
+                ImportSheet type = i == 0 ? ImportSheet.CUSTOMERS : sheetType(iterator.getSheetName());
+                if (type == null) {
+                    sheet.close();
+                    continue;
+                }
+                SheetReader sheetReader = new SheetReader(type, sheet);
+                sheets.put(type, sheetReader);
+                total += sheetReader.lastRowNum;
+            }
+            if (sheets.isEmpty()) {
+                throw new IOException("The workbook has no sheets");
+            }
+            this.pkg = opened;
+            this.estimatedRows = total > 0 ? total : -1;
+        } catch (IOException | OpenXML4JException | XMLStreamException | RuntimeException e) {
+            for (SheetReader sheet : sheets.values()) {
+                sheet.closeQuietly();
+            }
+            if (opened != null) {
+                opened.revert();
+            }
+            Files.deleteIfExists(file);
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException("Not a readable XLSX workbook: " + e.getMessage(), e);
+        }
+
+        this.pending = new ArrayList<>(sheets.keySet()).iterator();
+        nextSheet();
+    }
+
+    @Override
+    public long estimatedRows() {
+        return estimatedRows;
+    }
+
+    @Override
+    public Set<ImportSheet> sheets() {
+        return sheets.keySet();
+    }
+
+    @Override
+    public RawRow next() throws IOException {
+        try {
+            RawRow row;
+            while ((row = rows.next()) == null) {
+                if (!nextSheet()) {
+                    return null;
+                }
+            }
+            return row;
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed worksheet '" + current.name() + "': " + e.getMessage(), e);
+        }
+    }
+
+    private boolean nextSheet() {
+        if (!pending.hasNext()) {
+            return false;
+        }
+        current = pending.next();
+        rows = sheets.get(current);
+        return true;
+    }
+
+    private ImportSheet sheetType(String sheetName) {
+        for (ImportSheet type : ImportSheet.values()) {
+            if (type != ImportSheet.CUSTOMERS && !sheets.containsKey(type) && type.matchesSheetName(sheetName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    private boolean isDateStyle(int style) {
+        if (style < 0 || style >= dateStyles.length) {
+            return false;
+        }
+        byte cached = dateStyles[style];
+        if (cached == STYLE_UNKNOWN) {
+            XSSFCellStyle cellStyle = styles.getStyleAt(style);
+            boolean date = cellStyle != null
+                    && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+            dateStyles[style] = cached = date ? STYLE_DATE : STYLE_OTHER;
+        }
+        return cached == STYLE_DATE;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            for (SheetReader sheet : sheets.values()) {
+                sheet.closeQuietly();
+            }
+            pkg.revert();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static boolean isDate1904(InputStream workbook) throws XMLStreamException {
+        XMLStreamReader xml = XML.createXMLStreamReader(workbook);
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("workbookPr".equals(name)) {
+                        String value = xml.getAttributeValue(null, "date1904");
+                        return "1".equals(value) || "true".equals(value);
+                    }
+                    if ("sheets".equals(name)) {
+                        return false;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            xml.close();
+        }
+    }
+
+    // Column letters of a cell reference such as "AB12", as a 0-based index
+    static int columnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // One CHARACTERS event per text node, so a value can be read straight from the parser's buffer
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /** Pulls the rows of one worksheet, positioned inside its {@code <sheetData>}. */
+    private class SheetReader {
+
+        private final ImportSheet type;
+        private final InputStream in;
+        private final XMLStreamReader xml;
+        private final long lastRowNum;
+        private int rowNum = -1;
+        private boolean done;
+
+        SheetReader(ImportSheet type, InputStream in) throws XMLStreamException {
+            this.type = type;
+            this.in = in;
+            this.xml = XML.createXMLStreamReader(in);
+            this.lastRowNum = readToSheetData();
+            if (!done && nextRowElement()) {
+                skipElement(); // header
+            }
+        }
+
+        /**
+         * @return the sheet's last 0-based row index, from the {@code <dimension>}
+         *         element that precedes the row data, or 0 if it is missing
+         */
+        private long readToSheetData() throws XMLStreamException {
+            long last = 0;
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("dimension".equals(name)) {
+                        String ref = xml.getAttributeValue(null, "ref");
+                        last = ref != null ? Math.max(0, lastRow(ref) - 1) : 0;
+                    } else if ("sheetData".equals(name)) {
+                        return last;
+                    }
+                }
+            }
+            done = true;
+            return last;
+        }
+
+        RawRow next() throws XMLStreamException {
+            if (done || !nextRowElement()) {
+                return null;
+            }
+            String r = xml.getAttributeValue(null, "r");
+            rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+
+            Object[] values = new Object[type.getColumns()];
+            int column = -1;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (!"c".equals(xml.getLocalName())) {
+                        skipElement(); // extLst
+                        continue;
+                    }
+                    String ref = xml.getAttributeValue(null, "r");
+                    column = ref != null ? columnIndex(ref) : column + 1;
+                    if (column >= 0 && column < values.length) {
+                        values[column] = readCell();
+                    } else {
+                        skipElement();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    break; // </row>
+                }
+            }
+            return new RawRow(type, rowNum, values);
+        }
+
+        // Advances to the next <row>, or to the end of <sheetData>
+        private boolean nextRowElement() throws XMLStreamException {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("row".equals(xml.getLocalName())) {
+                        return true;
+                    }
+                    skipElement();
+                } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(xml.getLocalName())) {
+                    break;
+                }
+            }
+            done = true;
+            return false;
+        }
+
+        /**
+         * Decodes the {@code <c>} the parser is positioned on, leaving it on
+         * {@code </c>}.
+         *
+         * @return the value as {@link RawRow} holds it
+         */
+        private Object readCell() throws XMLStreamException {
+            String cellType = xml.getAttributeValue(null, "t");
+            String style = xml.getAttributeValue(null, "s");
+            boolean sharedString = "s".equals(cellType);
+
+            int sharedIndex = -1;
+            String text = null;
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = xml.getLocalName();
+                    if ("v".equals(name)) {
+                        if (xml.next() == XMLStreamConstants.CHARACTERS) {
+                            if (sharedString) {
+                                sharedIndex = parseIndex(xml.getTextCharacters(), xml.getTextStart(),
+                                        xml.getTextLength());
+                            } else {
+                                text = xml.getText();
+                            }
+                            xml.next();
+                        }
+                    } else if ("is".equals(name)) {
+                        text = readInlineString();
+                    } else {
+                        skipElement(); // formula, extensions
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    break; // </c>
+                }
+            }
+
+            if (sharedString) {
+                return sharedIndex >= 0 ? sharedStrings.get(sharedIndex) : null;
+            }
+            if (text == null) {
+                return null;
+            }
+            if (cellType == null || "n".equals(cellType)) {
+                double value = Double.parseDouble(text);
+                if (isDateStyle(style != null ? Integer.parseInt(style) : 0) && DateUtil.isValidExcelDate(value)) {
+                    return DateUtil.getJavaDate(value, date1904);
+                }
+                return value;
+            }
+            switch (cellType) {
+                case "inlineStr":
+                case "str":
+                    return text;
+                case "b":
+                    return "1".equals(text) || "true".equals(text);
+                default:
+                    return null; // "e": error value such as #N/A
+            }
+        }
+
+        private String readInlineString() throws XMLStreamException {
+            StringBuilder text = new StringBuilder();
+            int depth = 1;
+            while (depth > 0 && xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("rPh".equals(xml.getLocalName())) {
+                        skipElement();
+                    } else if ("t".equals(xml.getLocalName())) {
+                        text.append(xml.getElementText());
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+            return text.toString();
+        }
+
+        // Skips the element the parser is positioned on, leaving it on its end tag
+        private void skipElement() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0 && xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                xml.close();
+                in.close();
+            } catch (XMLStreamException | IOException ignored) {
+                // the package is being discarded anyway
+            }
+        }
+    }
+
+    private static int parseIndex(char[] chars, int start, int length) {
+        int value = 0;
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+            } else if (!Character.isWhitespace(c)) {
+                throw new IllegalArgumentException("Invalid shared string index: " + new String(chars, start, length));
+            }
+        }
+        return value;
+    }
+
+    // Row number of the last cell of a range such as "A1:F1001"
+    private static long lastRow(String ref) {
+        String last = ref.substring(ref.lastIndexOf(':') + 1);
+        int digits = 0;
+        while (digits < last.length() && !Character.isDigit(last.charAt(digits))) {
+            digits++;
+        }
+        return digits < last.length() ? Long.parseLong(last.substring(digits)) : 0;
+    }
+}
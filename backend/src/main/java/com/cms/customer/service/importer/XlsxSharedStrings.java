@@ -0,0 +1,114 @@
+package com.cms.customer.service.importer;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The workbook's shared string table ({@code xl/sharedStrings.xml}), held as
+ * UTF-8 in one byte array with the offset of each entry, about 4 bytes per
+ * entry beyond its text instead of a {@code String} object per entry; a
+ * table of millions of distinct names and emails then costs a third of the
+ * memory. The {@code String} is built when a cell refers to the entry.
+ * <p>
+ * Rich text runs are concatenated; phonetic runs ({@code <rPh>}) are dropped,
+ * as Excel does when displaying the value.
+ */
+final class XlsxSharedStrings {
+
+    private static final int MAX_BYTES = Integer.MAX_VALUE - 8;
+
+    private final byte[] text;
+    // Entry i is text[offsets[i], offsets[i + 1])
+    private final int[] offsets;
+    private final int count;
+
+    private XlsxSharedStrings(byte[] text, int[] offsets, int count) {
+        this.text = text;
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    static XlsxSharedStrings empty() {
+        return new XlsxSharedStrings(new byte[0], new int[1], 0);
+    }
+
+    static XlsxSharedStrings read(InputStream in) throws IOException {
+        try {
+            XMLStreamReader xml = XlsxRowSource.XML.createXMLStreamReader(in);
+            try {
+                return readStrings(xml);
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid shared strings table: " + e.getMessage(), e);
+        }
+    }
+
+    String get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Shared string " + index + " does not exist");
+        }
+        return new String(text, offsets[index], offsets[index + 1] - offsets[index], StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return count;
+    }
+
+    private static XlsxSharedStrings readStrings(XMLStreamReader xml) throws XMLStreamException {
+        byte[] bytes = new byte[64 * 1024];
+        int length = 0;
+        int[] offsets = new int[17];
+        int count = 0;
+        StringBuilder text = new StringBuilder();
+        int phoneticDepth = 0;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("sst".equals(name)) {
+                    // uniqueCount is optional and only a sizing hint
+                    String unique = xml.getAttributeValue(null, "uniqueCount");
+                    if (unique != null) {
+                        offsets = new int[Math.max(0, Integer.parseInt(unique)) + 1];
+                    }
+                } else if ("si".equals(name)) {
+                    text.setLength(0);
+                } else if ("rPh".equals(name)) {
+                    phoneticDepth++;
+                } else if ("t".equals(name) && phoneticDepth == 0) {
+                    text.append(xml.getElementText());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("rPh".equals(name)) {
+                    phoneticDepth--;
+                } else if ("si".equals(name)) {
+                    byte[] entry = text.toString().getBytes(StandardCharsets.UTF_8);
+                    if ((long) length + entry.length > MAX_BYTES) {
+                        throw new XMLStreamException("shared strings exceed 2 GB");
+                    }
+                    if (length + entry.length > bytes.length) {
+                        long grown = Math.max(bytes.length + (long) (bytes.length >> 1), (long) length + entry.length);
+                        bytes = Arrays.copyOf(bytes, (int) Math.min(grown, MAX_BYTES));
+                    }
+                    System.arraycopy(entry, 0, bytes, length, entry.length);
+                    length += entry.length;
+                    if (count + 1 == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, Math.max(17, count * 2 + 1));
+                    }
+                    offsets[++count] = length;
+                }
+            }
+        }
+        // Not trimmed: copying a large table would briefly need it twice
+        return new XlsxSharedStrings(bytes, offsets, count);
+    }
+}
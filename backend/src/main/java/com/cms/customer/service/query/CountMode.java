@@ -0,0 +1,30 @@
+package com.cms.customer.service.query;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/** How a cursor listing reports the total number of customers. */
+public enum CountMode {
+
+    /** No total; the cheapest, as nothing but the page is read. */
+    NONE,
+    /** A fresh {@code COUNT(*)}, which scans an index of the whole table. */
+    EXACT,
+    /** A count cached for a short while, so most requests pay nothing for it. */
+    ESTIMATE;
+
+    public static CountMode fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NONE;
+        }
+        return Arrays.stream(values())
+                .filter(mode -> mode.name().equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown count mode '" + value.trim()
+                        + "', expected none, exact or estimate"));
+    }
+
+    public String getParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
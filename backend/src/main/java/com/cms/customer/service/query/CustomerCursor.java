@@ -0,0 +1,125 @@
+package com.cms.customer.service.query;
+
+import com.cms.customer.entity.Customer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Position in a customer listing ordered by one sort key and then by id: the
+ * key and id of the last customer returned. The next page starts right after
+ * it with an index seek, so it costs the same however deep it is, and rows
+ * inserted or deleted meanwhile do not shift it.
+ * <p>
+ * Encoded as an opaque URL-safe token that also carries the sort, so a
+ * client only has to pass it back.
+ */
+public final class CustomerCursor {
+
+    /** Keys a cursor can order by: never null, so every row has a position. */
+    public static final Set<CustomerField> SORT_KEYS = Collections.unmodifiableSet(EnumSet.of(
+            CustomerField.ID, CustomerField.FIRST_NAME, CustomerField.LAST_NAME, CustomerField.DATE_OF_BIRTH,
+            CustomerField.NIC));
+
+    private static final String VERSION = "1";
+
+    private final CustomerField sortKey;
+    private final boolean descending;
+    private final Object lastValue;
+    private final Long lastId;
+
+    private CustomerCursor(CustomerField sortKey, boolean descending, Object lastValue, Long lastId) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /** The start of a listing sorted by {@code sortBy}. */
+    public static CustomerCursor first(String sortBy, boolean descending) {
+        CustomerField sortKey = CustomerField.sortable(sortBy);
+        if (!SORT_KEYS.contains(sortKey)) {
+            throw new IllegalArgumentException("Cannot page customers by '" + sortBy + "' with a cursor, expected"
+                    + " any of id,firstName,lastName,dateOfBirth,nic");
+        }
+        return new CustomerCursor(sortKey, descending, null, null);
+    }
+
+    /** The position right after {@code customer}, which must have the sort key set. */
+    public CustomerCursor after(Customer customer) {
+        return new CustomerCursor(sortKey, descending, valueOf(customer), customer.getId());
+    }
+
+    public CustomerField getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /** @return {@code true} for the start of a listing, which has no last row */
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    /**
+     * @return the sort key of the last row returned, as a {@link String}, or
+     *         a {@link java.sql.Date} for the date of birth
+     */
+    public Object getLastValue() {
+        return lastValue;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String encode() {
+        String value = lastValue == null ? "" : lastValue.toString();
+        String token = String.join("|", VERSION, sortKey.getParam(), descending ? "d" : "a",
+                lastId == null ? "" : lastId.toString(), value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CustomerCursor decode(String token) {
+        try {
+            // The value goes last, so that it may itself contain the separator
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\|", 5);
+            if (parts.length != 5 || !VERSION.equals(parts[0]) || !Arrays.asList("a", "d").contains(parts[2])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            CustomerCursor first = first(parts[1], "d".equals(parts[2]));
+            if (parts[3].isEmpty()) {
+                return first;
+            }
+            Object value = first.sortKey == CustomerField.DATE_OF_BIRTH ? java.sql.Date.valueOf(parts[4]) : parts[4];
+            return new CustomerCursor(first.sortKey, first.descending, value, Long.valueOf(parts[3]));
+        } catch (IllegalArgumentException e) {
+            // Also covers malformed Base64, numbers and dates
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private Object valueOf(Customer customer) {
+        switch (sortKey) {
+            case FIRST_NAME:
+                return customer.getFirstName();
+            case LAST_NAME:
+                return customer.getLastName();
+            case NIC:
+                return customer.getNic();
+            case DATE_OF_BIRTH:
+                Date dateOfBirth = customer.getDateOfBirth();
+                return dateOfBirth instanceof java.sql.Date ? dateOfBirth : new java.sql.Date(dateOfBirth.getTime());
+            default:
+                return null;
+        }
+    }
+}
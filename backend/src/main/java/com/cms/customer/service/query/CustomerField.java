@@ -0,0 +1,73 @@
+package com.cms.customer.service.query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * An attribute a customer read can return. Scalars are columns of the
+ * customers table; associations are child rows, which are only queried when
+ * the field is requested.
+ */
+public enum CustomerField {
+
+    ID("id", true),
+    FIRST_NAME("firstName", true),
+    LAST_NAME("lastName", true),
+    DATE_OF_BIRTH("dateOfBirth", true),
+    NIC("nic", true),
+    EMAIL("email", true),
+    GENDER("gender", true),
+    ADDRESSES("addresses", false),
+    PHONE_NUMBERS("phoneNumbers", false),
+    FAMILY_MEMBER_IDS("familyMemberIds", false);
+
+    public static final Set<CustomerField> ALL = Collections.unmodifiableSet(EnumSet.allOf(CustomerField.class));
+
+    private final String param;
+    private final boolean scalar;
+
+    CustomerField(String param, boolean scalar) {
+        this.param = param;
+        this.scalar = scalar;
+    }
+
+    /** The name of the field in requests and in the JSON of a customer, which is also its entity attribute. */
+    public String getParam() {
+        return param;
+    }
+
+    public boolean isScalar() {
+        return scalar;
+    }
+
+    /**
+     * Parses a comma-separated list of field names (such as
+     * {@code firstName,nic}). The id is always included, as it identifies
+     * the customer; blank means every field.
+     */
+    public static Set<CustomerField> fromParam(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return ALL;
+        }
+        Set<CustomerField> fields = EnumSet.of(ID);
+        for (String name : value.split(",")) {
+            fields.add(Arrays.stream(values())
+                    .filter(f -> f.param.equalsIgnoreCase(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown customer field '" + name.trim()
+                            + "', expected any of " + ALL.stream().map(f -> f.param).collect(Collectors.joining(",")))));
+        }
+        return Collections.unmodifiableSet(fields);
+    }
+
+    /** Resolves a sort property to the scalar field it names. */
+    public static CustomerField sortable(String property) {
+        return Arrays.stream(values())
+                .filter(f -> f.scalar && f.param.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot sort customers by '" + property + "'"));
+    }
+}
@@ -2,6 +2,8 @@
 -- MariaDB/MySQL DDL Script
 
 -- Drop existing tables if they exist (in correct order due to foreign keys)
+DROP TABLE IF EXISTS id_blocks;
+DROP TABLE IF EXISTS import_checkpoints;
 DROP TABLE IF EXISTS customer_family_members;
 DROP TABLE IF EXISTS phone_numbers;
 DROP TABLE IF EXISTS addresses;
@@ -9,6 +11,12 @@ DROP TABLE IF EXISTS customers;
 DROP TABLE IF EXISTS cities;
 DROP TABLE IF EXISTS countries;
 
+-- Create Id Blocks Table (hi/lo allocator: next free id per table, reserved in blocks)
+CREATE TABLE id_blocks (
+    segment VARCHAR(64) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
 -- Create Countries Table
 CREATE TABLE countries (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -43,7 +51,11 @@ CREATE TABLE customers (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_nic (nic),
     INDEX idx_name (first_name, last_name),
-    INDEX idx_dob (date_of_birth)
+    INDEX idx_dob (date_of_birth),
+    INDEX idx_customer_updated_at (updated_at),
+    -- Cursor listings seek on (sort key, id); dob and nic indexes end in the primary key already
+    INDEX idx_customer_first_name_id (first_name, id),
+    INDEX idx_customer_last_name_id (last_name, id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Create Addresses Table
@@ -59,8 +71,9 @@ CREATE TABLE addresses (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
     FOREIGN KEY (city_id) REFERENCES cities(id) ON DELETE RESTRICT,
-    INDEX idx_customer_id (customer_id),
-    INDEX idx_city_id (city_id)
+    INDEX idx_address_customer_id (customer_id),
+    INDEX idx_city_id (city_id),
+    INDEX idx_address_updated_at (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Create Phone Numbers Table
@@ -73,8 +86,9 @@ CREATE TABLE phone_numbers (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
-    INDEX idx_customer_id (customer_id),
-    INDEX idx_phone (phone_number)
+    INDEX idx_phone_customer_id (customer_id),
+    INDEX idx_phone (phone_number),
+    INDEX idx_phone_updated_at (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 -- Create Customer Family Members Join Table
@@ -86,6 +100,25 @@ CREATE TABLE customer_family_members (
     PRIMARY KEY (customer_id, family_member_id),
     FOREIGN KEY (customer_id) REFERENCES customers(id) ON DELETE CASCADE,
     FOREIGN KEY (family_member_id) REFERENCES customers(id) ON DELETE CASCADE,
-    INDEX idx_customer_id (customer_id),
+    INDEX idx_family_customer_id (customer_id),
     INDEX idx_family_member_id (family_member_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Create Import Checkpoints Table (one row per imported file, keyed by content hash)
+CREATE TABLE import_checkpoints (
+    file_hash VARCHAR(64) PRIMARY KEY,
+    last_sheet VARCHAR(20) NOT NULL DEFAULT 'CUSTOMERS',
+    last_row INT NOT NULL,
+    rows_read BIGINT NOT NULL,
+    imported_count BIGINT NOT NULL,
+    skipped_duplicates BIGINT NOT NULL,
+    error_count BIGINT NOT NULL,
+    updated_count BIGINT NOT NULL DEFAULT 0,
+    mode VARCHAR(10) NOT NULL DEFAULT 'INSERT',
+    imported_addresses BIGINT NOT NULL DEFAULT 0,
+    imported_phone_numbers BIGINT NOT NULL DEFAULT 0,
+    imported_family_links BIGINT NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,216 @@
+package com.cms.customer.benchmark;
+
+import com.cms.customer.dto.ImportResultDTO;
+import com.cms.customer.index.NicPresenceIndex;
+import com.cms.customer.service.CustomerService;
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.importer.ImportProgress;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end import throughput against the in-memory H2 profile. Not part of
+ * the regular test run; start it with {@code mvn test -Pbenchmark}, tuning it
+ * through system properties:
+ * <ul>
+ *   <li>{@code benchmark.rows}: comma-separated file sizes, e.g. {@code 10000,100000,5000000}</li>
+ *   <li>{@code benchmark.formats}: {@code xlsx}, {@code csv} or both</li>
+ *   <li>{@code benchmark.duplicate-ratio}, {@code benchmark.error-ratio}: share of
+ *       rows repeating an earlier NIC or missing one</li>
+ *   <li>{@code benchmark.seed}: generator seed, keep it fixed to compare commits</li>
+ *   <li>{@code benchmark.warmup-rows}: rows imported before measuring, 0 for none</li>
+ *   <li>{@code benchmark.output}: JSON file the results are written to</li>
+ *   <li>{@code benchmark.commit}: label stored with the results, e.g. the commit id</li>
+ * </ul>
+ * XLSX files go through {@link CustomerService#importCustomersFromExcel}, as an
+ * upload would; CSV files through {@link CustomerService#importCustomers}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.com.cms.customer=INFO"
+})
+@ActiveProfiles("h2")
+@Tag("benchmark")
+class ImportBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportBenchmark.class);
+
+    @TestConfiguration
+    static class CountingConfig {
+
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NicPresenceIndex nicIndex;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testImportCustomers_Throughput() throws Exception {
+        // Arrange
+        List<Long> sizes = Arrays.stream(property("benchmark.rows", "10000,100000").split(","))
+                .map(String::trim)
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+        List<ImportFormat> formats = Arrays.stream(property("benchmark.formats", "xlsx,csv").split(","))
+                .map(format -> ImportFormat.valueOf(format.trim().toUpperCase(Locale.ROOT)))
+                .collect(Collectors.toList());
+        double duplicateRatio = Double.parseDouble(property("benchmark.duplicate-ratio", "0.01"));
+        double errorRatio = Double.parseDouble(property("benchmark.error-ratio", "0.01"));
+        long seed = Long.parseLong(property("benchmark.seed", "42"));
+        long warmupRows = Long.parseLong(property("benchmark.warmup-rows", "10000"));
+
+        ImportBenchmarkReport report = new ImportBenchmarkReport();
+        report.setCommit(System.getProperty("benchmark.commit"));
+        report.setStartedAt(Instant.now().toString());
+        report.setJavaVersion(System.getProperty("java.version"));
+        report.setAvailableProcessors(Runtime.getRuntime().availableProcessors());
+        report.setMaxHeapBytes(Runtime.getRuntime().maxMemory());
+
+        // Act
+        for (ImportFormat format : formats) {
+            if (warmupRows > 0) {
+                run(format, new ImportFileGenerator(warmupRows, duplicateRatio, errorRatio, seed));
+            }
+            for (long rows : sizes) {
+                ImportFileGenerator generator = new ImportFileGenerator(rows, duplicateRatio, errorRatio, seed);
+                ImportBenchmarkReport.Run run = run(format, generator);
+                run.setRows(rows);
+                run.setDuplicateRatio(duplicateRatio);
+                run.setErrorRatio(errorRatio);
+                run.setSeed(seed);
+                report.getRuns().add(run);
+                log.info("Imported {} {} rows: {} rows/s, {} statements/row, peak heap {} MB, GC {} ms",
+                        rows, format, Math.round(run.getRowsPerSecond()),
+                        String.format(Locale.ROOT, "%.3f", run.getStatementsPerRow()),
+                        run.getPeakHeapBytes() >> 20, run.getGcMillis());
+
+                // Assert: the numbers only mean something if the import did all its work
+                assertEquals(generator.getExpectedValidRows(), run.getImportedCount());
+            }
+        }
+
+        Path output = Paths.get(property("benchmark.output", "target/benchmark/import-benchmark.json"));
+        if (output.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report);
+        log.info("Benchmark results written to {}", output.toAbsolutePath());
+    }
+
+    private ImportBenchmarkReport.Run run(ImportFormat format, ImportFileGenerator generator) throws Exception {
+        Path file = tempDir.resolve("customers-" + System.nanoTime() + "." + format.name().toLowerCase(Locale.ROOT));
+        generator.write(format, file);
+        clearCustomers();
+
+        ImportBenchmarkReport.Run run = new ImportBenchmarkReport.Run();
+        run.setFormat(format.name());
+        run.setFileBytes(Files.size(file));
+        run.setExpectedValidRows(generator.getExpectedValidRows());
+
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        long statements = statementCounter.getExecutions();
+        long started = System.nanoTime();
+
+        ImportResultDTO result;
+        if (format == ImportFormat.XLSX) {
+            result = customerService.importCustomersFromExcel(new PathMultipartFile(file, format.getContentType()));
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                result = customerService.importCustomers(channel, format, null, ImportMode.INSERT, false,
+                        ImportProgress.NONE);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        long executed = statementCounter.getExecutions() - statements;
+        run.setElapsedMillis(elapsedNanos / 1_000_000);
+        run.setRowsPerSecond(generator.getRows() / (elapsedNanos / 1e9));
+        run.setPeakHeapBytes(heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum());
+        run.setGcCount(gcCount() - gcCount);
+        run.setGcMillis(gcMillis() - gcMillis);
+        run.setStatements(executed);
+        run.setStatementsPerRow((double) executed / generator.getRows());
+        run.setImportedCount(result.getImportedCount());
+        run.setErrorCount(result.getErrorCount());
+
+        Files.delete(file);
+        return run;
+    }
+
+    // Every run starts from an empty customer table and a NIC index built from it
+    private void clearCustomers() {
+        jdbcTemplate.update("DELETE FROM customer_family_members");
+        jdbcTemplate.update("DELETE FROM phone_numbers");
+        jdbcTemplate.update("DELETE FROM addresses");
+        jdbcTemplate.update("DELETE FROM customers");
+        jdbcTemplate.update("DELETE FROM import_checkpoints");
+        ReflectionTestUtils.invokeMethod(nicIndex, "rebuild");
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static String property(String name, String defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cms.customer.benchmark;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What one benchmark invocation writes as JSON: the environment it ran in and
+ * one entry per imported file.
+ */
+@Data
+@NoArgsConstructor
+public class ImportBenchmarkReport {
+
+    private String commit;
+    private String startedAt;
+    private String javaVersion;
+    private int availableProcessors;
+    private long maxHeapBytes;
+    private List<Run> runs = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Run {
+
+        private String format;
+        private long rows;
+        private double duplicateRatio;
+        private double errorRatio;
+        private long seed;
+        private long fileBytes;
+
+        private long expectedValidRows;
+        private long importedCount;
+        private long errorCount;
+
+        private long elapsedMillis;
+        private double rowsPerSecond;
+        // Sum of the per-pool peaks, so an upper bound on the heap in use at any one moment
+        private long peakHeapBytes;
+        private long gcCount;
+        private long gcMillis;
+        private long statements;
+        private double statementsPerRow;
+    }
+}
@@ -0,0 +1,190 @@
+package com.cms.customer.benchmark;
+
+import com.cms.customer.service.importer.CustomerRowParser;
+import com.cms.customer.service.importer.ImportFormat;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic customer import files for the benchmark. The same seed,
+ * size and ratios always give the same rows, so runs on different commits
+ * import identical data.
+ * <p>
+ * A {@code duplicateRatio} share of the rows repeats the NIC of an earlier row
+ * and an {@code errorRatio} share leaves the NIC blank; both are rejected by
+ * the import, so {@link #getExpectedValidRows()} is what should be stored.
+ */
+public class ImportFileGenerator {
+
+    private static final String[] FIRST_NAMES = { "Nimal", "Kamal", "Sunil", "Amara", "Dilani", "Ruwan",
+            "Chathura", "Ishara", "Tharindu", "Sanduni", "Kasun", "Nadeesha" };
+    private static final String[] LAST_NAMES = { "Perera", "Fernando", "Silva", "Jayasuriya", "Bandara",
+            "Wickramasinghe", "Dissanayake", "Gunawardena", "Rajapaksa", "Herath" };
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    private static final int BIRTH_DATE_SPAN_DAYS = 50 * 365;
+
+    private final long rows;
+    private final double duplicateRatio;
+    private final double errorRatio;
+    private final long seed;
+
+    private long expectedValidRows;
+
+    public ImportFileGenerator(long rows, double duplicateRatio, double errorRatio, long seed) {
+        if (rows < 1) {
+            throw new IllegalArgumentException("Row count must be positive: " + rows);
+        }
+        if (duplicateRatio < 0 || errorRatio < 0 || duplicateRatio + errorRatio >= 1) {
+            throw new IllegalArgumentException("Duplicate and error ratios must be non-negative and sum below 1");
+        }
+        this.rows = rows;
+        this.duplicateRatio = duplicateRatio;
+        this.errorRatio = errorRatio;
+        this.seed = seed;
+    }
+
+    public void write(ImportFormat format, Path file) throws IOException {
+        switch (format) {
+            case XLSX:
+                writeXlsx(file);
+                break;
+            case CSV:
+                writeCsv(file);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported benchmark format: " + format);
+        }
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return rows of the last written file that the import should accept
+     */
+    public long getExpectedValidRows() {
+        return expectedValidRows;
+    }
+
+    private void writeXlsx(Path file) throws IOException {
+        // Keeps a window of rows in memory and spills the rest to a temp file, so 5M rows fit in any heap
+        SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            workbook.setCompressTempFiles(true);
+            Sheet sheet = workbook.createSheet("Customers");
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < CustomerRowParser.COLUMN_COUNT; i++) {
+                header.createCell(i).setCellValue(CustomerRowParser.COLUMN_NAMES[i]);
+            }
+
+            RowWriter writer = new RowWriter();
+            for (int r = 1; r <= rows; r++) {
+                writer.next();
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue(writer.firstName);
+                row.createCell(1).setCellValue(writer.lastName);
+                Cell dateOfBirth = row.createCell(2);
+                dateOfBirth.setCellValue(toDate(writer.dateOfBirth));
+                dateOfBirth.setCellStyle(dateStyle);
+                if (writer.nic != null) {
+                    row.createCell(3).setCellValue(writer.nic);
+                }
+                row.createCell(4).setCellValue(writer.email);
+                row.createCell(5).setCellValue(writer.gender);
+            }
+            expectedValidRows = writer.issued;
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void writeCsv(Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(String.join(",", CustomerRowParser.COLUMN_NAMES));
+            out.newLine();
+
+            RowWriter writer = new RowWriter();
+            for (long r = 1; r <= rows; r++) {
+                writer.next();
+                out.write(writer.firstName);
+                out.write(',');
+                out.write(writer.lastName);
+                out.write(',');
+                out.write(writer.dateOfBirth.toString());
+                out.write(',');
+                if (writer.nic != null) {
+                    out.write(writer.nic);
+                }
+                out.write(',');
+                out.write(writer.email);
+                out.write(',');
+                out.write(writer.gender);
+                out.newLine();
+            }
+            expectedValidRows = writer.issued;
+        }
+    }
+
+    private static Date toDate(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /** Draws one row at a time from the seeded generator, the same sequence for every format. */
+    private class RowWriter {
+
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private long row;
+        // Distinct NICs handed out so far; each is the first occurrence of a valid row
+        private long issued;
+
+        private String firstName;
+        private String lastName;
+        private LocalDate dateOfBirth;
+        private String nic;
+        private String email;
+        private String gender;
+
+        void next() {
+            firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            dateOfBirth = FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_SPAN_DAYS));
+            gender = random.nextBoolean() ? "Male" : "Female";
+
+            row++;
+            double kind = random.nextDouble();
+            if (kind < errorRatio) {
+                nic = null;
+            } else if (kind < errorRatio + duplicateRatio && issued > 0) {
+                nic = nic(random.nextLong(issued));
+            } else {
+                nic = nic(issued++);
+            }
+            email = (firstName + "." + lastName + "." + row).toLowerCase() + "@example.com";
+        }
+
+        // New-format NIC: 12 digits, year of birth first
+        private String nic(long serial) {
+            return String.format("%04d%08d", 1950 + serial % 50, serial);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.cms.customer.benchmark;
+
+import com.cms.customer.service.importer.ImportFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportFileGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWrite_SameSeedGivesSameFile() throws Exception {
+        // Arrange
+        Path first = tempDir.resolve("first.csv");
+        Path second = tempDir.resolve("second.csv");
+
+        // Act
+        new ImportFileGenerator(1000, 0.05, 0.05, 7).write(ImportFormat.CSV, first);
+        new ImportFileGenerator(1000, 0.05, 0.05, 7).write(ImportFormat.CSV, second);
+
+        // Assert
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+    }
+
+    @Test
+    void testWrite_ExpectedValidRowsCountsFirstOccurrencesOfNics() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("customers.csv");
+        ImportFileGenerator generator = new ImportFileGenerator(5000, 0.1, 0.05, 42);
+
+        // Act
+        generator.write(ImportFormat.CSV, file);
+
+        // Assert
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(5001, lines.size());
+        Set<String> nics = new HashSet<>();
+        int blank = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            String nic = line.split(",", -1)[3];
+            if (nic.isEmpty()) {
+                blank++;
+            } else {
+                nics.add(nic);
+            }
+        }
+        assertEquals(nics.size(), generator.getExpectedValidRows());
+        assertTrue(blank > 0);
+        assertTrue(nics.size() + blank < 5000, "some rows should repeat an earlier NIC");
+    }
+}
@@ -0,0 +1,71 @@
+package com.cms.customer.benchmark;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A generated file handed to the import as an upload, read from disk on every
+ * {@link #getInputStream()} instead of being held in memory like
+ * {@code MockMultipartFile}, so that multi-million row files do not skew the
+ * heap figures.
+ */
+class PathMultipartFile implements MultipartFile {
+
+    private final Path file;
+    private final String contentType;
+
+    PathMultipartFile(Path file, String contentType) {
+        this.file = file;
+        this.contentType = contentType;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return file.getFileName().toString();
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the size of " + file, e);
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
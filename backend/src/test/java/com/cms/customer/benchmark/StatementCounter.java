@@ -0,0 +1,73 @@
+package com.cms.customer.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the statements sent to the database, whoever sends them (Hibernate,
+ * JdbcTemplate, the id allocator), by wrapping the application's
+ * {@link DataSource} in proxies. A JDBC batch counts as one round trip, as does
+ * each multi-row insert, which is what the import tries to minimise.
+ */
+public class StatementCounter implements BeanPostProcessor {
+
+    private final AtomicLong executions = new AtomicLong();
+
+    public long getExecutions() {
+        return executions.get();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            DataSource target = (DataSource) bean;
+            return proxy(DataSource.class, target, (method, result) ->
+                    result instanceof Connection ? proxy(Connection.class, (Connection) result, this::wrapStatement)
+                            : result);
+        }
+        return bean;
+    }
+
+    private Object wrapStatement(Method method, Object result) {
+        if (result instanceof PreparedStatement) {
+            return proxy(PreparedStatement.class, (PreparedStatement) result, this::countExecution);
+        }
+        if (result instanceof Statement) {
+            return proxy(Statement.class, (Statement) result, this::countExecution);
+        }
+        return result;
+    }
+
+    private Object countExecution(Method method, Object result) {
+        if (method.getName().startsWith("execute")) {
+            executions.incrementAndGet();
+        }
+        return result;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultMapper mapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return mapper.map(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(StatementCounter.class.getClassLoader(), new Class<?>[] { type },
+                handler));
+    }
+
+    @FunctionalInterface
+    private interface ResultMapper {
+        Object map(Method method, Object result);
+    }
+}
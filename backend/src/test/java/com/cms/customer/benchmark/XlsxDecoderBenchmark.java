@@ -0,0 +1,123 @@
+package com.cms.customer.benchmark;
+
+import com.cms.customer.service.importer.CustomerRowParser;
+import com.cms.customer.service.importer.ExcelRowSource;
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.RawRow;
+import com.cms.customer.service.importer.RowSource;
+import com.cms.customer.service.importer.XlsxRowSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the XLSX decoders: {@link XlsxRowSource} against the
+ * former xlsx-streamer path ({@link ExcelRowSource}). Each invocation decodes
+ * a generated workbook and parses its rows into customers, as the import's
+ * reader and parse workers do, so scores are rows per second. The GC profiler
+ * adds the allocation rate ({@code gc.alloc.rate.norm} is bytes per row).
+ * <p>
+ * Runs with the benchmark profile ({@code mvn test -Pbenchmark
+ * -Dtest=XlsxDecoderBenchmark}) or from {@link #main}; results are written to
+ * {@code benchmark.jmh-output} as JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Tag("benchmark")
+public class XlsxDecoderBenchmark {
+
+    static final int ROWS = 50_000;
+    private static final int CHUNK_SIZE = 500;
+
+    private final CustomerRowParser parser = new CustomerRowParser();
+    private Path workbook;
+
+    @Setup(Level.Trial)
+    public void writeWorkbook() throws IOException {
+        workbook = Files.createTempFile("cms-decoder-benchmark-", ".xlsx");
+        new ImportFileGenerator(ROWS, 0.01, 0.01, 42).write(ImportFormat.XLSX, workbook);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteWorkbook() throws IOException {
+        Files.deleteIfExists(workbook);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void xlsxStreamer(Blackhole blackhole) throws IOException {
+        decode(new ExcelRowSource(Files.newInputStream(workbook)), blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void sheetXml(Blackhole blackhole) throws IOException {
+        decode(new XlsxRowSource(Files.newInputStream(workbook)), blackhole);
+    }
+
+    private void decode(RowSource source, Blackhole blackhole) throws IOException {
+        try (RowSource rows = source) {
+            List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            RawRow row;
+            while ((row = rows.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    blackhole.consume(parser.parse(chunk));
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                blackhole.consume(parser.parse(chunk));
+            }
+        }
+    }
+
+    @Test
+    void testDecoders_Throughput() throws Exception {
+        main();
+    }
+
+    public static void main(String... args) throws Exception {
+        Path output = Paths.get(System.getProperty("benchmark.jmh-output", "target/benchmark/xlsx-decoder-jmh.json"));
+        if (output.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(output.toAbsolutePath().getParent());
+        }
+        Options options = new OptionsBuilder()
+                .include(XlsxDecoderBenchmark.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.toString())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,7 +1,21 @@
 package com.cms.customer.controller;
 
+import com.cms.customer.dto.CursorPageDTO;
 import com.cms.customer.dto.CustomerDTO;
+import com.cms.customer.dto.CustomerSuggestionDTO;
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.dto.ImportJobDTO;
+import com.cms.customer.exception.ImportRejectedException;
 import com.cms.customer.service.CustomerService;
+import com.cms.customer.service.ExportSnapshotService;
+import com.cms.customer.service.ImportJobService;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.exporter.ExportSnapshot;
+import com.cms.customer.service.importer.ImportJobStatus;
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.query.CountMode;
+import com.cms.customer.service.query.CustomerField;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,13 +25,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -34,6 +63,12 @@ class CustomerControllerTest {
     @MockBean
     private CustomerService customerService;
 
+    @MockBean
+    private ImportJobService importJobService;
+
+    @MockBean
+    private ExportSnapshotService exportSnapshotService;
+
     private CustomerDTO customerDTO;
 
     @BeforeEach
@@ -66,7 +101,7 @@ class CustomerControllerTest {
     @Test
     void testGetCustomer_Success() throws Exception {
         // Arrange
-        when(customerService.getCustomerById(1L)).thenReturn(customerDTO);
+        when(customerService.getCustomerById(1L, CustomerField.ALL)).thenReturn(customerDTO);
 
         // Act & Assert
         mockMvc.perform(get("/customers/1"))
@@ -80,7 +115,7 @@ class CustomerControllerTest {
     void testGetAllCustomers_Success() throws Exception {
         // Arrange
         Page<CustomerDTO> page = new PageImpl<>(Arrays.asList(customerDTO));
-        when(customerService.getAllCustomers(any())).thenReturn(page);
+        when(customerService.getAllCustomers(any(), eq(CustomerField.ALL))).thenReturn(page);
 
         // Act & Assert
         mockMvc.perform(get("/customers")
@@ -91,6 +126,71 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.data.content").isArray());
     }
 
+    @Test
+    void testGetAllCustomers_ReturnsOnlyRequestedFields() throws Exception {
+        // Arrange
+        Page<CustomerDTO> page = new PageImpl<>(Arrays.asList(customerDTO));
+        when(customerService.getAllCustomers(any(), eq(EnumSet.of(CustomerField.ID, CustomerField.FIRST_NAME,
+                CustomerField.NIC)))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/customers").param("fields", "firstName,nic"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].id").value(1))
+                .andExpect(jsonPath("$.data.content[0].firstName").value("John"))
+                .andExpect(jsonPath("$.data.content[0].nic").value("123456789V"))
+                .andExpect(jsonPath("$.data.content[0].email").doesNotExist())
+                .andExpect(jsonPath("$.data.content[0].addresses").doesNotExist());
+    }
+
+    @Test
+    void testScrollCustomers_ReturnsContinuationToken() throws Exception {
+        // Arrange
+        CursorPageDTO<CustomerDTO> page = new CursorPageDTO<>();
+        page.setContent(Arrays.asList(customerDTO));
+        page.setNextCursor("next");
+        page.setCountMode(CountMode.NONE);
+        when(customerService.scrollCustomers(argThat(cursor -> cursor.getSortKey() == CustomerField.LAST_NAME
+                && cursor.isFirst()), eq(20), eq(CustomerField.ALL), eq(CountMode.NONE))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/customers/scroll").param("size", "20").param("sortBy", "lastName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].nic").value("123456789V"))
+                .andExpect(jsonPath("$.data.nextCursor").value("next"))
+                .andExpect(jsonPath("$.data.totalElements").doesNotExist());
+    }
+
+    @Test
+    void testScrollCustomers_InvalidCursorIsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/customers/scroll").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSuggestCustomers_ReturnsIdDisplayPairs() throws Exception {
+        // Arrange
+        when(customerService.suggestCustomers("jo", 5))
+                .thenReturn(Arrays.asList(new CustomerSuggestionDTO(1L, "John Doe (123456789V)")));
+
+        // Act & Assert
+        mockMvc.perform(get("/customers/suggest").param("prefix", "jo").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value(1))
+                .andExpect(jsonPath("$.data[0].display").value("John Doe (123456789V)"));
+        mockMvc.perform(get("/customers/suggest").param("prefix", "jo").param("limit", "500"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetAllCustomers_UnknownFieldIsBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/customers").param("fields", "firstName,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
     @Test
     void testUpdateCustomer_Success() throws Exception {
         // Arrange
@@ -113,4 +213,166 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Customer deleted successfully"));
     }
+
+    @Test
+    void testImportCustomers_ReturnsAcceptedJob() throws Exception {
+        // Arrange
+        ImportJobDTO job = new ImportJobDTO();
+        job.setJobId("job-1");
+        job.setStatus(ImportJobStatus.QUEUED);
+        when(importJobService.submitImport(any(), eq(ImportMode.INSERT), eq(false))).thenReturn(job);
+
+        MockMultipartFile file = new MockMultipartFile("file", "customers.xlsx",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", new byte[] { 1 });
+
+        // Act & Assert
+        mockMvc.perform(multipart("/customers/import").file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/customers/import/job-1"))
+                .andExpect(jsonPath("$.data.jobId").value("job-1"))
+                .andExpect(jsonPath("$.data.status").value("QUEUED"));
+    }
+
+    @Test
+    void testImportCustomersStream_ReturnsFinishedJob() throws Exception {
+        // Arrange
+        ImportJobDTO job = new ImportJobDTO();
+        job.setJobId("job-2");
+        job.setStatus(ImportJobStatus.COMPLETED);
+        when(importJobService.importStream(any(), eq(14L), eq("text/csv"), eq("customers.csv"),
+                eq(ImportMode.UPSERT), eq(false))).thenReturn(job);
+
+        // Act & Assert
+        mockMvc.perform(post("/customers/import")
+                        .param("fileName", "customers.csv")
+                        .param("mode", "upsert")
+                        .contentType("text/csv")
+                        .content("firstName,nic\n"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Location", "http://localhost/customers/import/job-2"))
+                .andExpect(jsonPath("$.data.jobId").value("job-2"))
+                .andExpect(jsonPath("$.data.status").value("COMPLETED"));
+    }
+
+    @Test
+    void testImportCustomersStream_FailedJobIsServerError() throws Exception {
+        // Arrange
+        ImportJobDTO job = new ImportJobDTO();
+        job.setJobId("job-3");
+        job.setStatus(ImportJobStatus.FAILED);
+        job.setErrorMessage("Connection refused");
+        when(importJobService.importStream(any(), anyLong(), any(), any(), any(), anyBoolean())).thenReturn(job);
+
+        // Act & Assert
+        mockMvc.perform(post("/customers/import")
+                        .contentType("text/csv")
+                        .content("firstName,nic\n"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Import failed: Connection refused"))
+                .andExpect(jsonPath("$.data.status").value("FAILED"));
+    }
+
+    @Test
+    void testImportCustomersStream_NoFreeWorkerIsServiceUnavailable() throws Exception {
+        // Arrange
+        when(importJobService.importStream(any(), anyLong(), any(), any(), any(), anyBoolean()))
+                .thenThrow(new ImportRejectedException("No import worker is free, please retry later"));
+
+        // Act & Assert
+        mockMvc.perform(post("/customers/import")
+                        .contentType("text/csv")
+                        .content("firstName,nic\n"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void testExportCustomers_StreamsFilteredZipOfParts() throws Exception {
+        // Arrange
+        when(exportSnapshotService.getSnapshot(eq(ExportFormat.ZIP), any(), any()))
+                .thenAnswer(invocation -> new ExportSnapshot("k", ExportFormat.ZIP, invocation.getArgument(1),
+                        invocation.getArgument(2), false));
+        doAnswer(invocation -> {
+            invocation.getArgument(3, OutputStream.class).write("zip".getBytes());
+            return null;
+        }).when(customerService).exportCustomersToExcel(eq(ExportFormat.ZIP), argThat(filter ->
+                "doe".equals(filter.getKeyword())
+                        && LocalDateTime.of(2026, 10, 1, 0, 0).equals(filter.getUpdatedSince())),
+                eq(List.of(ExportColumn.NIC, ExportColumn.EMAIL)), any());
+
+        // Act
+        MvcResult started = mockMvc.perform(get("/customers/export")
+                        .param("format", "zip")
+                        .param("columns", "nic,email")
+                        .param("keyword", "doe")
+                        .param("updatedSince", "2026-10-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/zip"))
+                .andExpect(header().string("Content-Disposition",
+                        "form-data; name=\"attachment\"; filename=\"customers.zip\""))
+                .andExpect(content().string("zip"));
+    }
+
+    @Test
+    void testExportCustomers_MatchingETagIsNotModified() throws Exception {
+        // Arrange
+        ExportSnapshot snapshot = new ExportSnapshot("abc", ExportFormat.XLSX, new ExportFilterDTO(),
+                ExportColumn.ALL, true);
+        when(exportSnapshotService.getSnapshot(eq(ExportFormat.XLSX), any(), eq(ExportColumn.ALL)))
+                .thenReturn(snapshot);
+
+        // Act & Assert
+        mockMvc.perform(get("/customers/export").header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(content().string(""));
+        verify(exportSnapshotService, never()).getFile(any());
+    }
+
+    @Test
+    void testExportCustomers_CachedFileCarriesETag() throws Exception {
+        // Arrange
+        ExportSnapshot snapshot = new ExportSnapshot("abc", ExportFormat.XLSX, new ExportFilterDTO(),
+                ExportColumn.ALL, true);
+        Path file = Files.createTempFile("cms-export-test-", ".xlsx");
+        Files.write(file, "xlsx".getBytes());
+        when(exportSnapshotService.getSnapshot(eq(ExportFormat.XLSX), any(), eq(ExportColumn.ALL)))
+                .thenReturn(snapshot);
+        when(exportSnapshotService.findFile(snapshot)).thenReturn(Optional.of(file));
+
+        try {
+            // Act
+            MvcResult started = mockMvc.perform(get("/customers/export").header("If-None-Match", "\"old\""))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            // Assert
+            mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "\"abc\""))
+                    .andExpect(header().longValue("Content-Length", 4))
+                    .andExpect(content().string("xlsx"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void testCancelImportJob_Success() throws Exception {
+        // Arrange
+        ImportJobDTO job = new ImportJobDTO();
+        job.setJobId("job-1");
+        job.setStatus(ImportJobStatus.CANCELLED);
+        when(importJobService.cancelImportJob("job-1")).thenReturn(job);
+
+        // Act & Assert
+        mockMvc.perform(delete("/customers/import/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("CANCELLED"));
+    }
 }
@@ -0,0 +1,60 @@
+package com.cms.customer.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockIdAllocatorTest {
+
+    @Test
+    void testNext_HandsOutConsecutiveIdsWithinBlock() {
+        // Arrange
+        AtomicInteger reservations = new AtomicInteger();
+        BlockIdAllocator allocator = new BlockIdAllocator(size -> {
+            reservations.incrementAndGet();
+            return 1000;
+        }, 10);
+
+        // Act & Assert
+        for (long expected = 1000; expected < 1010; expected++) {
+            assertEquals(expected, allocator.next());
+        }
+        assertEquals(1, reservations.get());
+    }
+
+    @Test
+    void testNext_ConcurrentCallersNeverShareAnId() throws Exception {
+        // Arrange
+        AtomicLong table = new AtomicLong(1);
+        BlockIdAllocator allocator = new BlockIdAllocator(size -> table.getAndAdd(size), 50);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // Act
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    assertTrue(seen.add(allocator.next()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        // Assert
+        assertEquals(80_000, seen.size());
+    }
+}
@@ -0,0 +1,105 @@
+package com.cms.customer.index;
+
+import com.cms.customer.entity.Customer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerInvertedIndexTest {
+
+    private final CustomerInvertedIndex index = new CustomerInvertedIndex();
+
+    @Test
+    void testSearch_FindsKeywordAnywhereInAField() {
+        // Arrange
+        index.put(customer(1L, "Sonia", "Perera", "199012345678", "sonia@example.com"));
+        index.put(customer(2L, "Mark", "Johnson", "198811112222", null));
+        index.put(customer(3L, "Lisa", "Anderson", "199233334444", "lisa@mail.lk"));
+        index.put(customer(4L, "Nimal", "Silva", "200011112222", null));
+
+        // Act & Assert: a match at the start of a field ranks before matches inside one
+        assertArrayEquals(new long[] { 1L, 2L, 3L }, index.search("SON ", 0, 10).getCustomerIds());
+        assertArrayEquals(new long[] { 2L, 4L }, index.search("1111", 0, 10).getCustomerIds());
+        assertArrayEquals(new long[] { 3L }, index.search("@mail.", 0, 10).getCustomerIds());
+        // Shorter than a trigram
+        assertArrayEquals(new long[] { 4L, 1L }, index.search("ni", 0, 10).getCustomerIds());
+        // Fields are matched one at a time, as by the substring query
+        assertEquals(0, index.search("perera1990", 0, 10).getTotal());
+        assertEquals(0, index.search("xyz", 0, 10).getTotal());
+    }
+
+    @Test
+    void testSearch_RanksWholeFieldThenPrefixMatchesFirstAndPages() {
+        // Arrange
+        index.put(customer(1L, "Johnson", "Lee", null, null));
+        index.put(customer(2L, "Ann", "John", null, null));
+        index.put(customer(3L, "Johnny", "Cash", null, null));
+        index.put(customer(4L, "Mary", "Upjohn", null, null));
+
+        // Act
+        CustomerInvertedIndex.SearchPage first = index.search("john", 0, 2);
+        CustomerInvertedIndex.SearchPage second = index.search("john", 2, 2);
+
+        // Assert
+        assertArrayEquals(new long[] { 2L, 1L }, first.getCustomerIds());
+        assertArrayEquals(new long[] { 3L, 4L }, second.getCustomerIds());
+        assertEquals(4, first.getTotal());
+        assertEquals(0, index.search("john", 4, 2).getCustomerIds().length);
+        assertArrayEquals(new long[] { 1L, 2L, 3L, 4L }, index.findIds("john"));
+    }
+
+    @Test
+    void testPutAndRemove_ReplaceEarlierFields() {
+        // Arrange
+        index.put(customer(1L, "John", "Doe", null, null));
+
+        // Act
+        index.put(customer(1L, "John", "Perera", null, null));
+
+        // Assert
+        assertEquals(0, index.search("doe", 0, 10).getTotal());
+        assertArrayEquals(new long[] { 1L }, index.search("perera", 0, 10).getCustomerIds());
+        assertEquals(1, index.size());
+
+        // Act
+        index.remove(1L);
+
+        // Assert
+        assertEquals(0, index.search("john", 0, 10).getTotal());
+        assertEquals(0, index.findIds("jo").length);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testNeedsCompaction_OnceAQuarterIsStale() {
+        // Arrange
+        for (long id = 1; id <= 4000; id++) {
+            index.put(customer(id, "First" + id, "Last", null, null));
+        }
+        for (long id = 1; id <= 1300; id++) {
+            index.put(customer(id, "Renamed" + id, "Last", null, null));
+        }
+        assertFalse(index.needsCompaction());
+
+        // Act
+        for (long id = 1301; id <= 1400; id++) {
+            index.remove(id);
+        }
+
+        // Assert
+        assertTrue(index.needsCompaction());
+        assertEquals(3900, index.size());
+        assertEquals(1300, index.search("renamed", 0, 10).getTotal());
+        assertArrayEquals(new long[] { 4000L }, index.search("first4000", 0, 10).getCustomerIds());
+    }
+
+    private static Customer customer(Long id, String firstName, String lastName, String nic, String email) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setNic(nic);
+        customer.setEmail(email);
+        return customer;
+    }
+}
@@ -0,0 +1,98 @@
+package com.cms.customer.index;
+
+import com.cms.customer.entity.Customer;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerSearchIndexTest {
+
+    @Mock
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @InjectMocks
+    private CustomerSearchIndex searchIndex;
+
+    @Test
+    void testSearch_EmptyUntilLoaded() {
+        // Act
+        Optional<Page<Long>> result = searchIndex.search("john", PageRequest.of(0, 10));
+
+        // Assert
+        assertFalse(result.isPresent());
+        assertFalse(searchIndex.isReady());
+    }
+
+    @Test
+    void testSearch_PagesRankedMatchesAndFollowsWrites() {
+        // Arrange
+        loadIndex(customer(1L, "John", "Doe", "111V", "jd@example.com"),
+                customer(2L, "Johnny", "Cash", "222V", null),
+                customer(3L, "Jane", "Doe", "333V", "jane@example.com"));
+        searchIndex.put(customer(4L, "John", "Perera", "444V", null));
+        searchIndex.remove(3L);
+
+        // Act
+        Page<Long> first = searchIndex.search("john", PageRequest.of(0, 2)).get();
+        Page<Long> second = searchIndex.search("john", PageRequest.of(1, 2)).get();
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 4L), first.getContent());
+        assertEquals(Collections.singletonList(2L), second.getContent());
+        assertEquals(3, first.getTotalElements());
+        assertArrayEquals(new long[] { 1L, 2L, 4L }, searchIndex.findIds("john").get());
+        // Found inside a name
+        assertEquals(Arrays.asList(1L, 2L, 4L), searchIndex.search("oh", PageRequest.of(0, 5)).get().getContent());
+    }
+
+    @Test
+    void testSearch_AnswersMissesWithEmptyPage() {
+        // Arrange
+        loadIndex(customer(1L, "John", "Doe", "111V", "jd@example.com"));
+
+        // Act
+        Optional<Page<Long>> miss = searchIndex.search("jane", PageRequest.of(0, 10));
+
+        // Assert
+        assertTrue(miss.get().getContent().isEmpty());
+        assertEquals(0, miss.get().getTotalElements());
+        assertEquals(0, searchIndex.findIds("jane").get().length);
+        // Blank keywords are left to the unfiltered query
+        assertFalse(searchIndex.search(" ", PageRequest.of(0, 10)).isPresent());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadIndex(Customer... customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            Arrays.stream(customers).forEach(consumer);
+            return null;
+        }).when(customerJdbcRepository).forEachSearchText(any(Consumer.class));
+        searchIndex.rebuild();
+    }
+
+    private static Customer customer(Long id, String firstName, String lastName, String nic, String email) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setNic(nic);
+        customer.setEmail(email);
+        return customer;
+    }
+}
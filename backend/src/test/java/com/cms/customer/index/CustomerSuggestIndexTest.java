@@ -0,0 +1,95 @@
+package com.cms.customer.index;
+
+import com.cms.customer.dto.CustomerSuggestionDTO;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerSuggestIndexTest {
+
+    @Mock
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @InjectMocks
+    private CustomerSuggestIndex suggestIndex;
+
+    @Test
+    void testSuggest_EmptyUntilLoaded() {
+        // Act
+        List<CustomerSuggestionDTO> suggestions = suggestIndex.suggest("jo", 10);
+
+        // Assert
+        assertTrue(suggestions.isEmpty());
+        assertFalse(suggestIndex.isReady());
+    }
+
+    @Test
+    void testSuggest_MatchesNamePrefixesAndNicsInKeyOrder() {
+        // Arrange
+        loadIndex(customer(1L, "John", "Doe", "199012345678"),
+                customer(2L, "Jane", "Johnson", "198811112222"),
+                customer(3L, "Adam", "Smith", "199233334444"));
+
+        // Act & Assert: "johnson" is a last name, "john doe" a full name; each customer is listed once
+        assertEquals(Arrays.asList(1L, 2L), ids(suggestIndex.suggest("JOHN", 10)));
+        assertEquals(Arrays.asList(1L), ids(suggestIndex.suggest("john  d", 10)));
+        assertEquals(Arrays.asList(3L), ids(suggestIndex.suggest("19923", 10)));
+        assertEquals(Arrays.asList(2L, 1L), ids(suggestIndex.suggest("j", 2)));
+        assertEquals("John Doe (199012345678)", suggestIndex.suggest("john", 1).get(0).getDisplay());
+        assertTrue(suggestIndex.suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    void testSuggest_FollowsWritesUntilTheNextRebuild() {
+        // Arrange
+        loadIndex(customer(1L, "John", "Doe", "199012345678"),
+                customer(2L, "Jane", "Johnson", "198811112222"));
+
+        // Act: 1 is renamed, 2 deleted, 4 created
+        suggestIndex.put(customer(1L, "Peter", "Doe", "199012345678"));
+        suggestIndex.remove(2L);
+        suggestIndex.put(customer(4L, "Johnny", "Cash", "197011112222"));
+
+        // Assert
+        assertEquals(Arrays.asList(4L), ids(suggestIndex.suggest("john", 10)));
+        assertEquals(Arrays.asList(1L), ids(suggestIndex.suggest("pet", 10)));
+        assertEquals(Arrays.asList(1L), ids(suggestIndex.suggest("doe", 10)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadIndex(Customer... customers) {
+        doAnswer(invocation -> {
+            Consumer<Customer> consumer = invocation.getArgument(0);
+            Arrays.stream(customers).forEach(consumer);
+            return null;
+        }).when(customerJdbcRepository).forEachSearchText(any(Consumer.class));
+        suggestIndex.rebuild();
+    }
+
+    private static List<Long> ids(List<CustomerSuggestionDTO> suggestions) {
+        return suggestions.stream().map(CustomerSuggestionDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Customer customer(Long id, String firstName, String lastName, String nic) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setNic(nic);
+        return customer;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cms.customer.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NicBloomFilterTest {
+
+    @Test
+    void testMightContain_NeverMissesAddedNicsAndKeepsTargetRate() {
+        // Arrange
+        NicBloomFilter filter = new NicBloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("NIC-" + i);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("NIC-" + i));
+            if (filter.mightContain("OTHER-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert: the power-of-two rounding only ever adds bits, so the rate stays at or under target
+        assertTrue(falsePositives < 1_000, "false positives: " + falsePositives);
+        assertEquals(100_000, filter.getInsertions());
+    }
+
+    @Test
+    void testMightContain_MatchesNicsAsTheCollationCompares() {
+        // Arrange
+        NicBloomFilter filter = new NicBloomFilter(1_000, 0.01);
+
+        // Act
+        filter.add("123456789v");
+
+        // Assert
+        assertTrue(filter.mightContain("123456789V"));
+        assertTrue(filter.mightContain(" 123456789V "));
+    }
+}
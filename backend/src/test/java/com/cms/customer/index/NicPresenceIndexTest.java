@@ -0,0 +1,95 @@
+package com.cms.customer.index;
+
+import com.cms.customer.dto.NicIndexStatsDTO;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import com.cms.customer.repository.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NicPresenceIndexTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @InjectMocks
+    private NicPresenceIndex nicIndex;
+
+    @Test
+    void testExists_FallsBackToDatabaseUntilLoaded() {
+        // Act
+        boolean exists = nicIndex.exists("NIC-1", nic -> true);
+
+        // Assert
+        assertTrue(exists);
+        assertFalse(nicIndex.getStats().isReady());
+        assertEquals(1, nicIndex.getStats().getBypassed());
+    }
+
+    @Test
+    void testFindExisting_QueriesOnlyNicsTheFilterCannotRuleOut() {
+        // Arrange: NIC-1 is stored, NIC-NEW is added after the index is loaded
+        loadIndex("NIC-1", "NIC-2");
+        nicIndex.add("NIC-NEW");
+        List<String> queried = new ArrayList<>();
+
+        // Act
+        Set<String> existing = nicIndex.findExisting(Arrays.asList("NIC-1", "NIC-NEW", "NIC-ABSENT"), nics -> {
+            queried.addAll(nics);
+            return new HashSet<>(Arrays.asList("NIC-1"));
+        });
+
+        // Assert
+        assertEquals(Set.of("NIC-1"), existing);
+        assertEquals(Arrays.asList("NIC-1", "NIC-NEW"), queried);
+        NicIndexStatsDTO stats = nicIndex.getStats();
+        assertTrue(stats.isReady());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        // NIC-NEW was added but the lookup did not find it, e.g. its transaction rolled back
+        assertEquals(1, stats.getFalsePositives());
+    }
+
+    @Test
+    void testExists_DefiniteNegativeSkipsLookup() {
+        // Arrange
+        loadIndex("NIC-1");
+
+        // Act
+        boolean exists = nicIndex.exists("NIC-ABSENT", nic -> {
+            throw new AssertionError("lookup must not run");
+        });
+
+        // Assert
+        assertFalse(exists);
+        assertEquals(1, nicIndex.getStats().getMisses());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void loadIndex(String... nics) {
+        when(customerRepository.count()).thenReturn((long) nics.length);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            Arrays.stream(nics).forEach(consumer);
+            return null;
+        }).when(customerJdbcRepository).forEachNic(any(Consumer.class));
+        nicIndex.rebuild();
+    }
+}
@@ -0,0 +1,194 @@
+package com.cms.customer.repository;
+
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import com.cms.customer.service.exporter.ExportColumn;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ CustomerExportRepository.class, CustomerJdbcRepository.class })
+class CustomerExportRepositoryTest {
+
+    private static final List<ExportColumn> ALL = ExportColumn.ALL;
+
+    @Autowired
+    private CustomerExportRepository customerExportRepository;
+
+    @Autowired
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Test
+    void testFindChunk_PagesWithinIdRangeAndLoadsPrimaryPhones() {
+        // Arrange: five customers, the second with a primary and a secondary phone
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("First" + i);
+            customer.setLastName("Last" + i);
+            customer.setDateOfBirth(new Date());
+            customer.setNic("EXP-" + i);
+            customers.add(customer);
+        }
+        customerJdbcRepository.insertCustomers(customers);
+
+        PhoneNumber secondary = new PhoneNumber();
+        secondary.setCustomer(customers.get(1));
+        secondary.setPhoneNumber("0110000000");
+        PhoneNumber primary = new PhoneNumber();
+        primary.setCustomer(customers.get(1));
+        primary.setPhoneNumber("0771234567");
+        primary.setIsPrimary(true);
+        customerJdbcRepository.insertPhoneNumbers(List.of(secondary, primary));
+
+        // Act
+        long[] idRange = customerExportRepository.findIdRange(null, null);
+        long toId = idRange[1];
+        List<Customer> first = customerExportRepository.findChunk(0, toId, 2, null, null, ALL);
+        List<Customer> second = customerExportRepository.findChunk(first.get(1).getId(), toId, 2, null, null, ALL);
+        List<Customer> third = customerExportRepository.findChunk(second.get(1).getId(), toId, 2, null, null, ALL);
+        List<Customer> end = customerExportRepository.findChunk(third.get(0).getId(), toId, 2, null, null, ALL);
+        List<Customer> bounded = customerExportRepository.findChunk(0, first.get(1).getId(), 10, null, null, ALL);
+
+        // Assert
+        assertEquals(List.of("EXP-0", "EXP-1"), List.of(first.get(0).getNic(), first.get(1).getNic()));
+        assertEquals(List.of("EXP-2", "EXP-3"), List.of(second.get(0).getNic(), second.get(1).getNic()));
+        assertEquals(1, third.size());
+        assertTrue(end.isEmpty());
+        assertEquals(2, bounded.size());
+        assertEquals(customers.get(0).getId(), idRange[0]);
+        assertEquals(customers.get(4).getId(), idRange[1]);
+
+        assertTrue(first.get(0).getPhoneNumbers().isEmpty());
+        assertEquals(1, first.get(1).getPhoneNumbers().size());
+        assertEquals("0771234567", first.get(1).getPhoneNumbers().iterator().next().getPhoneNumber());
+        assertTrue(first.get(1).getAddresses().isEmpty());
+    }
+    @Test
+    void testFindChunk_AppliesSearchDateOfBirthAndUpdatedSinceFilters() {
+        // Arrange
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName(i % 2 == 0 ? "Nimal" : "Kamal");
+            customer.setLastName("Perera");
+            customer.setDateOfBirth(java.sql.Date.valueOf(LocalDate.of(1990 + i, 1, 1)));
+            customer.setNic("FLT-" + i);
+            customers.add(customer);
+        }
+        customerJdbcRepository.insertCustomers(customers);
+        PhoneNumber phone = new PhoneNumber();
+        phone.setCustomer(customers.get(2));
+        phone.setPhoneNumber("0771234567");
+        phone.setIsPrimary(true);
+        customerJdbcRepository.insertPhoneNumbers(List.of(phone));
+
+        ExportFilterDTO byName = new ExportFilterDTO();
+        byName.setKeyword("NIMAL");
+        ExportFilterDTO byBirth = new ExportFilterDTO();
+        byBirth.setDateOfBirthFrom(LocalDate.of(1991, 1, 1));
+        byBirth.setDateOfBirthTo(LocalDate.of(1992, 1, 1));
+        ExportFilterDTO future = new ExportFilterDTO();
+        future.setUpdatedSince(LocalDateTime.now().plusDays(1));
+
+        // Act
+        List<Customer> named = customerExportRepository.findChunk(0, Long.MAX_VALUE, 10, byName, null, ALL);
+        List<Customer> born = customerExportRepository.findChunk(0, Long.MAX_VALUE, 10, byBirth, null, ALL);
+        List<Customer> changed = customerExportRepository.findChunk(0, Long.MAX_VALUE, 10, future, null, ALL);
+
+        // Assert
+        assertEquals(List.of("FLT-0", "FLT-2"), List.of(named.get(0).getNic(), named.get(1).getNic()));
+        assertEquals(2, named.size());
+        assertEquals("0771234567", named.get(1).getPhoneNumbers().iterator().next().getPhoneNumber());
+        assertEquals(List.of("FLT-1", "FLT-2"), List.of(born.get(0).getNic(), born.get(1).getNic()));
+        assertTrue(changed.isEmpty());
+        assertNull(customerExportRepository.findIdRange(future, null));
+        assertArrayEquals(new long[] { customers.get(0).getId(), customers.get(2).getId() },
+                customerExportRepository.findIdRange(byName, null));
+    }
+    @Test
+    void testFindChunk_ReadsKeywordMatchesThroughTheOtherFilters() {
+        // Arrange
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("Nimal");
+            customer.setLastName("Perera");
+            customer.setDateOfBirth(java.sql.Date.valueOf(LocalDate.of(1990 + i, 1, 1)));
+            customer.setNic("KWM-" + i);
+            customers.add(customer);
+        }
+        customerJdbcRepository.insertCustomers(customers);
+        // As the search index would resolve the keyword: ids only, the keyword itself is not matched again
+        long[] matches = { customers.get(0).getId(), customers.get(1).getId(), customers.get(3).getId() };
+        ExportFilterDTO byBirth = new ExportFilterDTO();
+        byBirth.setKeyword("no such text");
+        byBirth.setDateOfBirthFrom(LocalDate.of(1991, 1, 1));
+        byBirth.setDateOfBirthTo(LocalDate.of(1992, 1, 1));
+
+        // Act: one match per slice, so the first slice is rejected by the birth dates
+        List<Customer> first = customerExportRepository.findChunk(0, Long.MAX_VALUE, 1, byBirth, matches, ALL);
+        List<Customer> end = customerExportRepository.findChunk(first.get(0).getId(), Long.MAX_VALUE, 1, byBirth,
+                matches, ALL);
+
+        // Assert
+        assertEquals(1, first.size());
+        assertEquals("KWM-1", first.get(0).getNic());
+        assertTrue(end.isEmpty());
+        assertEquals(customers.get(1).getId(), customerExportRepository.findIdRange(byBirth, matches)[0]);
+        assertNull(customerExportRepository.findIdRange(byBirth, new long[0]));
+    }
+
+    @Test
+    void testFindChangeWatermark_ReadsLatestChangesAndDataVersion() {
+        // Act
+        CustomerExportRepository.ChangeWatermark all = customerExportRepository.findChangeWatermark(ALL, "v.1");
+        CustomerExportRepository.ChangeWatermark nics = customerExportRepository.findChangeWatermark(
+                ExportColumn.fromParam("nic"), "v.2");
+
+        // Assert: nothing stored yet, so every table reports no change
+        assertEquals("version:v.1;customers:0;phone_numbers:0;addresses:0", all.getValue());
+        assertEquals("version:v.2;customers:0", nics.getValue());
+        assertEquals(0, all.getLatestChange());
+    }
+
+    @Test
+    void testFindChunk_ReadsOnlyRequestedColumns() {
+        // Arrange
+        Customer stored = new Customer();
+        stored.setFirstName("Nimal");
+        stored.setLastName("Perera");
+        stored.setDateOfBirth(new Date());
+        stored.setNic("PRJ-1");
+        stored.setEmail("nimal@example.com");
+        customerJdbcRepository.insertCustomers(List.of(stored));
+        PhoneNumber phone = new PhoneNumber();
+        phone.setCustomer(stored);
+        phone.setPhoneNumber("0771234567");
+        phone.setIsPrimary(true);
+        customerJdbcRepository.insertPhoneNumbers(List.of(phone));
+
+        // Act
+        Customer found = customerExportRepository.findChunk(0, Long.MAX_VALUE, 10, null, null,
+                ExportColumn.fromParam("nic,email")).get(0);
+
+        // Assert
+        assertEquals(stored.getId(), found.getId());
+        assertEquals("PRJ-1", found.getNic());
+        assertEquals("nimal@example.com", found.getEmail());
+        assertNull(found.getFirstName());
+        assertNull(found.getDateOfBirth());
+        assertTrue(found.getPhoneNumbers().isEmpty());
+    }
+}
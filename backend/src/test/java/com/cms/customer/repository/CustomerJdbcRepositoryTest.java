@@ -0,0 +1,147 @@
+package com.cms.customer.repository;
+
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(CustomerJdbcRepository.class)
+class CustomerJdbcRepositoryTest {
+
+    @Autowired
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    void testInsertCustomers_AssignsGeneratedIdsAcrossStatements() {
+        // Arrange: more rows than one multi-row statement holds
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CustomerJdbcRepository.ROWS_PER_STATEMENT + 3; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("First" + i);
+            customer.setLastName("Last" + i);
+            customer.setDateOfBirth(new Date());
+            customer.setNic("BULK-" + i);
+            customers.add(customer);
+        }
+
+        // Act
+        customerJdbcRepository.insertCustomers(customers);
+
+        // Assert
+        assertEquals(customers.size(), customerRepository.count());
+        for (Customer customer : customers) {
+            assertNotNull(customer.getId());
+            assertEquals(customer.getNic(), customerRepository.findById(customer.getId()).get().getNic());
+        }
+    }
+
+    @Test
+    void testFindExistingNics_PadsLookupsAcrossBatchSizes() {
+        // Arrange: more NICs than the largest padded lookup, half of them stored
+        int largest = CustomerJdbcRepository.NIC_LOOKUP_SIZES[CustomerJdbcRepository.NIC_LOOKUP_SIZES.length - 1];
+        List<Customer> customers = new ArrayList<>();
+        List<String> nics = new ArrayList<>();
+        for (int i = 0; i < largest + 20; i++) {
+            nics.add("PAD-" + i);
+            if (i % 2 == 0) {
+                Customer customer = new Customer();
+                customer.setFirstName("First" + i);
+                customer.setLastName("Last" + i);
+                customer.setDateOfBirth(new Date());
+                customer.setNic("PAD-" + i);
+                customers.add(customer);
+            }
+        }
+        customerJdbcRepository.insertCustomers(customers);
+
+        // Act
+        Set<String> existing = customerJdbcRepository.findExistingNics(nics);
+
+        // Assert
+        assertEquals(customers.stream().map(Customer::getNic).collect(Collectors.toSet()), existing);
+        assertEquals(16, CustomerJdbcRepository.paddedLookupSize(9));
+        assertEquals(1, CustomerJdbcRepository.paddedLookupSize(1));
+    }
+
+    @Test
+    void testUpdateCustomers_RewritesMatchedRowsOnly() {
+        // Arrange
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < CustomerJdbcRepository.UPDATE_ROWS_PER_STATEMENT + 2; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("First" + i);
+            customer.setLastName("Last" + i);
+            customer.setDateOfBirth(new Date());
+            customer.setNic("UPD-" + i);
+            customers.add(customer);
+        }
+        customerJdbcRepository.insertCustomers(customers);
+
+        Map<String, Customer> stored = customerJdbcRepository.findByNics(
+                customers.stream().map(Customer::getNic).collect(Collectors.toList()));
+        List<Customer> changed = new ArrayList<>();
+        for (int i = 1; i < customers.size(); i++) {
+            Customer customer = stored.get("UPD-" + i);
+            customer.setEmail("changed" + i + "@example.com");
+            changed.add(customer);
+        }
+
+        // Act
+        customerJdbcRepository.updateCustomers(changed);
+
+        // Assert
+        Map<String, Customer> reloaded = customerJdbcRepository.findByNics(List.of("UPD-0", "UPD-1", "UPD-101"));
+        assertNull(reloaded.get("UPD-0").getEmail());
+        assertEquals("changed1@example.com", reloaded.get("UPD-1").getEmail());
+        assertEquals("changed101@example.com", reloaded.get("UPD-101").getEmail());
+        assertEquals("Last101", reloaded.get("UPD-101").getLastName());
+    }
+
+    @Test
+    void testInsertPhoneNumbersAndFamilyLinks_AreFoundByKey() {
+        // Arrange
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Customer customer = new Customer();
+            customer.setFirstName("First" + i);
+            customer.setLastName("Last" + i);
+            customer.setDateOfBirth(new Date());
+            customer.setNic("REL-" + i);
+            customers.add(customer);
+        }
+        customerJdbcRepository.insertCustomers(customers);
+        Map<String, Long> ids = customerJdbcRepository.findIdsByNics(List.of("REL-0", "REL-1"));
+
+        PhoneNumber phone = new PhoneNumber();
+        phone.setCustomer(customers.get(0));
+        phone.setPhoneNumber("0771234567");
+
+        // Act
+        customerJdbcRepository.insertPhoneNumbers(List.of(phone));
+        customerJdbcRepository.insertFamilyLinks(List.of(
+                new long[] { ids.get("REL-0"), ids.get("REL-1") },
+                new long[] { ids.get("REL-1"), ids.get("REL-0") }));
+
+        // Assert
+        assertNotNull(phone.getId());
+        assertEquals(Set.of(ids.get("REL-0") + ":0771234567"),
+                customerJdbcRepository.findPhoneNumberKeys(List.of(ids.get("REL-0"))));
+        assertEquals(Set.of(ids.get("REL-0") + ":" + ids.get("REL-1"), ids.get("REL-1") + ":" + ids.get("REL-0")),
+                customerJdbcRepository.findFamilyLinkKeys(ids.values()));
+    }
+}
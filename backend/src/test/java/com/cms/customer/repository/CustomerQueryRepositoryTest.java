@@ -0,0 +1,179 @@
+package com.cms.customer.repository;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.City;
+import com.cms.customer.entity.Country;
+import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.PhoneNumber;
+import com.cms.customer.service.query.CustomerCursor;
+import com.cms.customer.service.query.CustomerField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(CustomerQueryRepository.class)
+class CustomerQueryRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CustomerQueryRepository customerQueryRepository;
+
+    private Customer jane;
+    private Customer adam;
+
+    @BeforeEach
+    void setUp() {
+        // Two customers linked as family, Jane with an address and a phone number
+        Country country = new Country();
+        country.setName("Sri Lanka");
+        country.setCode("LK");
+        City city = new City();
+        city.setName("Colombo");
+        city.setCountry(country);
+        entityManager.persist(country);
+        entityManager.persist(city);
+
+        jane = customer("Jane", "987654321V");
+        adam = customer("Adam", "123456789V");
+        Address address = new Address();
+        address.setAddressLine1("1 Main Street");
+        address.setCity(city);
+        jane.addAddress(address);
+        PhoneNumber phone = new PhoneNumber();
+        phone.setPhoneNumber("0771234567");
+        jane.addPhoneNumber(phone);
+        jane.addFamilyMember(adam);
+        entityManager.persist(adam);
+        entityManager.persist(jane);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindPage_MatchesKeywordInsideAWord() {
+        // Act: "ANE" starts no word of Jane's, but is inside her first name
+        Page<Customer> page = customerQueryRepository.findPage(EnumSet.of(CustomerField.FIRST_NAME), " ANE ",
+                PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Jane", page.getContent().get(0).getFirstName());
+        // Wildcards are matched literally, as the search index matches them
+        assertEquals(0, customerQueryRepository.findPage(EnumSet.of(CustomerField.FIRST_NAME), "j_ne",
+                PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    void testFindPage_ProjectsRequestedScalarsInSortOrder() {
+        // Arrange
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID, CustomerField.FIRST_NAME);
+
+        // Act
+        Page<Customer> page = customerQueryRepository.findPage(fields, null,
+                PageRequest.of(0, 10, Sort.by("firstName")));
+        Page<Customer> found = customerQueryRepository.findPage(fields, "JANE", PageRequest.of(0, 10));
+
+        // Assert
+        assertEquals(2, page.getTotalElements());
+        assertEquals(Arrays.asList("Adam", "Jane"),
+                page.getContent().stream().map(Customer::getFirstName).collect(Collectors.toList()));
+        assertNull(page.getContent().get(0).getNic());
+        assertEquals(Collections.singletonList(jane.getId()),
+                found.getContent().stream().map(Customer::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFindAfter_SeeksThroughTiesInBothDirections() {
+        // Arrange: a third customer sharing Jane's first name, so pages break inside a tie
+        Customer other = entityManager.persistFlushFind(customer("Jane", "555555555V"));
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID);
+
+        for (boolean descending : new boolean[] { false, true }) {
+            // Act: pages of one
+            List<Long> seen = new ArrayList<>();
+            CustomerCursor cursor = CustomerCursor.first("firstName", descending);
+            List<Customer> page;
+            while (!(page = customerQueryRepository.findAfter(cursor, fields, 1)).isEmpty()) {
+                seen.add(page.get(0).getId());
+                cursor = cursor.after(page.get(0));
+            }
+
+            // Assert
+            List<Long> ascending = Arrays.asList(adam.getId(), Math.min(jane.getId(), other.getId()),
+                    Math.max(jane.getId(), other.getId()));
+            List<Long> expected = new ArrayList<>(ascending);
+            if (descending) {
+                Collections.reverse(expected);
+            }
+            assertEquals(expected, seen);
+        }
+    }
+
+    @Test
+    void testFindByIds_KeepsRequestedOrderAndSkipsMissingIds() {
+        // Act
+        List<Customer> customers = customerQueryRepository.findByIds(
+                Arrays.asList(jane.getId(), -1L, adam.getId()), EnumSet.of(CustomerField.ID, CustomerField.NIC));
+
+        // Assert
+        assertEquals(Arrays.asList(jane.getId(), adam.getId()),
+                customers.stream().map(Customer::getId).collect(Collectors.toList()));
+        assertEquals(jane.getNic(), customers.get(0).getNic());
+        assertNull(customers.get(0).getFirstName());
+    }
+
+    @Test
+    void testFindPage_RejectsUnknownSortProperty() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> customerQueryRepository.findPage(CustomerField.ALL,
+                null, PageRequest.of(0, 10, Sort.by("addresses"))));
+    }
+
+    @Test
+    void testFindAssociations_GroupedByCustomer() {
+        // Arrange
+        List<Long> ids = Arrays.asList(jane.getId(), adam.getId());
+
+        // Act
+        Map<Long, List<Address>> addresses = customerQueryRepository.findAddresses(ids);
+        Map<Long, List<PhoneNumber>> phoneNumbers = customerQueryRepository.findPhoneNumbers(ids);
+        Map<Long, Set<Long>> familyMemberIds = customerQueryRepository.findFamilyMemberIds(ids);
+
+        // Assert
+        assertEquals("Colombo", addresses.get(jane.getId()).get(0).getCity().getName());
+        assertFalse(addresses.containsKey(adam.getId()));
+        assertEquals("0771234567", phoneNumbers.get(jane.getId()).get(0).getPhoneNumber());
+        assertEquals(Collections.singleton(adam.getId()), familyMemberIds.get(jane.getId()));
+        assertEquals(Collections.singleton(jane.getId()), familyMemberIds.get(adam.getId()));
+    }
+
+    private static Customer customer(String firstName, String nic) {
+        Customer customer = new Customer();
+        customer.setFirstName(firstName);
+        customer.setLastName("Smith");
+        customer.setNic(nic);
+        customer.setDateOfBirth(new Date());
+        return customer;
+    }
+}
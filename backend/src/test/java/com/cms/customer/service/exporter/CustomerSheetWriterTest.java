@@ -0,0 +1,85 @@
+package com.cms.customer.service.exporter;
+
+import com.cms.customer.entity.Customer;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSheetWriterTest {
+
+    @Test
+    void testWrite_RollsOverToNewSheetAtRowLimit() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act: five rows with room for two per sheet
+        try (CustomerSheetWriter writer = new CustomerSheetWriter("Customers", ExportColumn.ALL, 2)) {
+            for (long id = 1; id <= 5; id++) {
+                writer.write(customer(id));
+            }
+            writer.writeTo(out);
+            assertEquals(5, writer.getRowsWritten());
+        }
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("Customers", workbook.getSheetName(0));
+            assertEquals("Customers (3)", workbook.getSheetName(2));
+            XSSFSheet last = workbook.getSheetAt(2);
+            assertEquals("NIC", last.getRow(0).getCell(4).getStringCellValue());
+            assertEquals(5d, last.getRow(1).getCell(0).getNumericCellValue());
+            assertNull(last.getRow(2));
+            assertEquals(2, workbook.getSheetAt(1).getLastRowNum());
+            assertEquals(workbook.getSheetAt(0).getColumnWidth(4), last.getColumnWidth(4));
+        }
+    }
+
+    @Test
+    void testWrite_WritesOnlyChosenColumnsInOrder() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Customer customer = customer(7);
+        customer.setEmail("first7@example.com");
+
+        // Act
+        try (CustomerSheetWriter writer = new CustomerSheetWriter("Customers",
+                ExportColumn.fromParam("email, nic"))) {
+            writer.write(customer);
+            writer.writeTo(out);
+        }
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheetAt(0);
+            assertEquals("Email", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("NIC", sheet.getRow(0).getCell(1).getStringCellValue());
+            assertEquals(2, sheet.getRow(1).getLastCellNum());
+            assertEquals("first7@example.com", sheet.getRow(1).getCell(0).getStringCellValue());
+            assertEquals("NIC-7", sheet.getRow(1).getCell(1).getStringCellValue());
+        }
+    }
+
+    @Test
+    void testFromParam_RejectsUnknownColumns() {
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExportColumn.fromParam("nic,salary"));
+        assertTrue(e.getMessage().contains("salary"));
+    }
+
+    private static Customer customer(long id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setFirstName("First" + id);
+        customer.setLastName("Last" + id);
+        customer.setNic("NIC-" + id);
+        return customer;
+    }
+}
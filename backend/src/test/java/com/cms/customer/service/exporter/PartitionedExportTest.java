@@ -0,0 +1,133 @@
+package com.cms.customer.service.exporter;
+
+import com.cms.customer.entity.Customer;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedExportTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testSplit_CoversIdRangeInEqualWidthRanges() {
+        // Act
+        List<long[]> ranges = PartitionedExport.split(new long[] { 11, 20 }, 3);
+        List<long[]> single = PartitionedExport.split(new long[] { 5, 5 }, 4);
+        List<long[]> empty = PartitionedExport.split(null, 4);
+
+        // Assert
+        assertEquals(3, ranges.size());
+        assertArrayEquals(new long[] { 10, 14 }, ranges.get(0));
+        assertArrayEquals(new long[] { 14, 18 }, ranges.get(1));
+        assertArrayEquals(new long[] { 18, 20 }, ranges.get(2));
+        assertEquals(1, single.size());
+        assertArrayEquals(new long[] { 4, 5 }, single.get(0));
+        assertArrayEquals(new long[] { 0, 0 }, empty.get(0));
+    }
+
+    @Test
+    void testWriteWorkbook_WritesPartitionsInIdOrder() throws IOException {
+        // Arrange: ids 1..50 with gaps, read by four partitions in chunks of three
+        PartitionedExport export = new PartitionedExport(pool, 4, 3, ExportColumn.ALL,
+                PartitionedExportTest::readEveryThirdMissing);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        export.writeWorkbook(new long[] { 1, 50 }, out);
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheet(PartitionedExport.SHEET_NAME);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                ids.add((long) sheet.getRow(i).getCell(0).getNumericCellValue());
+            }
+            assertEquals(idsUpTo(50), ids);
+        }
+    }
+
+    @Test
+    void testWriteZip_WritesOneWorkbookPerPartition() throws IOException {
+        // Arrange
+        PartitionedExport export = new PartitionedExport(pool, 3, 4, ExportColumn.ALL,
+                PartitionedExportTest::readEveryThirdMissing);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        export.writeZip(new long[] { 1, 30 }, out);
+
+        // Assert
+        List<String> names = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                names.add(entry.getName());
+                XSSFSheet sheet = new XSSFWorkbook(zip).getSheetAt(0);
+                for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                    ids.add((long) sheet.getRow(i).getCell(0).getNumericCellValue());
+                }
+            }
+        }
+        assertEquals(List.of("customers-part-001.xlsx", "customers-part-002.xlsx", "customers-part-003.xlsx"), names);
+        assertEquals(idsUpTo(30), ids);
+    }
+
+    @Test
+    void testWriteWorkbook_RethrowsReaderFailure() {
+        // Arrange
+        PartitionedExport export = new PartitionedExport(pool, 2, 5, ExportColumn.ALL, (afterId, toId, limit) -> {
+            if (afterId >= 10) {
+                throw new IllegalStateException("connection lost");
+            }
+            return readEveryThirdMissing(afterId, toId, limit);
+        });
+
+        // Act & Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> export.writeWorkbook(new long[] { 1, 40 }, new ByteArrayOutputStream()));
+        assertEquals("connection lost", e.getMessage());
+    }
+
+    // Stands in for the keyset query over ids where every third id is missing
+    private static List<Customer> readEveryThirdMissing(long afterId, long toId, int limit) {
+        List<Customer> chunk = new ArrayList<>();
+        for (long id = afterId + 1; id <= toId && chunk.size() < limit; id++) {
+            if (id % 3 != 0) {
+                Customer customer = new Customer();
+                customer.setId(id);
+                customer.setNic("NIC-" + id);
+                chunk.add(customer);
+            }
+        }
+        return chunk;
+    }
+
+    private static List<Long> idsUpTo(long maxId) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= maxId; id++) {
+            if (id % 3 != 0) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
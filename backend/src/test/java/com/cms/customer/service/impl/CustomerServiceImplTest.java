@@ -1,11 +1,33 @@
 package com.cms.customer.service.impl;
 
+import com.cms.customer.dto.CursorPageDTO;
 import com.cms.customer.dto.CustomerDTO;
+import com.cms.customer.dto.ExportFilterDTO;
 import com.cms.customer.dto.ImportResultDTO;
 import com.cms.customer.entity.Customer;
+import com.cms.customer.entity.ImportCheckpoint;
+import com.cms.customer.entity.PhoneNumber;
 import com.cms.customer.exception.DuplicateResourceException;
 import com.cms.customer.exception.ResourceNotFoundException;
+import com.cms.customer.index.CustomerSearchIndex;
+import com.cms.customer.index.CustomerSuggestIndex;
+import com.cms.customer.index.DataVersion;
+import com.cms.customer.index.NicPresenceIndex;
+import com.cms.customer.repository.CustomerExportRepository;
+import com.cms.customer.repository.CustomerJdbcRepository;
+import com.cms.customer.repository.CustomerQueryRepository;
 import com.cms.customer.repository.CustomerRepository;
+import com.cms.customer.repository.ImportCheckpointRepository;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.importer.ImportFormat;
+import com.cms.customer.service.importer.ImportMode;
+import com.cms.customer.service.importer.ImportProgress;
+import com.cms.customer.service.importer.RowError;
+import com.cms.customer.service.query.CountMode;
+import com.cms.customer.service.query.CustomerCursor;
+import com.cms.customer.service.query.CustomerField;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,18 +35,36 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
@@ -39,12 +79,31 @@ class CustomerServiceImplTest {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private CustomerJdbcRepository customerJdbcRepository;
+
+    @Mock
+    private ImportCheckpointRepository importCheckpointRepository;
+
+    @Mock
+    private CustomerExportRepository customerExportRepository;
+
+    @Mock
+    private CustomerQueryRepository customerQueryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CustomerSuggestIndex suggestIndex;
+
     @InjectMocks
     private CustomerServiceImpl customerService;
 
     private CustomerDTO customerDTO;
     private Customer customer;
     private EntityManager entityManager;
+    private ExecutorService importParserPool;
 
     @BeforeEach
     void setUp() {
@@ -67,13 +126,25 @@ class CustomerServiceImplTest {
 
         entityManager = mock(EntityManager.class);
         ReflectionTestUtils.setField(customerService, "entityManager", entityManager);
+
+        // Not loaded, so every NIC check reaches the mocked repositories
+        ReflectionTestUtils.setField(customerService, "nicIndex", new NicPresenceIndex());
+        ReflectionTestUtils.setField(customerService, "searchIndex", new CustomerSearchIndex());
+        ReflectionTestUtils.setField(customerService, "dataVersion", new DataVersion());
+
+        importParserPool = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(customerService, "importParserPool", importParserPool);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importParserPool.shutdownNow();
     }
 
     @Test
     void testCreateCustomer_Success() {
         // Arrange
         when(customerRepository.existsByNic(customerDTO.getNic())).thenReturn(false);
-        when(modelMapper.map(customerDTO, Customer.class)).thenReturn(customer);
         when(customerRepository.save(any(Customer.class))).thenReturn(customer);
         when(modelMapper.map(customer, CustomerDTO.class)).thenReturn(customerDTO);
 
@@ -87,6 +158,26 @@ class CustomerServiceImplTest {
         verify(customerRepository, times(1)).save(any(Customer.class));
     }
 
+    @Test
+    void testCreateCustomer_UpdatesIndexesOnlyAfterCommit() {
+        // Arrange: a transaction is active, as when called through the transactional proxy
+        when(customerRepository.existsByNic(customerDTO.getNic())).thenReturn(false);
+        when(customerRepository.save(any(Customer.class))).thenReturn(customer);
+        when(modelMapper.map(customer, CustomerDTO.class)).thenReturn(customerDTO);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            customerService.createCustomer(customerDTO);
+            verify(suggestIndex, never()).put(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Assert
+            verify(suggestIndex).put(customer);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     @Test
     void testCreateCustomer_DuplicateNIC_ThrowsException() {
         // Arrange
@@ -103,25 +194,123 @@ class CustomerServiceImplTest {
     @Test
     void testGetCustomerById_Success() {
         // Arrange
-        when(customerRepository.findByIdWithDetails(1L)).thenReturn(Optional.of(customer));
+        when(customerQueryRepository.findById(1L, CustomerField.ALL)).thenReturn(Optional.of(customer));
         when(modelMapper.map(customer, CustomerDTO.class)).thenReturn(customerDTO);
 
         // Act
-        CustomerDTO result = customerService.getCustomerById(1L);
+        CustomerDTO result = customerService.getCustomerById(1L, CustomerField.ALL);
 
         // Assert
         assertNotNull(result);
         assertEquals(customerDTO.getFirstName(), result.getFirstName());
     }
 
+    @Test
+    void testGetAllCustomers_LoadsOnlyRequestedAssociations() {
+        // Arrange: scalar fields plus family member ids, but no addresses or phone numbers
+        Customer second = new Customer();
+        second.setId(2L);
+        Pageable pageable = PageRequest.of(0, 2);
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID, CustomerField.NIC, CustomerField.FAMILY_MEMBER_IDS);
+        when(customerQueryRepository.findPage(fields, null, pageable))
+                .thenReturn(new PageImpl<>(Arrays.asList(second, customer), pageable, 5));
+        when(customerQueryRepository.findFamilyMemberIds(Arrays.asList(2L, 1L)))
+                .thenReturn(Collections.singletonMap(1L, Collections.singleton(2L)));
+        when(modelMapper.map(any(Customer.class), eq(CustomerDTO.class))).thenAnswer(invocation -> {
+            CustomerDTO dto = new CustomerDTO();
+            dto.setId(invocation.getArgument(0, Customer.class).getId());
+            return dto;
+        });
+
+        // Act
+        Page<CustomerDTO> page = customerService.getAllCustomers(pageable, fields);
+
+        // Assert
+        assertEquals(5, page.getTotalElements());
+        assertEquals(Long.valueOf(2L), page.getContent().get(0).getId());
+        assertEquals(Collections.singleton(2L), page.getContent().get(1).getFamilyMemberIds());
+        assertTrue(page.getContent().get(0).getFamilyMemberIds().isEmpty());
+        verify(customerQueryRepository, never()).findAddresses(any());
+        verify(customerQueryRepository, never()).findPhoneNumbers(any());
+    }
+
+    @Test
+    void testSearchCustomers_LoadsRankedIdsFromIndex() {
+        // Arrange: the index ranks customer 2 before customer 1
+        Customer second = new Customer();
+        second.setId(2L);
+        Pageable pageable = PageRequest.of(0, 2);
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID);
+        CustomerSearchIndex searchIndex = mock(CustomerSearchIndex.class);
+        ReflectionTestUtils.setField(customerService, "searchIndex", searchIndex);
+        when(searchIndex.search("john", pageable))
+                .thenReturn(Optional.of(new PageImpl<>(Arrays.asList(2L, 1L), pageable, 7)));
+        when(customerQueryRepository.findByIds(Arrays.asList(2L, 1L), fields))
+                .thenReturn(Arrays.asList(second, customer));
+        when(modelMapper.map(any(Customer.class), eq(CustomerDTO.class))).thenAnswer(invocation -> {
+            CustomerDTO dto = new CustomerDTO();
+            dto.setId(invocation.getArgument(0, Customer.class).getId());
+            return dto;
+        });
+
+        // Act
+        Page<CustomerDTO> page = customerService.searchCustomers("john", pageable, fields);
+
+        // Assert
+        assertEquals(7, page.getTotalElements());
+        assertEquals(Long.valueOf(2L), page.getContent().get(0).getId());
+        verify(customerQueryRepository, never()).findPage(any(), any(), any());
+    }
+
+    @Test
+    void testSearchCustomers_FallsBackToSubstringQueryWhenIndexCannotAnswer() {
+        // Arrange: the search index in setUp is not loaded
+        Pageable pageable = PageRequest.of(0, 10);
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID);
+        when(customerQueryRepository.findPage(fields, "doe", pageable))
+                .thenReturn(new PageImpl<>(Collections.singletonList(customer), pageable, 1));
+        when(modelMapper.map(any(Customer.class), eq(CustomerDTO.class))).thenReturn(new CustomerDTO());
+
+        // Act
+        Page<CustomerDTO> page = customerService.searchCustomers("doe", pageable, fields);
+
+        // Assert
+        assertEquals(1, page.getTotalElements());
+        verify(customerQueryRepository, never()).findByIds(any(), any());
+    }
+
+    @Test
+    void testScrollCustomers_ReturnsNextCursorAndCachesEstimate() {
+        // Arrange: one row more than the page size exists
+        Customer second = new Customer();
+        second.setId(2L);
+        Set<CustomerField> fields = EnumSet.of(CustomerField.ID);
+        CustomerCursor first = CustomerCursor.first("id", false);
+        when(customerQueryRepository.findAfter(first, fields, 2)).thenReturn(Arrays.asList(customer, second));
+        when(customerQueryRepository.findAfter(any(), eq(fields), eq(3))).thenReturn(Arrays.asList(customer, second));
+        when(customerRepository.count()).thenReturn(2L);
+        when(modelMapper.map(any(Customer.class), eq(CustomerDTO.class))).thenReturn(new CustomerDTO());
+
+        // Act
+        CursorPageDTO<CustomerDTO> page = customerService.scrollCustomers(first, 1, fields, CountMode.ESTIMATE);
+        CursorPageDTO<CustomerDTO> last = customerService.scrollCustomers(first, 2, fields, CountMode.ESTIMATE);
+
+        // Assert
+        assertEquals(1, page.getContent().size());
+        assertEquals(Long.valueOf(1L), CustomerCursor.decode(page.getNextCursor()).getLastId());
+        assertNull(last.getNextCursor());
+        assertEquals(Long.valueOf(2L), last.getTotalElements());
+        verify(customerRepository, times(1)).count();
+    }
+
     @Test
     void testGetCustomerById_NotFound_ThrowsException() {
         // Arrange
-        when(customerRepository.findByIdWithDetails(999L)).thenReturn(Optional.empty());
+        when(customerQueryRepository.findById(999L, CustomerField.ALL)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
-            customerService.getCustomerById(999L);
+            customerService.getCustomerById(999L, CustomerField.ALL);
         });
     }
 
@@ -135,6 +324,7 @@ class CustomerServiceImplTest {
 
         // Assert
         verify(customerRepository, times(1)).deleteById(1L);
+        verify(suggestIndex).remove(1L);
     }
 
     @Test
@@ -152,6 +342,345 @@ class CustomerServiceImplTest {
 
     @Test
     void testImportCustomersFromExcel_BatchSaveAndSkipDuplicates() throws Exception {
+        MockMultipartFile multipartFile = createImportFile();
+
+        // Existing NIC set should cause one skip
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Set.of("NIC-DUP"));
+
+        // Capture insertCustomers to assert only new NIC is persisted
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> savedList = (java.util.List<Customer>) invocation.getArgument(0);
+            assertEquals(1, savedList.size());
+            assertEquals("NIC-NEW", savedList.get(0).getNic());
+            return null;
+        }).when(customerJdbcRepository).insertCustomers(any());
+
+        ImportResultDTO result = customerService.importCustomersFromExcel(multipartFile);
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getSkippedDuplicates());
+        assertTrue(result.getErrors().isEmpty());
+        verify(customerJdbcRepository, times(1)).insertCustomers(any());
+        verify(customerRepository, never()).saveAll(any());
+        verify(suggestIndex).rebuildInBackground();
+    }
+
+    @Test
+    void testImportCustomersFromExcel_StoredNicInOtherCaseIsDuplicate() throws Exception {
+        // Arrange
+        MockMultipartFile multipartFile = createImportFile();
+        // The NIC column compares case-insensitively, so the stored " nic-dup" is the file's NIC-DUP
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Set.of(" nic-dup"));
+
+        // Act
+        ImportResultDTO result = customerService.importCustomersFromExcel(multipartFile);
+
+        // Assert
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getSkippedDuplicates());
+        verify(customerJdbcRepository).insertCustomers(argThat(saved ->
+                saved.size() == 1 && "NIC-NEW".equals(saved.get(0).getNic())));
+    }
+
+    @Test
+    void testImportCustomersFromExcel_RowTheDatabaseRejectsBecomesRowError() throws Exception {
+        // Arrange: any insert holding Bob's row violates a constraint
+        MockMultipartFile multipartFile = createImportFile();
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Collections.emptySet());
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> batch = (java.util.List<Customer>) invocation.getArgument(0);
+            if (batch.stream().anyMatch(c -> c.getNic().equals("NIC-DUP"))) {
+                throw new DataIntegrityViolationException("constraint violated");
+            }
+            return null;
+        }).when(customerJdbcRepository).insertCustomers(any());
+
+        // Act
+        ImportResultDTO result = customerService.importCustomersFromExcel(multipartFile);
+
+        // Assert: the batch is retried in halves and only Bob's row fails
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getErrors().get(0).startsWith("Row 2: Could not be saved"));
+    }
+
+    @Test
+    void testImportCustomersFromExcel_RejectsNicRepeatedInFile() throws Exception {
+        // Arrange: row 3 repeats the NIC of row 1, differing only in case and padding
+        XSSFWorkbook workbook = createImportWorkbook();
+        Row repeated = workbook.getSheetAt(0).createRow(3);
+        repeated.createCell(0).setCellValue("Alice");
+        repeated.createCell(1).setCellValue("Again");
+        repeated.createCell(2).setCellValue("1991-02-03");
+        repeated.createCell(3).setCellValue(" nic-new ");
+
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Set.of());
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> savedList = (java.util.List<Customer>) invocation.getArgument(0);
+            assertEquals(2, savedList.size());
+            return null;
+        }).when(customerJdbcRepository).insertCustomers(any());
+
+        // Act
+        ImportResultDTO result = customerService.importCustomersFromExcel(toMultipartFile(workbook));
+
+        // Assert
+        assertEquals(2, result.getImportedCount());
+        assertEquals(java.util.List.of("Row 3: Duplicate NIC, first seen in row 1"), result.getErrors());
+    }
+
+    @Test
+    void testImportCustomersFromExcel_ResumesAfterCheckpoint() throws Exception {
+        MockMultipartFile multipartFile = createImportFile();
+
+        // An earlier run committed row 1 and then stopped
+        ImportCheckpoint checkpoint = new ImportCheckpoint("hash");
+        checkpoint.setLastRow(1);
+        checkpoint.setRowsRead(1);
+        checkpoint.setImportedCount(1);
+        when(importCheckpointRepository.findById(any())).thenReturn(Optional.of(checkpoint));
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Set.of());
+
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> savedList = (java.util.List<Customer>) invocation.getArgument(0);
+            assertEquals(1, savedList.size());
+            assertEquals("NIC-DUP", savedList.get(0).getNic());
+            return null;
+        }).when(customerJdbcRepository).insertCustomers(any());
+
+        ImportResultDTO result = customerService.importCustomersFromExcel(multipartFile);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(2, checkpoint.getLastRow());
+        assertEquals(ImportCheckpoint.COMPLETED, checkpoint.getStatus());
+        verify(customerJdbcRepository, times(1)).insertCustomers(any());
+    }
+
+    @Test
+    void testImportCustomersFromExcel_UpsertUpdatesChangedRows() throws Exception {
+        MockMultipartFile multipartFile = createImportFile();
+
+        // NIC-DUP is stored with an older email address
+        Customer stored = storedCustomer("Bob", "Jones", "NIC-DUP", "old@example.com", "MALE");
+        when(customerJdbcRepository.findByNics(any())).thenReturn(Map.of("NIC-DUP", stored));
+
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> updated = (java.util.List<Customer>) invocation.getArgument(0);
+            assertEquals(1, updated.size());
+            assertEquals(42L, updated.get(0).getId());
+            assertEquals("bob@example.com", updated.get(0).getEmail());
+            return null;
+        }).when(customerJdbcRepository).updateCustomers(any());
+
+        ImportResultDTO result = customerService.importCustomers(
+                Channels.newChannel(multipartFile.getInputStream()), ImportFormat.XLSX, null, ImportMode.UPSERT,
+                false, ImportProgress.NONE);
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(0, result.getUnchangedCount());
+        verify(customerJdbcRepository, times(1)).insertCustomers(any());
+        verify(customerJdbcRepository, never()).findExistingNics(any());
+    }
+
+    @Test
+    void testImportCustomersFromExcel_UpsertSkipsUnchangedRows() throws Exception {
+        MockMultipartFile multipartFile = createImportFile();
+
+        Customer stored = storedCustomer("Bob", "Jones", "NIC-DUP", "bob@example.com", "MALE");
+        when(customerJdbcRepository.findByNics(any())).thenReturn(Map.of("NIC-DUP", stored));
+
+        ImportResultDTO result = customerService.importCustomers(
+                Channels.newChannel(multipartFile.getInputStream()), ImportFormat.XLSX, null, ImportMode.UPSERT,
+                false, ImportProgress.NONE);
+
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(0, result.getUpdatedCount());
+        assertEquals(1, result.getUnchangedCount());
+        verify(customerJdbcRepository, never()).updateCustomers(any());
+    }
+
+    @Test
+    void testExportCustomersToExcel_StreamsRowsWithSampledWidths() throws Exception {
+        // Arrange
+        PhoneNumber phone = new PhoneNumber();
+        phone.setPhoneNumber("0771234567");
+        phone.setIsPrimary(true);
+        customer.setPhoneNumbers(new HashSet<>(Set.of(phone)));
+        customer.setEmail("a.rather.long.address@example.com");
+        ExportFilterDTO filter = new ExportFilterDTO();
+        when(customerExportRepository.findIdRange(filter, null)).thenReturn(new long[] { 1L, 1L });
+        when(customerExportRepository.findChunk(0L, 1L, 1000, filter, null, ExportColumn.ALL))
+                .thenReturn(Collections.singletonList(customer));
+        when(customerExportRepository.findChunk(1L, 1L, 1000, filter, null, ExportColumn.ALL))
+                .thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(customerService, "exportPartitionPool", importParserPool);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        customerService.exportCustomersToExcel(ExportFormat.XLSX, filter, ExportColumn.ALL, out);
+
+        // Assert
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            XSSFSheet sheet = workbook.getSheet("Customers");
+            assertEquals(1, sheet.getLastRowNum());
+            Row row = sheet.getRow(1);
+            assertEquals(1d, row.getCell(0).getNumericCellValue());
+            assertEquals("123456789V", row.getCell(4).getStringCellValue());
+            assertEquals("0771234567", row.getCell(7).getStringCellValue());
+            assertEquals("", row.getCell(8).getStringCellValue());
+            assertEquals(("a.rather.long.address@example.com".length() + 2) * 256, sheet.getColumnWidth(5));
+            assertEquals(("Primary Address".length() + 2) * 256, sheet.getColumnWidth(8));
+        }
+    }
+
+    private Customer storedCustomer(String firstName, String lastName, String nic, String email, String gender) {
+        Customer customer = new Customer();
+        customer.setId(42L);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        // Bob's date of birth in the import workbook
+        customer.setDateOfBirth(java.sql.Date.valueOf("1985-11-30"));
+        customer.setNic(nic);
+        customer.setEmail(email);
+        customer.setGender(gender);
+        return customer;
+    }
+
+    @Test
+    void testImportCustomersFromExcel_ImportsPhoneNumbersSheetByNic() throws Exception {
+        XSSFWorkbook workbook = createImportWorkbook();
+        XSSFSheet phones = workbook.createSheet("Phone Numbers");
+        Row header = phones.createRow(0);
+        header.createCell(0).setCellValue("nic");
+        header.createCell(1).setCellValue("phoneNumber");
+        header.createCell(2).setCellValue("phoneType");
+        header.createCell(3).setCellValue("isPrimary");
+        Row known = phones.createRow(1);
+        known.createCell(0).setCellValue("NIC-NEW");
+        known.createCell(1).setCellValue("0771234567");
+        known.createCell(3).setCellValue(true);
+        Row unknown = phones.createRow(2);
+        unknown.createCell(0).setCellValue("NIC-UNKNOWN");
+        unknown.createCell(1).setCellValue("0112345678");
+
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Set.of("NIC-DUP"));
+        // Ids assigned by the customer insert are reused for the phone rows
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> savedList = (java.util.List<Customer>) invocation.getArgument(0);
+            savedList.forEach(c -> c.setId(7L));
+            return null;
+        }).when(customerJdbcRepository).insertCustomers(any());
+        when(customerJdbcRepository.findIdsByNics(any())).thenReturn(Map.of());
+        when(customerJdbcRepository.findPhoneNumberKeys(any())).thenReturn(new HashSet<>());
+
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<PhoneNumber> inserted = (java.util.List<PhoneNumber>) invocation.getArgument(0);
+            assertEquals(1, inserted.size());
+            assertEquals(7L, inserted.get(0).getCustomer().getId());
+            assertEquals("MOBILE", inserted.get(0).getPhoneType());
+            assertTrue(inserted.get(0).getIsPrimary());
+            return null;
+        }).when(customerJdbcRepository).insertPhoneNumbers(any());
+
+        ImportResultDTO result = customerService.importCustomersFromExcel(toMultipartFile(workbook));
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(1, result.getImportedPhoneNumbers());
+        assertEquals(java.util.List.of("Phone numbers row 2: No customer with NIC NIC-UNKNOWN"), result.getErrors());
+        verify(customerJdbcRepository, times(1)).insertPhoneNumbers(any());
+    }
+
+    @Test
+    void testImportCustomersFromExcel_RetryDoesNotKeepIdsOfRolledBackInsert() throws Exception {
+        // Arrange: the first insert assigns id 7, then fails because another node stored NIC-NEW meanwhile
+        XSSFWorkbook workbook = createImportWorkbook();
+        XSSFSheet phones = workbook.createSheet("Phone Numbers");
+        Row header = phones.createRow(0);
+        header.createCell(0).setCellValue("nic");
+        header.createCell(1).setCellValue("phoneNumber");
+        Row phone = phones.createRow(1);
+        phone.createCell(0).setCellValue("NIC-NEW");
+        phone.createCell(1).setCellValue("0771234567");
+
+        when(customerJdbcRepository.findExistingNics(any(Set.class)))
+                .thenReturn(Set.of("NIC-DUP"))
+                .thenReturn(Set.of("NIC-DUP", "NIC-NEW"));
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            java.util.List<Customer> savedList = (java.util.List<Customer>) invocation.getArgument(0);
+            savedList.forEach(c -> c.setId(7L));
+            throw new DuplicateKeyException("Duplicate entry 'NIC-NEW'");
+        }).when(customerJdbcRepository).insertCustomers(any());
+        when(customerJdbcRepository.findIdsByNics(any())).thenReturn(Map.of("NIC-NEW", 42L));
+        when(customerJdbcRepository.findPhoneNumberKeys(any())).thenReturn(new HashSet<>());
+
+        // Act
+        ImportResultDTO result = customerService.importCustomersFromExcel(toMultipartFile(workbook));
+
+        // Assert: the phone row resolves to the stored customer, not the id of the rolled-back insert
+        assertEquals(0, result.getImportedCount());
+        assertEquals(1, result.getImportedPhoneNumbers());
+        verify(customerJdbcRepository, times(1)).insertCustomers(any());
+        verify(customerJdbcRepository).insertPhoneNumbers(argThat(inserted ->
+                inserted.size() == 1 && inserted.get(0).getCustomer().getId() == 42L));
+    }
+
+    @Test
+    void testImportCustomers_DryRunValidatesWithoutWriting() throws Exception {
+        XSSFWorkbook workbook = createImportWorkbook();
+        XSSFSheet phones = workbook.createSheet("Phone Numbers");
+        phones.createRow(0).createCell(0).setCellValue("nic");
+        Row known = phones.createRow(1);
+        known.createCell(0).setCellValue("NIC-NEW");
+        known.createCell(1).setCellValue("0771234567");
+        Row unknown = phones.createRow(2);
+        unknown.createCell(0).setCellValue("NIC-UNKNOWN");
+        unknown.createCell(1).setCellValue("0112345678");
+        MockMultipartFile multipartFile = toMultipartFile(workbook);
+
+        when(customerJdbcRepository.findExistingNics(any(Set.class))).thenReturn(Set.of("NIC-DUP"));
+        // NIC-NEW is earlier in the file, so only NIC-UNKNOWN is looked up
+        when(customerJdbcRepository.findIdsByNics(Set.of("NIC-UNKNOWN"))).thenReturn(Map.of());
+        java.util.List<RowError> reported = new java.util.ArrayList<>();
+        ImportProgress progress = new ImportProgress() {
+            @Override
+            public void onRowErrors(java.util.List<RowError> errors) {
+                reported.addAll(errors);
+            }
+        };
+
+        ImportResultDTO result = customerService.importCustomers(
+                Channels.newChannel(multipartFile.getInputStream()), ImportFormat.XLSX, "hash", ImportMode.INSERT,
+                true, progress);
+
+        assertTrue(result.isDryRun());
+        assertEquals(0, result.getImportedCount());
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getSkippedDuplicates());
+        assertEquals(3, result.getValidCount());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(1, reported.size());
+        assertEquals("nic", reported.get(0).getColumn());
+        assertEquals("NIC-UNKNOWN", reported.get(0).getValue());
+        verify(customerJdbcRepository, never()).insertCustomers(any());
+        verify(customerJdbcRepository, never()).insertPhoneNumbers(any());
+        verifyNoInteractions(importCheckpointRepository, transactionManager);
+    }
+
+    private MockMultipartFile createImportFile() throws Exception {
+        return toMultipartFile(createImportWorkbook());
+    }
+
+    private XSSFWorkbook createImportWorkbook() {
         // Create a small XLSX in-memory
         XSSFWorkbook workbook = new XSSFWorkbook();
         XSSFSheet sheet = workbook.createSheet("Customers");
@@ -167,6 +696,7 @@ class CustomerServiceImplTest {
         Row row1 = sheet.createRow(1);
         row1.createCell(0).setCellValue("Alice");
         row1.createCell(1).setCellValue("Smith");
+        row1.createCell(2).setCellValue("1990-05-15");
         row1.createCell(3).setCellValue("NIC-NEW");
         row1.createCell(4).setCellValue("alice@example.com");
         row1.createCell(5).setCellValue("FEMALE");
@@ -174,38 +704,23 @@ class CustomerServiceImplTest {
         Row row2 = sheet.createRow(2);
         row2.createCell(0).setCellValue("Bob");
         row2.createCell(1).setCellValue("Jones");
+        row2.createCell(2).setCellValue("1985-11-30");
         row2.createCell(3).setCellValue("NIC-DUP");
         row2.createCell(4).setCellValue("bob@example.com");
         row2.createCell(5).setCellValue("MALE");
 
+        return workbook;
+    }
+
+    private MockMultipartFile toMultipartFile(XSSFWorkbook workbook) throws Exception {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         workbook.write(baos);
         workbook.close();
 
-        MockMultipartFile multipartFile = new MockMultipartFile(
+        return new MockMultipartFile(
                 "file",
                 "customers.xlsx",
                 "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
                 new ByteArrayInputStream(baos.toByteArray()));
-
-        // Existing NIC set should cause one skip
-        when(customerRepository.findExistingNics(any(Set.class))).thenReturn(Set.of("NIC-DUP"));
-
-        // Capture saveAll to assert only new NIC is persisted
-        doAnswer(invocation -> {
-            @SuppressWarnings("unchecked")
-            java.util.List<Customer> savedList = (java.util.List<Customer>) invocation.getArgument(0);
-            assertEquals(1, savedList.size());
-            assertEquals("NIC-NEW", savedList.get(0).getNic());
-            return null;
-        }).when(customerRepository).saveAll(any());
-
-        ImportResultDTO result = customerService.importCustomersFromExcel(multipartFile);
-
-        assertEquals(1, result.getImportedCount());
-        assertEquals(1, result.getSkippedDuplicates());
-        assertTrue(result.getErrors().isEmpty());
-        verify(customerRepository, times(1)).saveAll(any());
-        verify(customerRepository, times(1)).flush();
     }
 }
@@ -0,0 +1,117 @@
+package com.cms.customer.service.impl;
+
+import com.cms.customer.dto.ExportFilterDTO;
+import com.cms.customer.index.DataVersion;
+import com.cms.customer.repository.CustomerExportRepository;
+import com.cms.customer.repository.CustomerExportRepository.ChangeWatermark;
+import com.cms.customer.service.CustomerService;
+import com.cms.customer.service.exporter.ExportColumn;
+import com.cms.customer.service.exporter.ExportFormat;
+import com.cms.customer.service.exporter.ExportSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportSnapshotServiceImplTest {
+
+    private static final long SETTLED = System.currentTimeMillis() - 60_000;
+
+    @Mock
+    private CustomerService customerService;
+
+    @Mock
+    private CustomerExportRepository customerExportRepository;
+
+    @InjectMocks
+    private ExportSnapshotServiceImpl exportSnapshotService;
+
+    @TempDir
+    Path cacheDir;
+
+    private final ExportFilterDTO filter = new ExportFilterDTO();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exportSnapshotService, "cacheDirProperty", cacheDir.toString());
+        ReflectionTestUtils.setField(exportSnapshotService, "dataVersion", new DataVersion());
+        exportSnapshotService.initCacheDir();
+    }
+
+    @Test
+    void testGetFile_GeneratesOnceAndServesFromCache() throws Exception {
+        // Arrange
+        when(customerExportRepository.findChangeWatermark(eq(ExportColumn.ALL), anyString()))
+                .thenReturn(new ChangeWatermark("customers:3:" + SETTLED, SETTLED));
+        doAnswer(invocation -> {
+            invocation.getArgument(3, OutputStream.class).write("xlsx".getBytes());
+            return null;
+        }).when(customerService).exportCustomersToExcel(eq(ExportFormat.XLSX), eq(filter), eq(ExportColumn.ALL),
+                any());
+
+        // Act
+        ExportSnapshot first = exportSnapshotService.getSnapshot(ExportFormat.XLSX, filter, ExportColumn.ALL);
+        Path generated = exportSnapshotService.getFile(first);
+        ExportSnapshot second = exportSnapshotService.getSnapshot(ExportFormat.XLSX, filter, ExportColumn.ALL);
+        Path cached = exportSnapshotService.getFile(second);
+
+        // Assert
+        assertTrue(first.isCacheable());
+        assertEquals(first.getETag(), second.getETag());
+        assertEquals(generated, cached);
+        assertEquals("xlsx", new String(Files.readAllBytes(cached)));
+        verify(customerService, times(1)).exportCustomersToExcel(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetSnapshot_ChangedDataOrParametersChangeTheKey() {
+        // Arrange
+        when(customerExportRepository.findChangeWatermark(any(), anyString()))
+                .thenReturn(new ChangeWatermark("customers:3:" + SETTLED, SETTLED))
+                .thenReturn(new ChangeWatermark("customers:4:" + SETTLED, SETTLED))
+                .thenReturn(new ChangeWatermark("customers:3:" + SETTLED, SETTLED));
+        ExportFilterDTO searched = new ExportFilterDTO();
+        searched.setKeyword("doe");
+
+        // Act
+        String original = exportSnapshotService.getSnapshot(ExportFormat.XLSX, filter, ExportColumn.ALL).getKey();
+        String inserted = exportSnapshotService.getSnapshot(ExportFormat.XLSX, filter, ExportColumn.ALL).getKey();
+        String filtered = exportSnapshotService.getSnapshot(ExportFormat.XLSX, searched, ExportColumn.ALL).getKey();
+
+        // Assert
+        assertNotEquals(original, inserted);
+        assertNotEquals(original, filtered);
+    }
+
+    @Test
+    void testGetSnapshot_RecentChangeIsNotCached() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        when(customerExportRepository.findChangeWatermark(eq(List.of(ExportColumn.NIC)), anyString()))
+                .thenReturn(new ChangeWatermark("customers:3:" + now, now));
+
+        // Act
+        ExportSnapshot snapshot = exportSnapshotService.getSnapshot(ExportFormat.ZIP, filter,
+                List.of(ExportColumn.NIC));
+
+        // Assert
+        assertFalse(snapshot.isCacheable());
+        assertFalse(exportSnapshotService.findFile(snapshot).isPresent());
+    }
+}
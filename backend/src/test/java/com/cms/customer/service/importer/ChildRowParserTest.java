@@ -0,0 +1,83 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.entity.Address;
+import com.cms.customer.entity.City;
+import com.cms.customer.entity.Country;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChildRowParserTest {
+
+    private ChildRowParser parser;
+
+    @BeforeEach
+    void setUp() {
+        Country sriLanka = new Country();
+        sriLanka.setName("Sri Lanka");
+        Country india = new Country();
+        india.setName("India");
+
+        parser = new ChildRowParser(new CityDictionary(Arrays.asList(
+                city(1L, "Colombo", sriLanka),
+                city(2L, "Kandy", sriLanka),
+                city(3L, "Kandy", india))));
+    }
+
+    @Test
+    void testParse_ResolvesCityByNameAndCountry() {
+        // Arrange
+        List<RawRow> rows = Arrays.asList(
+                address(1, "colombo", null),
+                address(2, "Kandy", "india"));
+
+        // Act
+        ParsedChunk chunk = parser.parse(rows);
+
+        // Assert
+        assertTrue(chunk.getErrors().isEmpty());
+        List<Address> addresses = chunk.getAddresses();
+        assertEquals(1L, addresses.get(0).getCity().getId());
+        assertEquals(3L, addresses.get(1).getCity().getId());
+        assertEquals("NIC-1", addresses.get(0).getCustomer().getNic());
+        assertEquals("HOME", addresses.get(0).getAddressType());
+    }
+
+    @Test
+    void testParse_ReportsUnknownAndAmbiguousCities() {
+        // Arrange
+        List<RawRow> rows = Arrays.asList(
+                address(1, "Kandy", null),
+                address(2, "Galle", "Sri Lanka"));
+
+        // Act
+        ParsedChunk chunk = parser.parse(rows);
+
+        // Assert
+        assertTrue(chunk.getAddresses().isEmpty());
+        assertEquals(Arrays.asList(
+                "Addresses row 1: City 'Kandy' exists in several countries, country is required",
+                "Addresses row 2: Unknown city 'Galle' in country 'Sri Lanka'"),
+                chunk.getErrors().stream().map(RowError::getMessage).collect(Collectors.toList()));
+        assertEquals("city", chunk.getErrors().get(1).getColumn());
+        assertEquals("Galle", chunk.getErrors().get(1).getValue());
+    }
+
+    private RawRow address(int rowNum, String city, String country) {
+        return new RawRow(ImportSheet.ADDRESSES, rowNum,
+                new Object[] { "NIC-1", "1 Main Street", null, city, country, null, null });
+    }
+
+    private City city(Long id, String name, Country country) {
+        City city = new City();
+        city.setId(id);
+        city.setName(name);
+        city.setCountry(country);
+        return city;
+    }
+}
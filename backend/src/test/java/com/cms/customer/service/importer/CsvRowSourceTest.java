@@ -0,0 +1,100 @@
+package com.cms.customer.service.importer;
+
+import com.cms.customer.exception.InvalidImportFileException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowSourceTest {
+
+    @Test
+    void testNext_MapsColumnsByHeaderAndUnquotesFields() throws IOException {
+        // Arrange: columns out of template order, an unknown column and a quoted comma
+        String csv = "﻿nic,First Name,last_name,notes,date_of_birth\r\n"
+                + "900515123V,John,\"Doe, Jr.\",ignored,1990-05-15\r\n"
+                + "\r\n"
+                + "920820456V,\"Jane \"\"JJ\"\"\",Smith,,\n";
+
+        try (CsvRowSource source = open(csv)) {
+            // Act
+            RawRow first = source.next();
+            RawRow second = source.next();
+
+            // Assert
+            assertEquals(1, first.getRowNum());
+            assertEquals("John", first.get(0));
+            assertEquals("Doe, Jr.", first.get(1));
+            assertEquals("900515123V", first.get(3));
+            Calendar dob = Calendar.getInstance();
+            dob.setTime((Date) first.get(2));
+            assertEquals(1990, dob.get(Calendar.YEAR));
+            assertEquals(Calendar.MAY, dob.get(Calendar.MONTH));
+            assertEquals(15, dob.get(Calendar.DAY_OF_MONTH));
+
+            assertEquals(2, second.getRowNum());
+            assertEquals("Jane \"JJ\"", second.get(0));
+            assertNull(second.get(2));
+            assertNull(source.next());
+        }
+    }
+
+    @Test
+    void testNext_ReadsFileWithoutHeaderFromItsFirstLine(@TempDir Path dir) throws IOException {
+        // Arrange
+        Path file = dir.resolve("customers.csv");
+        Files.write(file, ("John,Doe,1990-05-15,900515123V,john@example.com,MALE\n"
+                + "Jane,Smith,,200012345678,,FEMALE").getBytes(StandardCharsets.UTF_8));
+
+        try (CsvRowSource source = new CsvRowSource(FileChannel.open(file, StandardOpenOption.READ))) {
+            // Act
+            RawRow first = source.next();
+            RawRow second = source.next();
+
+            // Assert
+            assertEquals(1, first.getRowNum());
+            assertEquals("900515123V", first.get(3));
+            assertEquals("MALE", first.get(5));
+            assertEquals(2, second.getRowNum());
+            assertEquals("200012345678", second.get(3));
+            assertNull(source.next());
+            assertEquals(2, source.estimatedRows());
+        }
+    }
+
+    @Test
+    void testConstructor_RejectsUnknownHeaderThatIsNoCustomer() {
+        // Arrange: neither a known column name nor a date of birth or NIC in the first line
+        String csv = "a,b,c,d,e,f\nJohn,Doe,1990-05-15,900515123V,john@example.com,MALE\n";
+
+        // Act & Assert
+        InvalidImportFileException e = assertThrows(InvalidImportFileException.class, () -> open(csv));
+        assertTrue(e.getMessage().startsWith("CSV header required"), e.getMessage());
+    }
+
+    @Test
+    void testConstructor_RejectsHeaderMissingRequiredColumns() {
+        // Arrange: a recognised header without a NIC column
+        String csv = "firstName,lastName,dateOfBirth,email\nJohn,Doe,1990-05-15,john@example.com\n";
+
+        // Act & Assert
+        InvalidImportFileException e = assertThrows(InvalidImportFileException.class, () -> open(csv));
+        assertTrue(e.getMessage().contains("nic"), e.getMessage());
+    }
+
+    private CsvRowSource open(String csv) throws IOException {
+        return new CsvRowSource(Channels.newChannel(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+}
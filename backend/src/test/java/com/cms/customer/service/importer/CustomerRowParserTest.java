@@ -0,0 +1,63 @@
+package com.cms.customer.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerRowParserTest {
+
+    private final CustomerRowParser parser = new CustomerRowParser();
+
+    @Test
+    void testParse_AcceptsDateCellsAndIsoText() {
+        // Act
+        ParsedChunk chunk = parser.parse(Arrays.asList(
+                row(1, "John", "Doe", new Date(), "NIC-1", "john@example.com"),
+                row(2, "Jane", "Doe", "1990-05-15", "NIC-2", null)));
+
+        // Assert
+        assertTrue(chunk.getErrors().isEmpty());
+        assertEquals(2, chunk.getCustomers().size());
+        assertNotNull(chunk.getCustomers().get(1).getDateOfBirth());
+    }
+
+    @Test
+    void testParse_ReportsRowsTheCustomersTableWouldReject() {
+        // Arrange: each row breaks one constraint of the customers table
+        String longNic = "123456789012345678901";
+        List<RawRow> rows = Arrays.asList(
+                row(1, " ", "Doe", new Date(), "NIC-1", null),
+                row(2, "John", null, new Date(), "NIC-2", null),
+                row(3, "John", "Doe", null, "NIC-3", null),
+                row(4, "John", "Doe", "15/05/1990", "NIC-4", null),
+                row(5, "John", "Doe", new Date(), longNic, null),
+                row(6, "John", "Doe", new Date(), "NIC-6", repeat('x', 151)),
+                row(7, "John", "Doe", new Date(), null, null));
+
+        // Act
+        ParsedChunk chunk = parser.parse(rows);
+
+        // Assert
+        assertTrue(chunk.getCustomers().isEmpty());
+        assertEquals(Arrays.asList("firstName", "lastName", "dateOfBirth", "dateOfBirth", "nic", "email", "nic"),
+                chunk.getErrors().stream().map(RowError::getColumn).collect(Collectors.toList()));
+        assertEquals("Row 4: Date of birth must be a date (yyyy-MM-dd)", chunk.getErrors().get(3).getMessage());
+        assertEquals("Row 5: NIC is longer than 20 characters", chunk.getErrors().get(4).getMessage());
+    }
+
+    private static RawRow row(int rowNum, String firstName, String lastName, Object dateOfBirth, String nic,
+            String email) {
+        return new RawRow(rowNum, new Object[] { firstName, lastName, dateOfBirth, nic, email, null });
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
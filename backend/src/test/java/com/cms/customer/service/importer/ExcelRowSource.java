@@ -0,0 +1,136 @@
+package com.cms.customer.service.importer;
+
+import com.monitorjbl.xlsx.StreamingReader;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The import's former XLSX reader, kept as the baseline {@link XlsxRowSource}
+ * is checked and benchmarked against.
+ * <p>
+ * Reads an XLSX workbook through xlsx-streamer: the customer sheet (sheet 0)
+ * first, then whichever related-record sheets are present, in
+ * {@link ImportSheet} order. Each sheet's first row is a header.
+ * <p>
+ * Cell values are resolved on the reader thread because the streaming cells
+ * share a non thread-safe string table.
+ */
+public class ExcelRowSource implements RowSource {
+
+    private final Workbook workbook;
+    private final Map<ImportSheet, Iterator<Row>> sheets = new EnumMap<>(ImportSheet.class);
+    private final Iterator<ImportSheet> pending;
+    private final long estimatedRows;
+
+    private ImportSheet current;
+    private Iterator<Row> rows;
+
+    public ExcelRowSource(InputStream is) {
+        this.workbook = StreamingReader.builder()
+                .rowCacheSize(200)
+                .bufferSize(4096)
+                .open(is);
+
+        long total = open(ImportSheet.CUSTOMERS, workbook.getSheetAt(0));
+        for (int i = 1; i < workbook.getNumberOfSheets(); i++) {
+            Sheet sheet = workbook.getSheetAt(i);
+            for (ImportSheet type : ImportSheet.values()) {
+                if (type != ImportSheet.CUSTOMERS && !sheets.containsKey(type)
+                        && type.matchesSheetName(sheet.getSheetName())) {
+                    total += open(type, sheet);
+                }
+            }
+        }
+        this.estimatedRows = total > 0 ? total : -1;
+
+        this.pending = new ArrayList<>(sheets.keySet()).iterator();
+        nextSheet();
+    }
+
+    @Override
+    public long estimatedRows() {
+        return estimatedRows;
+    }
+
+    @Override
+    public Set<ImportSheet> sheets() {
+        return sheets.keySet();
+    }
+
+    @Override
+    public RawRow next() {
+        while (!rows.hasNext()) {
+            if (!nextSheet()) {
+                return null;
+            }
+        }
+
+        Row row = rows.next();
+        int columns = current.getColumns();
+        Object[] values = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            values[i] = readCell(row.getCell(i));
+        }
+        return new RawRow(current, row.getRowNum(), values);
+    }
+
+    /**
+     * Starts iterating a sheet, which buffers its first rows, and skips the header.
+     *
+     * @return the sheet's row count, taken from its {@code <dimension>} element
+     *         that precedes the row data
+     */
+    private long open(ImportSheet type, Sheet sheet) {
+        Iterator<Row> sheetRows = sheet.iterator();
+        if (sheetRows.hasNext()) {
+            sheetRows.next(); // header
+        }
+        sheets.put(type, sheetRows);
+        return Math.max(0, sheet.getLastRowNum());
+    }
+
+    private boolean nextSheet() {
+        if (!pending.hasNext()) {
+            return false;
+        }
+        current = pending.next();
+        rows = sheets.get(current);
+        return true;
+    }
+
+    private Object readCell(Cell cell) {
+        if (cell == null) {
+            return null;
+        }
+
+        switch (cell.getCellType()) {
+            case STRING:
+                return cell.getStringCellValue();
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    return cell.getDateCellValue();
+                }
+                return cell.getNumericCellValue();
+            case BOOLEAN:
+                return cell.getBooleanCellValue();
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        workbook.close();
+    }
+}
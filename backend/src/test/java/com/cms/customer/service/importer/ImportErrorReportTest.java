@@ -0,0 +1,43 @@
+package com.cms.customer.service.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportErrorReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testAppend_WritesEveryErrorAsQuotedCsv() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("errors.csv");
+        List<RowError> errors = Arrays.asList(
+                new RowError(ImportSheet.CUSTOMERS, 2, "nic", null, "NIC is required"),
+                new RowError(ImportSheet.ADDRESSES, 5, "city", "Galle, South", "Unknown city 'Galle, South'"),
+                new RowError(ImportSheet.CUSTOMERS, 9, null, null, "Bad \"quote\""));
+
+        // Act
+        try (ImportErrorReport report = new ImportErrorReport(file)) {
+            report.append(errors.subList(0, 2));
+            report.append(errors.subList(2, 3));
+            assertEquals(3, report.getErrorCount());
+        }
+
+        // Assert
+        assertEquals(Arrays.asList(
+                "sheet,row,column,value,reason",
+                "CUSTOMERS,2,nic,,NIC is required",
+                "ADDRESSES,5,city,\"Galle, South\",\"Unknown city 'Galle, South'\"",
+                "CUSTOMERS,9,,,\"Bad \"\"quote\"\"\""),
+                Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,149 @@
+package com.cms.customer.service.importer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportPipelineTest {
+
+    private ExecutorService parserPool;
+
+    @BeforeEach
+    void setUp() {
+        parserPool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parserPool.shutdownNow();
+    }
+
+    @Test
+    void testRun_WritesChunksInSourceOrder() {
+        // Arrange
+        ImportPipeline pipeline = new ImportPipeline(parserPool, 10, 2);
+        List<Integer> written = new ArrayList<>();
+
+        // Act
+        pipeline.run(rows(1, 95), new CustomerRowParser()::parse,
+                chunk -> written.addAll(chunk.getRowNums()));
+
+        // Assert
+        assertEquals(95, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i + 1, written.get(i).intValue());
+        }
+    }
+
+    @Test
+    void testRun_ReportsInvalidRowsWithRowNumber() {
+        // Arrange
+        ImportPipeline pipeline = new ImportPipeline(parserPool, 10, 2);
+        List<RowError> errors = new ArrayList<>();
+        RowSource source = new RowSource() {
+            private int next = 1;
+
+            @Override
+            public RawRow next() {
+                if (next > 3) {
+                    return null;
+                }
+                int rowNum = next++;
+                String nic = rowNum == 2 ? null : "NIC-" + rowNum;
+                return new RawRow(rowNum, new Object[] { "First", "Last", new Date(), nic, null, null });
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        // Act
+        pipeline.run(source, new CustomerRowParser()::parse, chunk -> errors.addAll(chunk.getErrors()));
+
+        // Assert
+        assertEquals(1, errors.size());
+        assertEquals("Row 2: NIC is required", errors.get(0).getMessage());
+        assertEquals("nic", errors.get(0).getColumn());
+    }
+
+    @Test
+    void testRun_WriterFailureStopsReader() {
+        // Arrange
+        ImportPipeline pipeline = new ImportPipeline(parserPool, 10, 2);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> pipeline.run(rows(1, 100_000),
+                new CustomerRowParser()::parse,
+                chunk -> {
+                    throw new IllegalStateException("write failed");
+                }));
+    }
+
+    @Test
+    void testRun_StartsNewChunkAtSheetBoundary() {
+        // Arrange: 5 customer rows followed by 5 phone rows, with room for 10 per chunk
+        ImportPipeline pipeline = new ImportPipeline(parserPool, 10, 2);
+        List<ImportSheet> chunkSheets = new ArrayList<>();
+        RowSource source = new RowSource() {
+            private int next = 1;
+
+            @Override
+            public RawRow next() {
+                if (next > 10) {
+                    return null;
+                }
+                int rowNum = next++;
+                return rowNum <= 5
+                        ? new RawRow(rowNum, new Object[] { "First", "Last", new Date(), "NIC-" + rowNum, null, null })
+                        : new RawRow(ImportSheet.PHONE_NUMBERS, rowNum - 5, new Object[] { "NIC-1", "0771234567" });
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ChildRowParser childParser = new ChildRowParser(new CityDictionary(new ArrayList<>()));
+
+        // Act
+        pipeline.run(source,
+                rows -> rows.get(0).getSheet() == ImportSheet.CUSTOMERS
+                        ? new CustomerRowParser().parse(rows)
+                        : childParser.parse(rows),
+                chunk -> {
+                    chunkSheets.add(chunk.getSheet());
+                    assertEquals(5, chunk.getRowsRead());
+                });
+
+        // Assert
+        assertEquals(List.of(ImportSheet.CUSTOMERS, ImportSheet.PHONE_NUMBERS), chunkSheets);
+    }
+
+    private RowSource rows(int first, int last) {
+        return new RowSource() {
+            private int next = first;
+
+            @Override
+            public RawRow next() throws IOException {
+                if (next > last) {
+                    return null;
+                }
+                int rowNum = next++;
+                return new RawRow(rowNum, new Object[] { "First", "Last", new Date(), "NIC-" + rowNum, null, null });
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.cms.customer.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonRowSourceTest {
+
+    @Test
+    void testNext_ReadsFlatObjectsAndSkipsUnknownKeys() throws IOException {
+        // Arrange
+        String ndjson = "{\"firstName\":\"Jos\\u00e9\",\"lastName\":\"Doe\",\"dateOfBirth\":\"1990-05-15\","
+                + "\"nic\":200012345678,\"meta\":{\"source\":\"crm\",\"tags\":[1,2]},\"gender\":null}\n"
+                + "\n"
+                + "  {\"first_name\" : \"Jane\", \"nic\" : \"920820456V\"}  \r\n";
+
+        try (NdjsonRowSource source = open(ndjson)) {
+            // Act
+            RawRow first = source.next();
+            RawRow second = source.next();
+
+            // Assert
+            assertEquals(1, first.getRowNum());
+            assertEquals("José", first.get(0));
+            assertTrue(first.get(2) instanceof Date);
+            assertEquals("200012345678", first.get(3));
+            assertNull(first.get(5));
+
+            assertEquals(3, second.getRowNum());
+            assertEquals("Jane", second.get(0));
+            assertEquals("920820456V", second.get(3));
+            assertNull(source.next());
+        }
+    }
+
+    @Test
+    void testNext_ReportsMalformedLineAndContinues() throws IOException {
+        // Arrange
+        String ndjson = "{\"nic\":\"A1\"}\n"
+                + "{\"nic\":\"A2\n"
+                + "not json\n"
+                + "{\"nic\":\"A4\"}";
+
+        try (NdjsonRowSource source = open(ndjson)) {
+            // Act & Assert
+            assertEquals("A1", source.next().get(3));
+            RawRow unterminated = source.next();
+            assertEquals(2, unterminated.getRowNum());
+            assertNotNull(unterminated.getError());
+            assertEquals(3, source.next().getRowNum());
+            RawRow last = source.next();
+            assertEquals(4, last.getRowNum());
+            assertEquals("A4", last.get(3));
+            assertNull(source.next());
+        }
+    }
+
+    private NdjsonRowSource open(String ndjson) throws IOException {
+        return new NdjsonRowSource(Channels.newChannel(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8))));
+    }
+}
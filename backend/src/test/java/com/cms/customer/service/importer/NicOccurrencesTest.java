@@ -0,0 +1,64 @@
+package com.cms.customer.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NicOccurrencesTest {
+
+    @Test
+    void testPutIfAbsent_ReturnsFirstRowAcrossGrowth() {
+        // Arrange: sized far below what is added, so the table grows several times
+        NicOccurrences occurrences = new NicOccurrences(10);
+        for (int row = 1; row <= 100_000; row++) {
+            assertEquals(-1, occurrences.putIfAbsent(String.format("%09dV", row), row));
+        }
+
+        // Act & Assert
+        assertEquals(100_000, occurrences.size());
+        assertEquals(1, occurrences.putIfAbsent("000000001v", 100_001));
+        assertEquals(54_321, occurrences.putIfAbsent(" 000054321V", 100_002));
+    }
+
+    @Test
+    void testPutIfAbsent_FallsBackForNicsThatCannotBePacked() {
+        // Arrange
+        NicOccurrences occurrences = new NicOccurrences(10);
+
+        // Act
+        occurrences.putIfAbsent("NIC-1", 4);
+        occurrences.putIfAbsent("1234567890123456", 5);
+
+        // Assert
+        assertEquals(0, NicOccurrences.pack("NIC-1"));
+        assertEquals(4, occurrences.putIfAbsent("nic-1", 6));
+        assertEquals(5, occurrences.putIfAbsent("1234567890123456", 7));
+        // Packing is bijective, so values that only share digits never collide
+        assertNotEquals(NicOccurrences.pack("01"), NicOccurrences.pack("1"));
+        assertEquals(-1, occurrences.putIfAbsent("NIC-2", 8));
+    }
+
+    @Test
+    void testPutIfAbsent_KeepsSriLankanNicsWithTheirRowsInOneLong() {
+        // Arrange
+        NicOccurrences occurrences = new NicOccurrences(10);
+
+        // Act
+        occurrences.putIfAbsent("199012345678", 2);
+        occurrences.putIfAbsent("901234567V", 3);
+        occurrences.putIfAbsent("901234567X", 4);
+        occurrences.putIfAbsent("AB1234567", 5);
+        occurrences.putIfAbsent("200012345678", 9_000_000);
+
+        // Assert
+        assertEquals(5, occurrences.size());
+        assertEquals(2, occurrences.putIfAbsent(" 199012345678 ", 9_000_001));
+        assertEquals(3, occurrences.putIfAbsent("901234567v", 9_000_002));
+        assertEquals(4, occurrences.putIfAbsent("901234567x", 9_000_003));
+        assertEquals(5, occurrences.putIfAbsent("ab1234567", 9_000_004));
+        // First seen past the rows a combined slot can hold
+        assertEquals(9_000_000, occurrences.putIfAbsent("200012345678", 9_000_005));
+        assertNotEquals(NicOccurrences.sriLankanCode("901234567V"), NicOccurrences.sriLankanCode("901234567X"));
+        assertEquals(-1, NicOccurrences.sriLankanCode("90123456AV"));
+    }
+}
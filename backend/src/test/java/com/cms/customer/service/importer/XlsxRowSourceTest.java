@@ -0,0 +1,199 @@
+package com.cms.customer.service.importer;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxRowSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testNext_DecodesLikeTheStreamingReader() throws IOException {
+        // Arrange: shared strings, dates, numeric NICs, gaps, extra columns and related sheets
+        Path file = tempDir.resolve("customers.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy"));
+
+            Sheet customers = workbook.createSheet("Customers");
+            header(customers, "firstName", "lastName", "dateOfBirth", "nic", "email", "gender", "notes");
+            Row john = customers.createRow(1);
+            john.createCell(0).setCellValue("John");
+            john.createCell(1).setCellValue("Doe");
+            Cell dob = john.createCell(2);
+            dob.setCellValue(date(1990, Calendar.MAY, 15));
+            dob.setCellStyle(dateStyle);
+            john.createCell(3).setCellValue(900515123d);
+            john.createCell(6).setCellValue("not imported");
+            Row jane = customers.createRow(4); // rows 2 and 3 left out
+            jane.createCell(0).setCellValue("John"); // repeated shared string
+            jane.createCell(3).setCellValue("920820456V");
+            jane.createCell(4).setCellValue("jane@example.com");
+            jane.createCell(5).setCellValue(true);
+
+            header(workbook.createSheet("Notes"), "ignored");
+            Sheet phones = workbook.createSheet("Phones");
+            header(phones, "nic", "phoneNumber", "phoneType", "isPrimary");
+            Row phone = phones.createRow(1);
+            phone.createCell(0).setCellValue("920820456V");
+            phone.createCell(1).setCellValue("0771234567");
+            phone.createCell(3).setCellValue(false);
+
+            write(workbook, file);
+        }
+
+        // Act
+        List<RawRow> expected = readAll(new ExcelRowSource(Files.newInputStream(file)));
+        List<RawRow> actual;
+        try (XlsxRowSource source = new XlsxRowSource(Files.newInputStream(file))) {
+            assertEquals(EnumSet.of(ImportSheet.CUSTOMERS, ImportSheet.PHONE_NUMBERS), source.sheets());
+            actual = readAll(source);
+        }
+
+        // Assert
+        assertRowsEqual(expected, actual);
+        assertEquals(3, actual.size());
+        assertEquals(4, actual.get(1).getRowNum());
+        assertEquals("John", actual.get(1).get(0));
+        assertEquals(900515123d, actual.get(0).get(3));
+        assertEquals(date(1990, Calendar.MAY, 15), actual.get(0).get(2));
+        assertEquals("jane@example.com", actual.get(1).get(4));
+        assertEquals(Boolean.TRUE, actual.get(1).get(5));
+    }
+
+    @Test
+    void testNext_ReadsInlineStringsAndEstimatesRowsFromDimension() throws IOException {
+        // Arrange: SXSSF writes every string inline instead of in the shared string table
+        Path file = tempDir.resolve("inline.xlsx");
+        SXSSFWorkbook workbook = new SXSSFWorkbook(10);
+        try {
+            Sheet customers = workbook.createSheet("Customers");
+            header(customers, "firstName", "lastName", "dateOfBirth", "nic", "email", "gender");
+            for (int i = 1; i <= 50; i++) {
+                Row row = customers.createRow(i);
+                row.createCell(0).setCellValue("First" + i);
+                row.createCell(3).setCellValue("NIC-" + i);
+            }
+            write(workbook, file);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+
+        // Act
+        List<RawRow> actual;
+        long estimated;
+        try (XlsxRowSource source = new XlsxRowSource(Files.newInputStream(file))) {
+            estimated = source.estimatedRows();
+            actual = readAll(source);
+        }
+
+        // Assert
+        assertRowsEqual(readAll(new ExcelRowSource(Files.newInputStream(file))), actual);
+        assertEquals(50, actual.size());
+        assertEquals("NIC-50", actual.get(49).get(3));
+        assertTrue(estimated == 50 || estimated == -1, "estimate comes from <dimension> when present");
+    }
+
+    @Test
+    void testNext_ReturnsCachedFormulaResults() throws IOException {
+        // Arrange
+        Path file = tempDir.resolve("formulas.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet customers = workbook.createSheet("Customers");
+            header(customers, "firstName", "lastName", "dateOfBirth", "nic", "email", "gender");
+            Row row = customers.createRow(1);
+            row.createCell(3).setCellFormula("\"NIC-\"&(40+2)");
+            row.createCell(4).setCellFormula("LOWER(\"JANE@EXAMPLE.COM\")");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            write(workbook, file);
+        }
+
+        // Act
+        List<RawRow> rows = readAll(new XlsxRowSource(Files.newInputStream(file)));
+
+        // Assert
+        assertEquals("NIC-42", rows.get(0).get(3));
+        assertEquals("jane@example.com", rows.get(0).get(4));
+    }
+
+    @Test
+    void testConstructor_RejectsFilesThatAreNotWorkbooks() {
+        // Arrange
+        byte[] notAWorkbook = "firstName,lastName\nJohn,Doe\n".getBytes();
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> new XlsxRowSource(new ByteArrayInputStream(notAWorkbook)));
+    }
+
+    private static void header(Sheet sheet, String... names) {
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < names.length; i++) {
+            row.createCell(i).setCellValue(names[i]);
+        }
+    }
+
+    private static void write(Workbook workbook, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            workbook.write(out);
+        }
+    }
+
+    private static Date date(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTime();
+    }
+
+    private static List<RawRow> readAll(RowSource source) throws IOException {
+        List<RawRow> rows = new ArrayList<>();
+        try (RowSource closing = source) {
+            RawRow row;
+            while ((row = closing.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static void assertRowsEqual(List<RawRow> expected, List<RawRow> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            RawRow want = expected.get(i);
+            RawRow got = actual.get(i);
+            assertEquals(want.getSheet(), got.getSheet(), "sheet of row " + i);
+            assertEquals(want.getRowNum(), got.getRowNum(), "number of row " + i);
+            Object[] wantValues = new Object[want.getSheet().getColumns()];
+            Object[] gotValues = new Object[got.getSheet().getColumns()];
+            for (int column = 0; column < wantValues.length; column++) {
+                wantValues[column] = want.get(column);
+                gotValues[column] = got.get(column);
+            }
+            assertArrayEquals(wantValues, gotValues, "values of row " + got.getRowNum() + ": "
+                    + Arrays.toString(gotValues));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.cms.customer.service.importer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxSharedStringsTest {
+
+    @Test
+    void testGet_ReturnsEntriesFromTheTextArena() throws IOException {
+        // Arrange: no uniqueCount hint, rich text runs, a phonetic run and text outside Latin-1
+        StringBuilder xml = new StringBuilder("<sst>")
+                .append("<si><t>John</t></si>")
+                .append("<si><r><t>Jo</t></r><r><t>sé</t></r><rPh><t>ホセ</t></rPh></si>")
+                .append("<si><t/></si>")
+                .append("<si><t>සුනිල්</t></si>");
+        for (int i = 0; i < 20_000; i++) {
+            xml.append("<si><t>customer").append(i).append("@example.com</t></si>");
+        }
+        xml.append("</sst>");
+
+        // Act
+        XlsxSharedStrings strings = XlsxSharedStrings.read(
+                new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(20_004, strings.size());
+        assertEquals("John", strings.get(0));
+        assertEquals("José", strings.get(1));
+        assertEquals("", strings.get(2));
+        assertEquals("සුනිල්", strings.get(3));
+        assertEquals("customer19999@example.com", strings.get(20_003));
+        assertThrows(IllegalArgumentException.class, () -> strings.get(20_004));
+    }
+}
@@ -0,0 +1,45 @@
+package com.cms.customer.service.query;
+
+import com.cms.customer.entity.Customer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCursorTest {
+
+    @Test
+    void testEncodeDecode_RoundTripsSortAndPosition() {
+        // Arrange
+        Customer last = new Customer();
+        last.setId(42L);
+        last.setLastName("O'Neil|Smith");
+        last.setDateOfBirth(java.sql.Date.valueOf("1990-05-17"));
+
+        // Act
+        CustomerCursor byName = CustomerCursor.decode(
+                CustomerCursor.first("lastName", true).after(last).encode());
+        CustomerCursor byBirth = CustomerCursor.decode(
+                CustomerCursor.first("dateOfBirth", false).after(last).encode());
+
+        // Assert
+        assertEquals(CustomerField.LAST_NAME, byName.getSortKey());
+        assertTrue(byName.isDescending());
+        assertEquals("O'Neil|Smith", byName.getLastValue());
+        assertEquals(Long.valueOf(42L), byName.getLastId());
+        assertEquals(java.sql.Date.valueOf("1990-05-17"), byBirth.getLastValue());
+        assertFalse(byBirth.isDescending());
+    }
+
+    @Test
+    void testFirst_RejectsNullableSortKey() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> CustomerCursor.first("email", false));
+    }
+
+    @Test
+    void testDecode_RejectsTamperedToken() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> CustomerCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> CustomerCursor.decode("MXxpZHxhfHh8"));
+    }
+}
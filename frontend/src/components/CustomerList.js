@@ -1,16 +1,23 @@
-import React, { useState, useEffect, useCallback } from 'react';
-import { Container, Table, Button, Form, Row, Col, Modal, Spinner, Card, Badge } from 'react-bootstrap';
+import React, { useState, useEffect, useCallback, useRef } from 'react';
+import { Container, Table, Button, Form, Row, Col, Modal, Spinner, Card, Badge, ListGroup } from 'react-bootstrap';
 import { FaEdit, FaTrash, FaPlus, FaFileExcel, FaSearch, FaEye } from 'react-icons/fa';
 import CustomerService from '../services/CustomerService';
 import MasterDataService from '../services/MasterDataService';
 import { toast } from 'react-toastify';
 
+// Only the columns the grid shows; full customers are loaded for view and edit
+const GRID_FIELDS = 'firstName,lastName,nic,email,gender';
+
 function CustomerList() {
   const [customers, setCustomers] = useState([]);
   const [loading, setLoading] = useState(false);
   const [currentPage, setCurrentPage] = useState(0);
   const [totalPages, setTotalPages] = useState(0);
   const [searchKeyword, setSearchKeyword] = useState('');
+  const [suggestions, setSuggestions] = useState([]);
+  const latestPrefix = useRef('');
+  const [updateExisting, setUpdateExisting] = useState(false);
+  const [dryRun, setDryRun] = useState(false);
   const [showModal, setShowModal] = useState(false);
   const [showViewModal, setShowViewModal] = useState(false);
   const [selectedCustomer, setSelectedCustomer] = useState(null);
@@ -31,7 +38,7 @@ function CustomerList() {
   const loadCustomers = useCallback(async () => {
     setLoading(true);
     try {
-      const response = await CustomerService.getAllCustomers(currentPage, 10);
+      const response = await CustomerService.getAllCustomers(currentPage, 10, 'id', 'ASC', GRID_FIELDS);
       if (response.success) {
         setCustomers(response.data.content);
         setTotalPages(response.data.totalPages);
@@ -58,7 +65,32 @@ function CustomerList() {
     }
   };
 
+  const handleKeywordChange = async (e) => {
+    const value = e.target.value;
+    setSearchKeyword(value);
+    latestPrefix.current = value;
+    if (value.trim().length < 2) {
+      setSuggestions([]);
+      return;
+    }
+    try {
+      const response = await CustomerService.suggestCustomers(value);
+      // A slower answer for an earlier keystroke must not replace a later one
+      if (response.success && latestPrefix.current === value) {
+        setSuggestions(response.data);
+      }
+    } catch (error) {
+      setSuggestions([]);
+    }
+  };
+
+  const handleSuggestionClick = (customerId) => {
+    setSuggestions([]);
+    handleView(customerId);
+  };
+
   const handleSearch = async () => {
+    setSuggestions([]);
     if (!searchKeyword.trim()) {
       loadCustomers();
       return;
@@ -66,7 +98,7 @@ function CustomerList() {
 
     setLoading(true);
     try {
-      const response = await CustomerService.searchCustomers(searchKeyword, currentPage, 10);
+      const response = await CustomerService.searchCustomers(searchKeyword, currentPage, 10, GRID_FIELDS);
       if (response.success) {
         setCustomers(response.data.content);
         setTotalPages(response.data.totalPages);
@@ -102,7 +134,17 @@ function CustomerList() {
     }
   };
 
-  const handleEdit = (customer) => {
+  const handleEdit = async (row) => {
+    // Grid rows carry only the grid's fields, so load the whole customer to edit it
+    let customer;
+    try {
+      const response = await CustomerService.getCustomerById(row.id);
+      if (!response.success) return;
+      customer = response.data;
+    } catch (error) {
+      toast.error('Unable to load customer details. Please try again.');
+      return;
+    }
     setSelectedCustomer(customer);
     setFormData({
       firstName: customer.firstName,
@@ -178,7 +220,9 @@ function CustomerList() {
 
   const handleExport = async () => {
     try {
-      const res = await CustomerService.exportCustomers();
+      // Export what the list shows: the search result if there is one
+      const keyword = searchKeyword.trim();
+      const res = await CustomerService.exportCustomers(keyword ? { keyword } : {});
       const blob = res.data || res;
       const url = window.URL.createObjectURL(blob);
       const link = document.createElement('a');
@@ -226,7 +270,34 @@ function CustomerList() {
     link.click();
     document.body.removeChild(link);
     
-    toast.info('Template downloaded. Fill with your data and upload as Excel (.xlsx)');
+    toast.info('Template downloaded. Fill with your data and upload it as CSV or Excel (.xlsx)');
+  };
+
+  const waitForImportJob = async (jobId) => {
+    // Imports run in the background; poll until the job reaches a final state
+    for (;;) {
+      const response = await CustomerService.getImportJob(jobId);
+      const job = response.data || response;
+      if (['COMPLETED', 'CANCELLED', 'FAILED'].includes(job.status)) {
+        return job;
+      }
+      await new Promise((resolve) => setTimeout(resolve, 1000));
+    }
+  };
+
+  const handleDownloadImportErrors = async (jobId) => {
+    try {
+      const res = await CustomerService.downloadImportErrors(jobId);
+      const url = window.URL.createObjectURL(res.data || res);
+      const link = document.createElement('a');
+      link.href = url;
+      link.setAttribute('download', `import-errors-${jobId}.csv`);
+      document.body.appendChild(link);
+      link.click();
+      link.remove();
+    } catch (error) {
+      toast.error('Could not download the error report');
+    }
   };
 
   const handleImport = async (e) => {
@@ -234,34 +305,60 @@ function CustomerList() {
     if (!file) return;
 
     // Validate file type
-    if (!file.name.endsWith('.xlsx') && !file.name.endsWith('.xls')) {
-      toast.error('Please select an Excel file (.xlsx or .xls)');
+    if (!/\.(xlsx|xls|csv|ndjson|jsonl)$/i.test(file.name)) {
+      toast.error('Please select an Excel (.xlsx), CSV (.csv) or NDJSON (.ndjson) file');
       e.target.value = ''; // Reset file input
       return;
     }
 
     try {
       setLoading(true);
-      const response = await CustomerService.importCustomers(file);
-      
+      const submitted = await CustomerService.importCustomers(file, updateExisting ? 'upsert' : 'insert', dryRun);
+      const job = await waitForImportJob((submitted.data || submitted).jobId);
+
+      if (job.status === 'FAILED') {
+        throw new Error(job.errorMessage || 'Import failed. Please review the file and try again.');
+      }
+
       // Show detailed success message with counts
-      const { importedCount, skippedDuplicates, errors } = response.data || response;
+      const {
+        importedCount, skippedDuplicates, insertedCount, updatedCount, unchangedCount,
+        importedAddresses, importedPhoneNumbers, importedFamilyLinks, validCount, errorCount
+      } = job.result || job;
       
       let message = `Successfully imported ${importedCount} customers`;
-      if (skippedDuplicates > 0) {
+      if (job.dryRun) {
+        message = `Validation finished: ${validCount} valid rows, nothing was imported`;
+      } else if (job.mode === 'UPSERT') {
+        message = `Import finished: ${insertedCount} added, ${updatedCount} updated, ${unchangedCount} unchanged`;
+      } else if (skippedDuplicates > 0) {
         message += ` (${skippedDuplicates} duplicates skipped)`;
       }
+      // Counts from the optional Addresses / Phone Numbers / Family Members sheets
+      if (!job.dryRun && (importedAddresses || importedPhoneNumbers || importedFamilyLinks)) {
+        message += `; ${importedAddresses || 0} addresses, ${importedPhoneNumbers || 0} phone numbers, `
+          + `${importedFamilyLinks || 0} family links`;
+      }
       
       toast.success(message, { autoClose: 5000 });
       
-      // Show errors if any
-      if (errors && errors.length > 0) {
-        const errorCount = errors.length;
-        toast.warning(`${errorCount} rows had errors. Check console for details.`, { autoClose: 8000 });
-        console.error('Import errors:', errors);
+      // Every error is in the job's CSV report; offer it for download
+      if (errorCount > 0) {
+        toast.warning(
+          <span>
+            {errorCount} rows had errors.{' '}
+            <Button variant="link" size="sm" className="p-0 align-baseline"
+              onClick={() => handleDownloadImportErrors(job.jobId)}>
+              Download error report
+            </Button>
+          </span>,
+          { autoClose: false }
+        );
       }
       
-      loadCustomers();
+      if (!job.dryRun) {
+        loadCustomers();
+      }
       e.target.value = ''; // Reset file input
     } catch (error) {
       console.error('Import error:', error);
@@ -320,10 +417,28 @@ function CustomerList() {
               >
                 <FaFileExcel /> Import
               </label>
+              <Form.Check
+                type="switch"
+                id="import-update-existing"
+                className="align-self-center"
+                label="Update existing"
+                checked={updateExisting}
+                onChange={(e) => setUpdateExisting(e.target.checked)}
+                disabled={loading}
+              />
+              <Form.Check
+                type="switch"
+                id="import-dry-run"
+                className="align-self-center"
+                label="Validate only"
+                checked={dryRun}
+                onChange={(e) => setDryRun(e.target.checked)}
+                disabled={loading}
+              />
               <input
                 id="import-file"
                 type="file"
-                accept=".xlsx,.xls"
+                accept=".xlsx,.xls,.csv,.ndjson,.jsonl"
                 style={{ display: 'none' }}
                 onChange={handleImport}
                 disabled={loading}
@@ -333,13 +448,22 @@ function CustomerList() {
 
           <Row className="g-2 align-items-center mb-3">
             <Col md={6}>
-              <Form.Group className="d-flex">
+              <Form.Group className="d-flex position-relative">
                 <Form.Control
                   type="text"
                   placeholder="Search customers..."
                   value={searchKeyword}
-                  onChange={(e) => setSearchKeyword(e.target.value)}
+                  onChange={handleKeywordChange}
                 />
+                {suggestions.length > 0 && (
+                  <ListGroup className="position-absolute w-100 shadow-sm" style={{ top: '100%', zIndex: 10 }}>
+                    {suggestions.map((suggestion) => (
+                      <ListGroup.Item key={suggestion.id} action onClick={() => handleSuggestionClick(suggestion.id)}>
+                        {suggestion.display}
+                      </ListGroup.Item>
+                    ))}
+                  </ListGroup>
+                )}
                 <Button variant="primary" className="ms-2" onClick={handleSearch} disabled={loading}>
                   <FaSearch /> Search
                 </Button>
@@ -2,22 +2,32 @@ import axiosInstance from './axiosConfig';
 
 const CustomerService = {
   // Get all customers with pagination
-  getAllCustomers: (page = 0, size = 10, sortBy = 'id', sortDir = 'ASC') => {
+  // fields: optional comma-separated attributes to return (e.g. 'firstName,nic'); all when omitted
+  getAllCustomers: (page = 0, size = 10, sortBy = 'id', sortDir = 'ASC', fields) => {
     return axiosInstance.get('/customers', {
-      params: { page, size, sortBy, sortDir }
+      params: { page, size, sortBy, sortDir, fields }
     });
   },
 
   // Search customers
-  searchCustomers: (keyword, page = 0, size = 10) => {
+  searchCustomers: (keyword, page = 0, size = 10, fields) => {
     return axiosInstance.get('/customers/search', {
-      params: { keyword, page, size }
+      params: { keyword, page, size, fields }
+    });
+  },
+
+  // As-you-type suggestions ({ id, display }) by name or NIC prefix
+  suggestCustomers: (prefix, limit = 8) => {
+    return axiosInstance.get('/customers/suggest', {
+      params: { prefix, limit }
     });
   },
 
   // Get customer by ID
-  getCustomerById: (id) => {
-    return axiosInstance.get(`/customers/${id}`);
+  getCustomerById: (id, fields) => {
+    return axiosInstance.get(`/customers/${id}`, {
+      params: { fields }
+    });
   },
 
   // Create new customer
@@ -35,21 +45,43 @@ const CustomerService = {
     return axiosInstance.delete(`/customers/${id}`);
   },
 
-  // Import customers from Excel
-  importCustomers: (file) => {
+  // Submit an Excel import job (returns the job; poll getImportJob for progress)
+  // mode: 'insert' skips existing NICs, 'upsert' updates customers whose fields changed
+  // dryRun: validate every row without writing anything
+  importCustomers: (file, mode = 'insert', dryRun = false) => {
     const formData = new FormData();
     formData.append('file', file);
     
     return axiosInstance.post('/customers/import', formData, {
+      params: { mode, dryRun },
       headers: {
         'Content-Type': 'multipart/form-data'
       }
     });
   },
 
+  // Get import job progress
+  getImportJob: (jobId) => {
+    return axiosInstance.get(`/customers/import/${jobId}`);
+  },
+
+  // Cancel a running import job
+  cancelImportJob: (jobId) => {
+    return axiosInstance.delete(`/customers/import/${jobId}`);
+  },
+
+  // Download the CSV of every row error of an import job
+  downloadImportErrors: (jobId) => {
+    return axiosInstance.get(`/customers/import/${jobId}/errors`, {
+      responseType: 'blob'
+    });
+  },
+
   // Export customers to Excel (keeps headers for filename)
-  exportCustomers: () => {
+  // Optional filters: keyword, dobFrom, dobTo (yyyy-MM-dd), updatedSince (yyyy-MM-ddTHH:mm:ss)
+  exportCustomers: (filters = {}) => {
     return axiosInstance.get('/customers/export', {
+      params: filters,
       responseType: 'blob'
     });
   },